@@ -0,0 +1,99 @@
+#!/usr/bin/env python3
+# Compares a JMH JSON result file against the stored baseline and exits non-zero on a regression.
+# A result regresses when it is worse than the baseline by more than the threshold and by more
+# than the two runs' error margins combined, so noisy benchmarks don't fail on jitter alone.
+#
+#   ./mvnw -Pbenchmark verify -Dbenchmark=Serialization
+#   scripts/benchmark-compare.py                          # target/jmh-results.json vs benchmarks/baseline.json
+#   scripts/benchmark-compare.py --threshold 5
+#   scripts/benchmark-compare.py --update-baseline        # store these results as the new baseline
+#
+# The baseline only means something for the machine it was recorded on; record it on the host
+# that runs the comparison.
+import argparse
+import json
+import math
+import os
+import sys
+
+ROOT = os.path.dirname(os.path.dirname(os.path.abspath(__file__)))
+HIGHER_IS_BETTER = {"thrpt"}
+
+
+def key(result):
+    params = ",".join(f"{k}={v}" for k, v in sorted(result.get("params", {}).items()))
+    return f"{result['benchmark']}({params})" if params else result["benchmark"]
+
+
+def load(path):
+    with open(path) as f:
+        return {key(r): r for r in json.load(f)}
+
+
+def error(metric):
+    value = metric.get("scoreError")
+    return value if isinstance(value, (int, float)) and not math.isnan(value) else 0.0
+
+
+def compare(baseline, current, threshold):
+    """Yields (key, verdict, baseline score, current score, change in percent, unit)."""
+    for name, result in sorted(current.items()):
+        now = result["primaryMetric"]
+        unit = now["scoreUnit"]
+        if name not in baseline:
+            yield name, "new", None, now["score"], None, unit
+            continue
+        before = baseline[name]["primaryMetric"]
+        if before["scoreUnit"] != unit or baseline[name]["mode"] != result["mode"]:
+            yield name, "changed", before["score"], now["score"], None, unit
+            continue
+        change = (now["score"] - before["score"]) / before["score"] * 100 if before["score"] else 0.0
+        worse = -change if result["mode"] in HIGHER_IS_BETTER else change
+        beyond_noise = abs(now["score"] - before["score"]) > error(now) + error(before)
+        if worse > threshold and beyond_noise:
+            verdict = "REGRESSION"
+        elif worse < -threshold and beyond_noise:
+            verdict = "improved"
+        else:
+            verdict = "ok"
+        yield name, verdict, before["score"], now["score"], change, unit
+
+
+def main():
+    parser = argparse.ArgumentParser(description="Flags JMH regressions against a stored baseline.")
+    parser.add_argument("results", nargs="?", default=os.path.join(ROOT, "target", "jmh-results.json"))
+    parser.add_argument("--baseline", default=os.path.join(ROOT, "benchmarks", "baseline.json"))
+    parser.add_argument("--threshold", type=float, default=10.0, help="allowed slowdown in percent (default 10)")
+    parser.add_argument("--update-baseline", action="store_true",
+                        help="merge these results into the baseline instead of comparing")
+    args = parser.parse_args()
+
+    current = load(args.results)
+    if args.update_baseline:
+        merged = load(args.baseline) if os.path.exists(args.baseline) else {}
+        merged.update(current)
+        os.makedirs(os.path.dirname(args.baseline), exist_ok=True)
+        with open(args.baseline, "w") as f:
+            json.dump([merged[k] for k in sorted(merged)], f, indent=2)
+            f.write("\n")
+        print(f"Stored {len(current)} results in {args.baseline} ({len(merged)} in total)")
+        return 0
+
+    if not os.path.exists(args.baseline):
+        print(f"No baseline at {args.baseline}; record one with --update-baseline", file=sys.stderr)
+        return 2
+
+    regressions = 0
+    for name, verdict, before, now, change, unit in compare(load(args.baseline), current, args.threshold):
+        before_text = f"{before:.3f}" if before is not None else "-"
+        change_text = f"{change:+.1f}%" if change is not None else "-"
+        print(f"{verdict:<10} {name:<90} {before_text:>14} -> {now:.3f} {unit} ({change_text})")
+        regressions += verdict == "REGRESSION"
+    if regressions:
+        print(f"{regressions} regression(s) beyond {args.threshold:g}%", file=sys.stderr)
+        return 1
+    return 0
+
+
+if __name__ == "__main__":
+    sys.exit(main())
@@ -0,0 +1,53 @@
+#!/usr/bin/env bash
+# Compares platform-thread and virtual-thread request handling under the same load.
+# Starts the app once per mode with the loadtest profile (fixture data, no network), then runs
+# com.flags.loadtest.LoadTest against it. Results are appended to target/loadtest-results.csv.
+#
+#   scripts/loadtest.sh                                  # 100, 1000 and 10000 connections
+#   CONNECTIONS=100,1000 DURATION=10 scripts/loadtest.sh
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+PORT=${PORT:-8080}
+CONNECTIONS=${CONNECTIONS:-100,1000,10000}
+DURATION=${DURATION:-20}
+WARMUP=${WARMUP:-5}
+
+max_connections=$(echo "$CONNECTIONS" | tr ',' '\n' | sort -n | tail -1)
+if [ "$(ulimit -n)" != unlimited ] && [ "$(ulimit -n)" -lt $((max_connections * 2 + 1024)) ]; then
+  echo "warning: ulimit -n is $(ulimit -n); $max_connections connections need about $((max_connections * 2 + 1024))" \
+       "descriptors (client and server run on this host). Raise it with 'ulimit -n 65536'." >&2
+fi
+
+# Run from a copy: the harness build below repackages target/*.jar
+./mvnw -B -q -DskipTests package
+jar=$(mktemp -d)/flags.jar
+cp "$(ls target/flags-*.jar | grep -v plain | head -1)" "$jar"
+
+server=
+stop() {
+  if [ -n "$server" ]; then
+    kill "$server" 2>/dev/null || true
+    wait "$server" 2>/dev/null || true
+    server=
+  fi
+}
+trap stop EXIT
+
+for mode in platform virtual; do
+  profiles=loadtest
+  [ "$mode" = virtual ] && profiles=loadtest,virtual-threads
+
+  java -jar "$jar" --server.port="$PORT" --spring.profiles.active="$profiles" &
+  server=$!
+  for _ in $(seq 1 120); do
+    curl -fs -o /dev/null -H 'Accept: application/json' "http://localhost:$PORT/countries" && break
+    kill -0 "$server" 2>/dev/null || { echo "server exited during startup" >&2; exit 1; }
+    sleep 1
+  done
+
+  ./mvnw -B -q -Ploadtest verify \
+    "-Dloadtest=--url http://localhost:$PORT --mode $mode --connections $CONNECTIONS --duration $DURATION --warmup $WARMUP"
+  stop
+done
@@ -0,0 +1,72 @@
+#!/usr/bin/env bash
+# Cold-start times for each startup configuration, measured from JVM launch to the first successful
+# GET /countries. "Successful" means readiness reports UP and GET /countries then returns 200, which
+# is when a load balancer would send traffic; a fast-start instance answers before its catalog has
+# loaded, but it is not ready until then.
+#
+#   default     the default profile
+#   fast-start  lazy beans, deferred JPA repositories, background catalog load, no springdoc
+#   aot         fast-start with the AOT-generated bean definitions
+#   aot+cds     aot plus the Class Data Sharing archive
+#
+# All four run the jar extracted by ./mvnw -Pcds package, with the loadtest profile (fixture data, no
+# network). Each starts RUNS times; every run is appended to target/startup-results.csv.
+#
+#   scripts/startup.sh
+#   RUNS=10 scripts/startup.sh
+#   SKIP_BUILD=1 scripts/startup.sh      # reuse target/fast-start
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+PORT=${PORT:-8080}
+RUNS=${RUNS:-5}
+
+if [ -z "${SKIP_BUILD:-}" ]; then
+  ./mvnw -B -q -Pcds -DskipTests package
+fi
+# Absolute, as the archive was recorded for that class path
+dir=$PWD/target/fast-start
+jar=$(ls "$dir"/flags-*.jar | head -1)
+results=target/startup-results.csv
+[ -f "$results" ] || echo "timestamp,configuration,run,first_get_ms" > "$results"
+
+server=
+stop() {
+  if [ -n "$server" ]; then
+    kill "$server" 2>/dev/null || true
+    wait "$server" 2>/dev/null || true
+    server=
+  fi
+}
+trap stop EXIT
+
+# measure <name> <profiles> [jvm options...]
+measure() {
+  local name=$1 profiles=$2
+  shift 2
+  local times=()
+  for run in $(seq 1 "$RUNS"); do
+    local start
+    start=$(date +%s%3N)
+    java "$@" -jar "$jar" --server.port="$PORT" --spring.profiles.active="$profiles" > "target/startup-$name.log" 2>&1 &
+    server=$!
+    until curl -fs -o /dev/null "http://localhost:$PORT/actuator/health/readiness" \
+        && curl -fs -o /dev/null -H 'Accept: application/json' "http://localhost:$PORT/countries"; do
+      kill -0 "$server" 2>/dev/null || { echo "$name: server exited during startup, see target/startup-$name.log" >&2; exit 1; }
+      sleep 0.02
+    done
+    local elapsed=$(( $(date +%s%3N) - start ))
+    stop
+    times+=("$elapsed")
+    echo "$(date -u +%FT%TZ),$name,$run,$elapsed" >> "$results"
+  done
+  printf '%-11s %s\n' "$name" "$(printf '%s\n' "${times[@]}" | sort -n \
+    | awk '{ t[NR] = $1 } END { printf "median %5d ms   min %5d ms   max %5d ms", t[int((NR + 1) / 2)], t[1], t[NR] }')"
+}
+
+echo "Time to first GET /countries, $RUNS runs each:"
+measure default loadtest
+measure fast-start loadtest,fast-start
+measure aot loadtest,fast-start -Dspring.aot.enabled=true
+measure aot+cds loadtest,fast-start -Dspring.aot.enabled=true -XX:SharedArchiveFile="$dir/application.jsa"
@@ -0,0 +1,47 @@
+package com.flags.catalog;
+
+import com.flags.dto.CountryDetailDto;
+import com.flags.dto.CountryDto;
+
+/**
+ * One country as held by a {@link CatalogSnapshot}: both DTO shapes, mapped once, the flag's
+ * origin URL (the DTOs carry the local {@code /flags} URL), and the catalog version at which the
+ * country was last written. Entries that a write does not touch
+ * are carried over to the next snapshot as-is, together with their encoded body.
+ */
+public final class CatalogEntry {
+
+    private final CountryDto summary;
+    private final CountryDetailDto detail;
+    private final String flagOrigin;
+    private final long version;
+
+    volatile EncodedBody body;
+
+    CatalogEntry(CountryDto summary, CountryDetailDto detail, String flagOrigin, long version) {
+        this.summary = summary;
+        this.detail = detail;
+        this.flagOrigin = flagOrigin;
+        this.version = version;
+    }
+
+    public String name() {
+        return detail.getName();
+    }
+
+    public CountryDto summary() {
+        return summary;
+    }
+
+    public CountryDetailDto detail() {
+        return detail;
+    }
+
+    public String flagOrigin() {
+        return flagOrigin;
+    }
+
+    public long version() {
+        return version;
+    }
+}
@@ -0,0 +1,91 @@
+package com.flags.catalog;
+
+import com.flags.search.SearchText;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Secondary indexes over one {@link CatalogSnapshot}, built on first use.
+ * <p>
+ * Populations are held as a sorted {@code int[]} with the matching entries in a parallel array,
+ * so range queries are two binary searches and top-k is a walk from the end. Countries without a
+ * population are left out. Capitals are looked up case- and accent-insensitively.
+ */
+public final class CatalogIndexes {
+
+    private final int[] populations;
+    private final CatalogEntry[] byPopulation;
+    private final Map<String, List<CatalogEntry>> byCapital;
+
+    CatalogIndexes(CatalogSnapshot snapshot) {
+        CatalogEntry[] entries = snapshot.entries().toArray(CatalogEntry[]::new);
+        // Population in the high half, position in the low half: one primitive sort, stable by name
+        long[] keys = new long[entries.length];
+        int count = 0;
+        for (int i = 0; i < entries.length; i++) {
+            Integer population = entries[i].detail().getPopulation();
+            if (population != null) {
+                keys[count++] = ((long) population << 32) | i;
+            }
+        }
+        Arrays.sort(keys, 0, count);
+        populations = new int[count];
+        byPopulation = new CatalogEntry[count];
+        for (int i = 0; i < count; i++) {
+            populations[i] = (int) (keys[i] >> 32);
+            byPopulation[i] = entries[(int) keys[i]];
+        }
+
+        byCapital = new HashMap<>();
+        for (CatalogEntry entry : entries) {
+            String capital = entry.detail().getCapital();
+            if (capital != null) {
+                byCapital.computeIfAbsent(SearchText.normalize(capital), k -> new ArrayList<>(1)).add(entry);
+            }
+        }
+    }
+
+    /**
+     * The {@code n} most populous countries, largest first.
+     */
+    public List<CatalogEntry> topByPopulation(int n) {
+        int size = Math.min(n, byPopulation.length);
+        List<CatalogEntry> top = new ArrayList<>(size);
+        for (int i = byPopulation.length - 1; i >= byPopulation.length - size; i--) {
+            top.add(byPopulation[i]);
+        }
+        return top;
+    }
+
+    /**
+     * Up to {@code limit} countries with {@code min <= population <= max}, smallest first.
+     */
+    public List<CatalogEntry> populationBetween(int min, int max, int limit) {
+        int from = firstAtLeast(min);
+        int to = max == Integer.MAX_VALUE ? populations.length : firstAtLeast(max + 1);
+        return Arrays.asList(byPopulation).subList(from, Math.max(from, Math.min(to, from + limit)));
+    }
+
+    public List<CatalogEntry> byCapital(String capital) {
+        return byCapital.getOrDefault(SearchText.normalize(capital), List.of());
+    }
+
+    // Arrays.binarySearch makes no promise about which of several equal keys it finds
+    private int firstAtLeast(int population) {
+        int low = 0;
+        int high = populations.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (populations[mid] < population) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,39 @@
+package com.flags.catalog;
+
+/**
+ * Keeps a derived structure in step with the catalog. Callbacks run on the writing thread while
+ * the catalog's write lock is held, in write order, so they should be quick and must not call
+ * back into {@link CountryCatalog}.
+ */
+public interface CatalogListener {
+
+    /**
+     * A full snapshot is about to be loaded from the repository; anything the repository is
+     * still missing has to be written now.
+     */
+    default void beforeRebuild() {
+    }
+
+    /**
+     * A full snapshot was loaded from the repository; anything derived earlier is stale.
+     */
+    default void onRebuild(CatalogSnapshot snapshot) {
+    }
+
+    /**
+     * A country was created ({@code previous} is {@code null}) or updated.
+     */
+    default void onPut(CatalogEntry previous, CatalogEntry current) {
+    }
+
+    default void onRemove(CatalogEntry removed) {
+    }
+
+    /**
+     * Whether {@code name} has a write this listener has accepted but not yet made durable. The
+     * catalog then keeps its own entry instead of re-reading the repository, which is behind.
+     */
+    default boolean holdsPendingWrite(String name) {
+        return false;
+    }
+}
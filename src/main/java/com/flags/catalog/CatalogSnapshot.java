@@ -0,0 +1,85 @@
+package com.flags.catalog;
+
+import com.flags.dto.CountryDto;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Immutable view of the whole catalog at one version. Writers never modify a snapshot, they
+ * derive a new one and swap it in, so readers can hold on to an instance without locking.
+ */
+public final class CatalogSnapshot {
+
+    private final long version;
+    private final NavigableMap<String, CatalogEntry> entries;
+    private final List<CountryDto> countries;
+
+    // Indexed by ListFormat ordinal
+    final AtomicReferenceArray<EncodedBody> listBodies = new AtomicReferenceArray<>(ListFormat.values().length);
+    private volatile CatalogIndexes indexes;
+
+    CatalogSnapshot(long version, NavigableMap<String, CatalogEntry> entries) {
+        this.version = version;
+        this.entries = Collections.unmodifiableNavigableMap(entries);
+        this.countries = entries.values().stream().map(CatalogEntry::summary).toList();
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public List<CountryDto> countries() {
+        return countries;
+    }
+
+    public Collection<CatalogEntry> entries() {
+        return entries.values();
+    }
+
+    public CatalogEntry find(String name) {
+        return entries.get(name);
+    }
+
+    /**
+     * Up to {@code limit} entries in name order, starting after {@code after} (or at the first
+     * entry when {@code after} is null). {@code after} does not have to exist any more.
+     */
+    public List<CatalogEntry> page(String after, int limit) {
+        Collection<CatalogEntry> tail = after != null ? entries.tailMap(after, false).values() : entries.values();
+        return tail.stream().limit(limit).toList();
+    }
+
+    /**
+     * Population and capital indexes for this snapshot. Built by the first caller; a concurrent
+     * second build is harmless, as both produce the same result.
+     */
+    public CatalogIndexes indexes() {
+        CatalogIndexes built = indexes;
+        if (built == null) {
+            built = new CatalogIndexes(this);
+            indexes = built;
+        }
+        return built;
+    }
+
+    CatalogSnapshot with(CatalogEntry entry, long newVersion) {
+        NavigableMap<String, CatalogEntry> copy = new TreeMap<>(entries);
+        copy.put(entry.name(), entry);
+        return new CatalogSnapshot(newVersion, copy);
+    }
+
+    CatalogSnapshot without(String name, long newVersion) {
+        NavigableMap<String, CatalogEntry> copy = new TreeMap<>(entries);
+        copy.remove(name);
+        return new CatalogSnapshot(newVersion, copy);
+    }
+}
@@ -0,0 +1,4 @@
+package com.flags.catalog;
+
+public record CatalogStats(long version, int size, long hits, long misses, long rebuilds, long encodes, long encodeNanos) {
+}
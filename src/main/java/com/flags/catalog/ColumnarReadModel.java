@@ -0,0 +1,128 @@
+package com.flags.catalog;
+
+import com.flags.dto.CountryDetailDto;
+import com.flags.dto.CountryDto;
+import com.flags.flagstore.FlagUrls;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Serves the country list and country details from a {@link CountryStore} instead of the
+ * catalog's entries, with {@code flags.catalog.read-model=columnar}.
+ * <p>
+ * The store is built from the catalog snapshot on the first read after a write, so writes still
+ * go through {@link CountryCatalog} and readers see them in the same order. Bodies are encoded
+ * once per store, with the same ETags as the catalog's.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "flags.catalog", name = "read-model", havingValue = "columnar")
+public class ColumnarReadModel {
+
+    private final CountryCatalog countryCatalog;
+
+    private final AtomicReference<Columns> current = new AtomicReference<>();
+
+    /**
+     * All countries in name order; DTOs are created as the list is read.
+     */
+    public List<CountryDto> countries() {
+        return countries(columns().store);
+    }
+
+    /**
+     * The country called {@code name}, or {@code null} if there is no such country.
+     */
+    public CountryDetailDto find(String name) {
+        CountryView view = columns().store.find(name);
+        return view != null ? view.toDetailDto() : null;
+    }
+
+    /**
+     * JSON for the full country list, tagged like {@link CountryCatalog#listBody()}.
+     */
+    public EncodedBody listBody() {
+        return columns().list;
+    }
+
+    /**
+     * JSON for one country, tagged with its row version, or {@code null} if there is no such
+     * country.
+     */
+    public EncodedBody detailBody(String name) {
+        Columns columns = columns();
+        int row = columns.store.indexOf(name);
+        if (row < 0) {
+            return null;
+        }
+        EncodedBody body = columns.details.get(row);
+        if (body == null) {
+            CountryView view = columns.store.get(row);
+            body = new EncodedBody(CountryCatalog.etag(view.version()), () -> countryCatalog.encodeJson(view.toDetailDto()));
+            if (!columns.details.compareAndSet(row, null, body)) {
+                body = columns.details.get(row);
+            }
+        }
+        return body;
+    }
+
+    // Concurrent first reads of a version may both build; either result serves that version
+    private Columns columns() {
+        CatalogSnapshot snapshot = countryCatalog.snapshot();
+        Columns columns = current.get();
+        if (columns == null || columns.version != snapshot.version()) {
+            columns = new Columns(snapshot);
+            current.set(columns);
+        }
+        return columns;
+    }
+
+    private static List<CountryDto> countries(CountryStore store) {
+        return new AbstractList<>() {
+            @Override
+            public CountryDto get(int index) {
+                return summary(store.get(index));
+            }
+
+            @Override
+            public int size() {
+                return store.size();
+            }
+        };
+    }
+
+    private static CountryDto summary(CountryView view) {
+        CountryDto dto = new CountryDto();
+        dto.setName(view.name());
+        dto.setFlag(FlagUrls.local(view.name(), view.flag()));
+        return dto;
+    }
+
+    private final class Columns {
+
+        final long version;
+        final CountryStore store;
+        final EncodedBody list;
+        // Indexed by row
+        final AtomicReferenceArray<EncodedBody> details;
+
+        Columns(CatalogSnapshot snapshot) {
+            CountryStore.Builder builder = CountryStore.builder();
+            for (CatalogEntry entry : snapshot.entries()) {
+                CountryDetailDto detail = entry.detail();
+                builder.add(entry.name(), entry.flagOrigin(), detail.getPopulation(), detail.getCapital(), detail.getVersion());
+            }
+            this.version = snapshot.version();
+            this.store = builder.build();
+            this.list = new EncodedBody(countryCatalog.listEtag(version, ListFormat.JSON),
+                    () -> countryCatalog.encodeJson(countries(store)));
+            this.details = new AtomicReferenceArray<>(store.size());
+        }
+    }
+}
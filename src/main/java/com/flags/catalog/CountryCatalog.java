@@ -0,0 +1,305 @@
+package com.flags.catalog;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.flags.dto.CountryDetailDto;
+import com.flags.mappers.CountryMapper;
+import com.flags.models.Country;
+import com.flags.repositories.CountryRepository;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Read-through, in-memory copy of the country table.
+ * <p>
+ * Reads go through {@link #snapshot()}, which only touches the repository when no snapshot is
+ * loaded yet. Writes run the database change and the snapshot swap under one lock, so the
+ * snapshot order always matches the write order; readers never take that lock.
+ */
+@Component
+public class CountryCatalog {
+
+    private final CountryRepository countryRepository;
+    private final CountryMapper countryMapper;
+    private final List<CatalogListener> listeners;
+    // Built once: each copied mapper has its own serializer cache
+    private final ObjectWriter json;
+    private final ObjectWriter cbor;
+    private final ObjectWriter smile;
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicReference<CatalogSnapshot> current = new AtomicReference<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final AtomicLong versions = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+    private final LongAdder encodes = new LongAdder();
+    private final LongAdder encodeNanos = new LongAdder();
+
+    public CountryCatalog(CountryRepository countryRepository, CountryMapper countryMapper, ObjectMapper objectMapper,
+                          List<CatalogListener> listeners) {
+        this.countryRepository = countryRepository;
+        this.countryMapper = countryMapper;
+        this.listeners = listeners;
+        this.json = objectMapper.writer();
+        // Same modules and settings as the JSON mapper
+        this.cbor = objectMapper.copyWith(new CBORFactory()).writer();
+        this.smile = objectMapper.copyWith(new SmileFactory()).writer();
+    }
+
+    public CatalogSnapshot snapshot() {
+        CatalogSnapshot snapshot = current.get();
+        if (snapshot != null) {
+            hits.increment();
+            return snapshot;
+        }
+        misses.increment();
+        writeLock.lock();
+        try {
+            snapshot = current.get();
+            if (snapshot == null) {
+                for (CatalogListener listener : listeners) {
+                    listener.beforeRebuild();
+                }
+                snapshot = rebuild();
+                current.set(snapshot);
+                for (CatalogListener listener : listeners) {
+                    listener.onRebuild(snapshot);
+                }
+            }
+            return snapshot;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Whether a snapshot is loaded, i.e. whether the next read is served without touching the
+     * repository.
+     */
+    public boolean isLoaded() {
+        return current.get() != null;
+    }
+
+    /**
+     * JSON for the full country list, tagged with the snapshot version.
+     */
+    public EncodedBody listBody() {
+        return listBody(ListFormat.JSON);
+    }
+
+    /**
+     * The full country list in {@code format}, tagged with the snapshot version and the format.
+     */
+    public EncodedBody listBody(ListFormat format) {
+        CatalogSnapshot snapshot = snapshot();
+        EncodedBody body = snapshot.listBodies.get(format.ordinal());
+        if (body == null) {
+            String etag = listEtag(snapshot.version(), format);
+            body = switch (format) {
+                case JSON -> new EncodedBody(etag, () -> encode(json, snapshot.countries()));
+                case CBOR -> new EncodedBody(etag, () -> encode(cbor, snapshot.countries()));
+                case SMILE -> new EncodedBody(etag, () -> encode(smile, snapshot.countries()));
+                case COLUMNS -> new EncodedBody(etag, () -> encode(cbor, CountryColumns.of(snapshot.entries().stream().map(CatalogEntry::detail).toList())));
+            };
+            // A concurrent caller may have got there first; theirs wins so the body encodes once
+            if (!snapshot.listBodies.compareAndSet(format.ordinal(), null, body)) {
+                body = snapshot.listBodies.get(format.ordinal());
+            }
+        }
+        return body;
+    }
+
+    /**
+     * JSON for one country, tagged with its row version, or {@code null} if there is no such
+     * country.
+     */
+    public EncodedBody detailBody(String name) {
+        CatalogEntry entry = snapshot().find(name);
+        if (entry == null) {
+            return null;
+        }
+        EncodedBody body = entry.body;
+        if (body == null) {
+            body = new EncodedBody(etag(entry.detail().getVersion()), () -> encode(json, entry.detail()));
+            entry.body = body;
+        }
+        return body;
+    }
+
+    /**
+     * Runs {@code write} and publishes the country it returns in a new snapshot.
+     */
+    public CatalogEntry put(Supplier<Country> write) {
+        writeLock.lock();
+        try {
+            Country saved = write.get();
+            long version = versions.incrementAndGet();
+            CatalogEntry entry = toEntry(saved, version);
+            CatalogSnapshot base = current.get();
+            if (base != null) {
+                CatalogEntry previous = base.find(entry.name());
+                current.set(base.with(entry, version));
+                for (CatalogListener listener : listeners) {
+                    listener.onPut(previous, entry);
+                }
+            }
+            return entry;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Runs {@code delete} and publishes a snapshot without {@code name}.
+     */
+    public void remove(String name, Runnable delete) {
+        writeLock.lock();
+        try {
+            delete.run();
+            long version = versions.incrementAndGet();
+            CatalogSnapshot base = current.get();
+            CatalogEntry removed = base != null ? base.find(name) : null;
+            if (removed != null) {
+                current.set(base.without(name, version));
+                for (CatalogListener listener : listeners) {
+                    listener.onRemove(removed);
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Re-reads {@code name} from the repository after another node wrote it, or the whole catalog
+     * when {@code name} is null. Listeners only hear of the country if its row changed. A country
+     * with a write still waiting in a listener is left alone; that listener refreshes it once the
+     * write is durable.
+     */
+    public void refresh(String name) {
+        if (name == null) {
+            invalidate();
+            return;
+        }
+        writeLock.lock();
+        try {
+            CatalogSnapshot base = current.get();
+            if (base == null) {
+                // The next read loads everything anyway
+                return;
+            }
+            for (CatalogListener listener : listeners) {
+                if (listener.holdsPendingWrite(name)) {
+                    return;
+                }
+            }
+            CatalogEntry cached = base.find(name);
+            Country country = countryRepository.findById(name).orElse(null);
+            if (country == null) {
+                if (cached != null) {
+                    remove(name, () -> {
+                    });
+                }
+            } else if (cached == null || !sameRow(cached, country)) {
+                put(() -> country);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Drops the current snapshot so the next read reloads it. Needed after writes that bypass
+     * the catalog, such as the startup data loader.
+     */
+    public void invalidate() {
+        writeLock.lock();
+        try {
+            current.set(null);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public CatalogStats stats() {
+        CatalogSnapshot snapshot = current.get();
+        return new CatalogStats(
+                snapshot != null ? snapshot.version() : versions.get(),
+                snapshot != null ? snapshot.size() : 0,
+                hits.sum(), misses.sum(), rebuilds.sum(), encodes.sum(), encodeNanos.sum());
+    }
+
+    private CatalogSnapshot rebuild() {
+        rebuilds.increment();
+        long version = versions.incrementAndGet();
+        NavigableMap<String, CatalogEntry> entries = new TreeMap<>();
+        for (Country country : countryRepository.findAll()) {
+            entries.put(country.getName(), toEntry(country, version));
+        }
+        return new CatalogSnapshot(version, entries);
+    }
+
+    /**
+     * ETag of one country: its row version, which is what {@code If-Match} is checked against.
+     * It is stored with the row, so unlike list ETags it stays valid across restarts.
+     */
+    public static String etag(Long rowVersion) {
+        return "\"" + (rowVersion != null ? rowVersion : 0) + "\"";
+    }
+
+    // Versions restart with the process, the epoch keeps ETags from one run from matching another.
+    // Each format is a different representation, so it needs a tag of its own
+    String listEtag(long version, ListFormat format) {
+        String suffix = format == ListFormat.JSON ? "" : "-" + format.name().toLowerCase(Locale.ROOT);
+        return "\"" + epoch + "-" + version + suffix + "\"";
+    }
+
+    // Also used by ColumnarReadModel, so its encodes show in the stats
+    byte[] encodeJson(Object value) {
+        return encode(json, value);
+    }
+
+    private byte[] encode(ObjectWriter writer, Object value) {
+        encodes.increment();
+        long start = System.nanoTime();
+        try {
+            return writer.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            encodeNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    // Content as well as version: rows written by other means, such as the loader or an import,
+    // can repeat a version with different values
+    private static boolean sameRow(CatalogEntry cached, Country country) {
+        CountryDetailDto detail = cached.detail();
+        return Objects.equals(detail.getVersion(), country.getVersion())
+                && Objects.equals(cached.flagOrigin(), country.getFlag())
+                && Objects.equals(detail.getPopulation(), country.getPopulation())
+                && Objects.equals(detail.getCapital(), country.getCapital());
+    }
+
+    private CatalogEntry toEntry(Country country, long version) {
+        return new CatalogEntry(countryMapper.toCountryDto(country), countryMapper.toCountryDetailDto(country),
+                country.getFlag(), version);
+    }
+}
@@ -0,0 +1,47 @@
+package com.flags.catalog;
+
+import com.flags.dto.CountryColumnsDto;
+import com.flags.dto.CountryDetailDto;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the {@link ListFormat#COLUMNS} layout of a list of countries.
+ */
+public final class CountryColumns {
+
+    private CountryColumns() {
+    }
+
+    public static CountryColumnsDto of(List<CountryDetailDto> countries) {
+        int size = countries.size();
+        // Names are unique, so they go in as they are; only the other columns can repeat a value
+        List<String> names = new ArrayList<>(size);
+        Map<String, Integer> indexes = HashMap.newHashMap(size * 2);
+        List<String> strings = new ArrayList<>();
+        int[] flags = new int[size];
+        int[] populations = new int[size];
+        int[] capitals = new int[size];
+        for (int row = 0; row < size; row++) {
+            CountryDetailDto country = countries.get(row);
+            names.add(country.getName());
+            flags[row] = intern(country.getFlag(), indexes, strings);
+            populations[row] = country.getPopulation() != null ? country.getPopulation() : -1;
+            capitals[row] = intern(country.getCapital(), indexes, strings);
+        }
+        return new CountryColumnsDto(names, strings, flags, populations, capitals);
+    }
+
+    private static int intern(String value, Map<String, Integer> indexes, List<String> strings) {
+        if (value == null) {
+            return -1;
+        }
+        return indexes.computeIfAbsent(value, added -> {
+            strings.add(added);
+            return strings.size() - 1;
+        });
+    }
+}
@@ -0,0 +1,296 @@
+package com.flags.catalog;
+
+import com.flags.models.Country;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Read-only, column-oriented copy of the country table, for data sets too large for one entity
+ * and two DTOs per row.
+ * <p>
+ * A row is an index into parallel arrays, in name order. Populations and row versions are
+ * primitive columns. Capitals and flag URL prefixes (everything up to the last {@code /}) are
+ * pooled, so a row holds an index into the pool; the rest of each flag URL sits in one byte
+ * array. Names are looked up through an open-addressing table of row numbers. Readers get
+ * {@link CountryView}s, which hold nothing but the row number.
+ * <p>
+ * {@link ColumnarReadModel} serves list and detail reads from it when
+ * {@code flags.catalog.read-model=columnar}.
+ */
+public final class CountryStore {
+
+    /**
+     * Population of a row that has none.
+     */
+    public static final int NO_POPULATION = -1;
+
+    private static final int NONE = -1;
+
+    private final String[] names;
+    private final int[] populations;
+    private final long[] versions;
+    private final String[] capitalPool;
+    private final int[] capitals;
+    private final String[] flagPrefixPool;
+    private final int[] flagPrefixes;
+    // Flag URL remainders, UTF-8; row i spans flagSuffixStarts[i] to flagSuffixStarts[i + 1]
+    private final byte[] flagSuffixes;
+    private final int[] flagSuffixStarts;
+    // Row + 1 per slot, 0 for an empty one; the length is a power of two
+    private final int[] slots;
+
+    private CountryStore(Builder builder) {
+        int size = builder.size;
+        int[] order = IntStream.range(0, size).boxed()
+                .sorted(Comparator.comparing(row -> builder.names[row]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        names = new String[size];
+        populations = new int[size];
+        versions = new long[size];
+        capitals = new int[size];
+        flagPrefixes = new int[size];
+        flagSuffixStarts = new int[size + 1];
+        byte[] suffixes = new byte[builder.suffixBytes];
+        int offset = 0;
+        for (int row = 0; row < size; row++) {
+            int added = order[row];
+            names[row] = builder.names[added];
+            populations[row] = builder.populations[added];
+            versions[row] = builder.versions[added];
+            capitals[row] = builder.capitals[added];
+            flagPrefixes[row] = builder.flagPrefixes[added];
+            byte[] suffix = builder.flagSuffixes[added];
+            flagSuffixStarts[row] = offset;
+            if (suffix != null) {
+                System.arraycopy(suffix, 0, suffixes, offset, suffix.length);
+                offset += suffix.length;
+            }
+        }
+        flagSuffixStarts[size] = offset;
+        flagSuffixes = suffixes;
+        capitalPool = builder.capitalPool.toArray(String[]::new);
+        flagPrefixPool = builder.flagPrefixPool.toArray(String[]::new);
+
+        slots = new int[Integer.highestOneBit(Math.max(size, 1) * 2 - 1) << 1];
+        for (int row = 0; row < size; row++) {
+            int slot = slot(names[row]);
+            while (slots[slot] != 0) {
+                if (names[slots[slot] - 1].equals(names[row])) {
+                    throw new IllegalArgumentException("Duplicate country name: " + names[row]);
+                }
+                slot = (slot + 1) & (slots.length - 1);
+            }
+            slots[slot] = row + 1;
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static CountryStore of(Iterable<Country> countries) {
+        Builder builder = builder();
+        for (Country country : countries) {
+            builder.add(country);
+        }
+        return builder.build();
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Row of {@code name}, or -1 if there is no such country.
+     */
+    public int indexOf(String name) {
+        int slot = slot(name);
+        int row;
+        while ((row = slots[slot]) != 0) {
+            if (names[row - 1].equals(name)) {
+                return row - 1;
+            }
+            slot = (slot + 1) & (slots.length - 1);
+        }
+        return NONE;
+    }
+
+    /**
+     * The country called {@code name}, or {@code null} if there is no such country.
+     */
+    public CountryView find(String name) {
+        int row = indexOf(name);
+        return row != NONE ? new CountryView(this, row) : null;
+    }
+
+    public CountryView get(int row) {
+        return new CountryView(this, row);
+    }
+
+    /**
+     * All countries in name order; views are created as the list is read.
+     */
+    public List<CountryView> views() {
+        return new Views(0, size());
+    }
+
+    /**
+     * Up to {@code limit} countries in name order, starting after {@code after} (or at the first
+     * country when {@code after} is null). {@code after} does not have to exist.
+     */
+    public List<CountryView> page(String after, int limit) {
+        int from = 0;
+        if (after != null) {
+            int found = Arrays.binarySearch(names, after);
+            from = found >= 0 ? found + 1 : -found - 1;
+        }
+        return new Views(from, Math.min(size(), from + limit));
+    }
+
+    /**
+     * Number of distinct capitals and flag URL prefixes, i.e. the pooled strings.
+     */
+    public int pooledStrings() {
+        return capitalPool.length + flagPrefixPool.length;
+    }
+
+    String name(int row) {
+        return names[row];
+    }
+
+    int population(int row) {
+        return populations[row];
+    }
+
+    long version(int row) {
+        return versions[row];
+    }
+
+    String capital(int row) {
+        int capital = capitals[row];
+        return capital != NONE ? capitalPool[capital] : null;
+    }
+
+    String flag(int row) {
+        int prefix = flagPrefixes[row];
+        if (prefix == NONE) {
+            return null;
+        }
+        int start = flagSuffixStarts[row];
+        return flagPrefixPool[prefix] + new String(flagSuffixes, start, flagSuffixStarts[row + 1] - start, StandardCharsets.UTF_8);
+    }
+
+    private int slot(String name) {
+        int hash = name.hashCode();
+        return (hash ^ (hash >>> 16)) & (slots.length - 1);
+    }
+
+    private final class Views extends AbstractList<CountryView> {
+
+        private final int from;
+        private final int to;
+
+        Views(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public CountryView get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return new CountryView(CountryStore.this, from + index);
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+
+    /**
+     * Collects rows in any order; {@link #build()} sorts them by name.
+     */
+    public static final class Builder {
+
+        private String[] names = new String[16];
+        private int[] populations = new int[16];
+        private long[] versions = new long[16];
+        private int[] capitals = new int[16];
+        private int[] flagPrefixes = new int[16];
+        private byte[][] flagSuffixes = new byte[16][];
+        private int size;
+        private int suffixBytes;
+
+        private final Map<String, Integer> capitalIndexes = new HashMap<>();
+        private final List<String> capitalPool = new ArrayList<>();
+        private final Map<String, Integer> flagPrefixIndexes = new HashMap<>();
+        private final List<String> flagPrefixPool = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        public Builder add(Country country) {
+            return add(country.getName(), country.getFlag(), country.getPopulation(), country.getCapital(),
+                    country.getVersion());
+        }
+
+        public Builder add(String name, String flag, Integer population, String capital, Long version) {
+            if (name == null) {
+                throw new IllegalArgumentException("Country name must be provided.");
+            }
+            if (size == names.length) {
+                grow();
+            }
+            names[size] = name;
+            populations[size] = population != null ? population : NO_POPULATION;
+            versions[size] = version != null ? version : 0;
+            capitals[size] = pool(capital, capitalIndexes, capitalPool);
+            if (flag != null) {
+                int split = flag.lastIndexOf('/') + 1;
+                flagPrefixes[size] = pool(flag.substring(0, split), flagPrefixIndexes, flagPrefixPool);
+                byte[] suffix = flag.substring(split).getBytes(StandardCharsets.UTF_8);
+                flagSuffixes[size] = suffix;
+                suffixBytes += suffix.length;
+            } else {
+                flagPrefixes[size] = NONE;
+            }
+            size++;
+            return this;
+        }
+
+        public CountryStore build() {
+            return new CountryStore(this);
+        }
+
+        private void grow() {
+            int capacity = names.length * 2;
+            names = Arrays.copyOf(names, capacity);
+            populations = Arrays.copyOf(populations, capacity);
+            versions = Arrays.copyOf(versions, capacity);
+            capitals = Arrays.copyOf(capitals, capacity);
+            flagPrefixes = Arrays.copyOf(flagPrefixes, capacity);
+            flagSuffixes = Arrays.copyOf(flagSuffixes, capacity);
+        }
+
+        private static int pool(String value, Map<String, Integer> indexes, List<String> pool) {
+            if (value == null) {
+                return NONE;
+            }
+            return indexes.computeIfAbsent(value, added -> {
+                pool.add(added);
+                return pool.size() - 1;
+            });
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.flags.catalog;
+
+import com.flags.dto.CountryDetailDto;
+import com.flags.flagstore.FlagUrls;
+
+/**
+ * One row of a {@link CountryStore}. Holds only the store and the row number; every accessor
+ * reads the columns, so a view costs nothing to hand out and nothing to drop.
+ */
+public final class CountryView {
+
+    private final CountryStore store;
+    private final int row;
+
+    CountryView(CountryStore store, int row) {
+        this.store = store;
+        this.row = row;
+    }
+
+    public int row() {
+        return row;
+    }
+
+    public String name() {
+        return store.name(row);
+    }
+
+    /**
+     * The flag's origin URL.
+     */
+    public String flag() {
+        return store.flag(row);
+    }
+
+    /**
+     * Population, or {@link CountryStore#NO_POPULATION} if it is not known.
+     */
+    public int population() {
+        return store.population(row);
+    }
+
+    public String capital() {
+        return store.capital(row);
+    }
+
+    public long version() {
+        return store.version(row);
+    }
+
+    /**
+     * The same country as {@link com.flags.mappers.CountryMapper} maps it, for callers that
+     * need the DTO.
+     */
+    public CountryDetailDto toDetailDto() {
+        CountryDetailDto dto = new CountryDetailDto();
+        String name = name();
+        dto.setName(name);
+        dto.setFlag(FlagUrls.local(name, flag()));
+        int population = population();
+        dto.setPopulation(population != CountryStore.NO_POPULATION ? population : null);
+        dto.setCapital(capital());
+        dto.setVersion(version());
+        return dto;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof CountryView view && view.store == store && view.row == row;
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(store) * 31 + row;
+    }
+
+    @Override
+    public String toString() {
+        return "CountryView[" + name() + "]";
+    }
+}
@@ -0,0 +1,113 @@
+package com.flags.catalog;
+
+import org.springframework.http.ETag;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A response body that is encoded at most once, and gzipped at most once. The ETag is known up
+ * front, so conditional requests can be answered without running the encoder at all. The gzipped
+ * copy is a different representation, so it has a tag of its own, {@link #gzipEtag()}.
+ */
+public final class EncodedBody {
+
+    private final String etag;
+    private final Supplier<byte[]> encoder;
+    // Not synchronized: a virtual thread waiting on a monitor would pin its carrier
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile byte[] bytes;
+    private volatile byte[] gzip;
+
+    EncodedBody(String etag, Supplier<byte[]> encoder) {
+        this.etag = etag;
+        this.encoder = encoder;
+    }
+
+    public String etag() {
+        return etag;
+    }
+
+    public String gzipEtag() {
+        return gzipEtag(etag);
+    }
+
+    /**
+     * Whichever of this body's two tags {@code ifNoneMatch} names, or {@code null} if neither.
+     * The comparison is weak, as for any {@code If-None-Match} (RFC 9110, 13.1.2); {@code *}
+     * names the tag of the copy that would be sent.
+     */
+    public String matchingEtag(List<String> ifNoneMatch, boolean gzipped) {
+        for (String header : ifNoneMatch) {
+            for (ETag tag : ETag.parse(header)) {
+                if (tag.isWildcard()) {
+                    return gzipped ? gzipEtag() : etag;
+                }
+                String strong = "\"" + tag.tag() + "\"";
+                if (strong.equals(etag) || strong.equals(gzipEtag())) {
+                    return strong;
+                }
+            }
+        }
+        return null;
+    }
+
+    public byte[] bytes() {
+        byte[] encoded = bytes;
+        if (encoded == null) {
+            lock.lock();
+            try {
+                encoded = bytes;
+                if (encoded == null) {
+                    encoded = encoder.get();
+                    bytes = encoded;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return encoded;
+    }
+
+    public byte[] gzip() {
+        byte[] compressed = gzip;
+        if (compressed == null) {
+            byte[] encoded = bytes();
+            lock.lock();
+            try {
+                compressed = gzip;
+                if (compressed == null) {
+                    compressed = gzip(encoded);
+                    gzip = compressed;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return compressed;
+    }
+
+    /**
+     * Tag of the gzipped copy of the body tagged {@code etag}: the same opaque tag with
+     * {@code -gz} appended.
+     */
+    public static String gzipEtag(String etag) {
+        return etag.substring(0, etag.length() - 1) + "-gz\"";
+    }
+
+    public static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,25 @@
+package com.flags.catalog;
+
+/**
+ * Encodings of the country list. Each snapshot encodes a format at most once, on first use.
+ */
+public enum ListFormat {
+    JSON("application/json"),
+    CBOR("application/cbor"),
+    SMILE("application/x-jackson-smile"),
+    /**
+     * Every column of the catalog as its own array, with strings replaced by indexes into one
+     * shared string table; see {@link com.flags.dto.CountryColumnsDto}.
+     */
+    COLUMNS("application/vnd.flags.columns+cbor");
+
+    private final String mediaType;
+
+    ListFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public String mediaType() {
+        return mediaType;
+    }
+}
@@ -0,0 +1,178 @@
+package com.flags.changes;
+
+import com.flags.catalog.CatalogEntry;
+import com.flags.catalog.CatalogListener;
+import com.flags.catalog.CatalogSnapshot;
+import com.flags.dto.CountryChangeDto;
+import com.flags.dto.CountryChangesDto;
+import com.flags.exceptions.ResyncRequiredException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sequence-numbered log of the catalog's writes, for clients that sync incrementally.
+ * <p>
+ * The log is compacted as it is written: it keeps only the latest change per country, so a
+ * client that is behind gets each changed country once, in its final state. Beyond
+ * {@code retention} changes or {@code maxAge}, the oldest are dropped and the floor moves up;
+ * a cursor below the floor, or one from another run, gets a {@link ResyncRequiredException}.
+ * A catalog rebuild also raises the floor, as the writes that led to it are unknown.
+ * <p>
+ * Sequence numbers start at the process start time in microseconds, so cursors from an earlier
+ * run are always below the floor of a new one.
+ */
+@Component
+public class ChangeLog implements CatalogListener {
+
+    private final ChangeProperties properties;
+    private final Clock clock;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    // Guarded by lock
+    private final NavigableMap<Long, Change> changes = new TreeMap<>();
+    private final Map<String, Long> latest = new HashMap<>();
+    private long head;
+    private long floor;
+
+    @Autowired
+    public ChangeLog(ChangeProperties properties) {
+        this(properties, Clock.systemUTC());
+    }
+
+    ChangeLog(ChangeProperties properties, Clock clock) {
+        this.properties = properties;
+        this.clock = clock;
+        this.head = TimeUnit.MILLISECONDS.toMicros(clock.millis());
+        this.floor = head;
+    }
+
+    /**
+     * Sequence number of the latest change; a client that has applied everything up to here
+     * continues from it.
+     */
+    public long head() {
+        lock.lock();
+        try {
+            return head;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Up to {@code limit} changes after {@code since}, oldest first. {@code next} is the cursor
+     * for the following call; {@code more} is set when changes were left out.
+     */
+    public CountryChangesDto since(long since, int limit) {
+        lock.lock();
+        try {
+            expire();
+            if (since < floor || since > head) {
+                throw new ResyncRequiredException(since, head);
+            }
+            List<CountryChangeDto> page = new ArrayList<>(Math.min(limit, changes.size()));
+            for (Change change : changes.tailMap(since, false).values()) {
+                if (page.size() == limit) {
+                    return new CountryChangesDto(page, page.getLast().getSeq(), true);
+                }
+                page.add(change.dto());
+            }
+            return new CountryChangesDto(page, head, false);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits up to {@code timeout} for a change after {@code seq}.
+     *
+     * @return whether there is one
+     */
+    public boolean awaitAfter(long seq, Duration timeout) throws InterruptedException {
+        long nanos = timeout.toNanos();
+        lock.lock();
+        try {
+            while (head <= seq) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = appended.awaitNanos(nanos);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void onRebuild(CatalogSnapshot snapshot) {
+        lock.lock();
+        try {
+            changes.clear();
+            latest.clear();
+            head++;
+            floor = head;
+            appended.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void onPut(CatalogEntry previous, CatalogEntry current) {
+        append(CountryChangeDto.PUT, current.name(), current);
+    }
+
+    @Override
+    public void onRemove(CatalogEntry removed) {
+        append(CountryChangeDto.DELETE, removed.name(), null);
+    }
+
+    private void append(String type, String name, CatalogEntry entry) {
+        lock.lock();
+        try {
+            long seq = ++head;
+            Long superseded = latest.put(name, seq);
+            if (superseded != null) {
+                changes.remove(superseded);
+            }
+            changes.put(seq, new Change(new CountryChangeDto(seq, type, name, entry != null ? entry.detail() : null), clock.millis()));
+            while (changes.size() > properties.retention()) {
+                drop(changes.firstEntry());
+            }
+            expire();
+            appended.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void expire() {
+        long cutoff = clock.millis() - properties.maxAge().toMillis();
+        while (!changes.isEmpty() && changes.firstEntry().getValue().at() < cutoff) {
+            drop(changes.firstEntry());
+        }
+    }
+
+    private void drop(Map.Entry<Long, Change> oldest) {
+        changes.remove(oldest.getKey());
+        latest.remove(oldest.getValue().dto().getName());
+        floor = oldest.getKey();
+    }
+
+    private record Change(CountryChangeDto dto, long at) {
+    }
+}
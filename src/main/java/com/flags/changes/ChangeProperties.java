@@ -0,0 +1,22 @@
+package com.flags.changes;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * How much of the change log is kept and how long push subscribers stay connected.
+ *
+ * @param retention     changes kept after compaction; older cursors must resync
+ * @param maxAge        age after which a change is dropped even within {@code retention}
+ * @param heartbeat     idle time after which a stream sends a keep-alive comment
+ * @param streamTimeout time after which a stream is closed and the client has to reconnect
+ */
+@ConfigurationProperties(prefix = "flags.changes")
+public record ChangeProperties(
+        @DefaultValue("10000") int retention,
+        @DefaultValue("24h") Duration maxAge,
+        @DefaultValue("30s") Duration heartbeat,
+        @DefaultValue("30m") Duration streamTimeout) {
+}
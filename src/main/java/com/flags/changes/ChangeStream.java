@@ -0,0 +1,99 @@
+package com.flags.changes;
+
+import com.flags.dto.CountryChangeDto;
+import com.flags.dto.CountryChangesDto;
+import com.flags.exceptions.ResyncRequiredException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes the {@link ChangeLog} to server-sent event subscribers. Every subscriber gets a virtual
+ * thread that sleeps on the log between changes, so idle connections hold no platform thread
+ * whichever request threading the server uses.
+ * <p>
+ * Events carry the change's sequence number as their id and its type as their name. A cursor
+ * that has fallen out of the log gets one {@code resync} event with the head to continue from
+ * after reloading, and the stream ends.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ChangeStream implements DisposableBean {
+
+    private static final int BATCH = 500;
+
+    private final ChangeLog changeLog;
+    private final ChangeProperties properties;
+    private final ExecutorService subscribers = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Opens a stream of the changes after {@code since}, or of new changes only when it is null.
+     */
+    public SseEmitter open(Long since) {
+        long cursor = since != null ? since : changeLog.head();
+        // Slightly longer than the stream itself, which completes on its own at streamTimeout
+        SseEmitter emitter = new SseEmitter(properties.streamTimeout().plusSeconds(10).toMillis());
+        AtomicBoolean open = new AtomicBoolean(true);
+        emitter.onCompletion(() -> open.set(false));
+        emitter.onTimeout(() -> open.set(false));
+        emitter.onError(e -> open.set(false));
+        subscribers.execute(() -> stream(emitter, cursor, open));
+        return emitter;
+    }
+
+    private void stream(SseEmitter emitter, long cursor, AtomicBoolean open) {
+        long deadline = System.nanoTime() + properties.streamTimeout().toNanos();
+        try {
+            while (open.get()) {
+                CountryChangesDto page = changeLog.since(cursor, BATCH);
+                for (CountryChangeDto change : page.getChanges()) {
+                    emitter.send(SseEmitter.event()
+                            .id(Long.toString(change.getSeq()))
+                            .name(change.getType())
+                            .data(change, MediaType.APPLICATION_JSON));
+                }
+                cursor = page.getNext();
+                if (page.isMore()) {
+                    continue;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                Duration wait = Duration.ofNanos(Math.min(remaining, properties.heartbeat().toNanos()));
+                if (!changeLog.awaitAfter(cursor, wait)) {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                }
+            }
+            emitter.complete();
+        } catch (ResyncRequiredException e) {
+            try {
+                emitter.send(SseEmitter.event().name("resync").data(e.getHead()));
+                emitter.complete();
+            } catch (IOException | IllegalStateException gone) {
+                log.debug("Change subscriber went away before resync: {}", gone.toString());
+            }
+        } catch (IOException | IllegalStateException e) {
+            // The client disconnected or the emitter timed out; either way there is nobody to tell
+            log.debug("Change subscriber went away: {}", e.toString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            emitter.complete();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        subscribers.shutdownNow();
+    }
+}
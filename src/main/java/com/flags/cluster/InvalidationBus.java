@@ -0,0 +1,16 @@
+package com.flags.cluster;
+
+/**
+ * Tells the other nodes on the same database which countries this node wrote, so they can
+ * refresh them in their catalogs. Receiving nodes re-read the row, so a message only has to
+ * arrive after the write is committed; duplicates and reordering are harmless.
+ */
+public interface InvalidationBus {
+
+    /**
+     * Announces a committed write to {@code name}, or to any number of countries when it is null.
+     */
+    void publish(String name);
+
+    InvalidationStats stats();
+}
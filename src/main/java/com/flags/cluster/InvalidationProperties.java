@@ -0,0 +1,23 @@
+package com.flags.cluster;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * How the nodes sharing a database tell each other about country writes.
+ *
+ * @param bus          {@code local} for application contexts in this JVM, {@code jdbc} for nodes
+ *                     that only share the database
+ * @param pollInterval how often the {@code jdbc} bus reads new changes; the lag before another
+ *                     node sees a write
+ * @param retention    how long the {@code jdbc} bus keeps changes; a node that cannot reach the
+ *                     database for longer reloads its whole catalog
+ */
+@ConfigurationProperties(prefix = "flags.invalidation")
+public record InvalidationProperties(
+        @DefaultValue("local") String bus,
+        @DefaultValue("500ms") Duration pollInterval,
+        @DefaultValue("1h") Duration retention) {
+}
@@ -0,0 +1,8 @@
+package com.flags.cluster;
+
+/**
+ * @param published invalidations this node sent
+ * @param received  invalidations from other nodes applied to this node's catalog
+ */
+public record InvalidationStats(long published, long received) {
+}
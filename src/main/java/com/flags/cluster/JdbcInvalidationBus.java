@@ -0,0 +1,179 @@
+package com.flags.cluster;
+
+import com.flags.catalog.CountryCatalog;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Invalidation through a {@code catalog_change} table in the shared database, so nodes need
+ * nothing but the database in common. Publishing inserts a row; every node polls for rows after
+ * the last one it has seen and refreshes the countries other nodes wrote.
+ * <p>
+ * Sequence numbers are handed out before commit, so a smaller one can become visible after a
+ * larger one. Numbers skipped over are polled again for a while before they are given up as
+ * rolled back. Rows older than {@code retention} are deleted by whichever node gets there first.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "flags.invalidation", name = "bus", havingValue = "jdbc")
+public class JdbcInvalidationBus implements InvalidationBus, SmartLifecycle {
+
+    private static final String CREATE = "create table if not exists catalog_change ("
+            + "seq bigint generated by default as identity primary key, name varchar(255), "
+            + "node varchar(36) not null, changed_at timestamp default current_timestamp not null)";
+    private static final String INSERT = "insert into catalog_change (name, node) values (?, ?)";
+    private static final String SINCE = "select seq, name, node from catalog_change where seq > ? order by seq";
+    private static final String HEAD = "select coalesce(max(seq), 0) from catalog_change";
+    private static final String PURGE = "delete from catalog_change where changed_at < ?";
+
+    private static final long GAP_TIMEOUT = TimeUnit.SECONDS.toNanos(30);
+    // A larger jump is an identity cache skip, not uncommitted rows
+    private static final int MAX_GAP = 1000;
+
+    private final InvalidationProperties properties;
+    private final JdbcTemplate jdbc;
+    private final CountryCatalog countryCatalog;
+    private final String node = UUID.randomUUID().toString();
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder received = new LongAdder();
+
+    // Only touched by the poller thread once started
+    private long last;
+    private final TreeMap<Long, Long> gaps = new TreeMap<>();
+    private long lastPoll;
+    private long lastPurge;
+
+    private volatile boolean running;
+    private Thread poller;
+
+    public JdbcInvalidationBus(InvalidationProperties properties, JdbcTemplate jdbc, CountryCatalog countryCatalog) {
+        this.properties = properties;
+        this.jdbc = jdbc;
+        this.countryCatalog = countryCatalog;
+    }
+
+    @Override
+    public void publish(String name) {
+        jdbc.update(INSERT, name, node);
+        published.increment();
+    }
+
+    @Override
+    public InvalidationStats stats() {
+        return new InvalidationStats(published.sum(), received.sum());
+    }
+
+    @Override
+    public void start() {
+        jdbc.execute(CREATE);
+        last = jdbc.queryForObject(HEAD, Long.class);
+        lastPoll = System.nanoTime();
+        lastPurge = lastPoll;
+        running = true;
+        poller = Thread.ofPlatform().name("invalidation-poller").daemon().start(this::run);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        poller.interrupt();
+        try {
+            poller.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Stops after the write queue, whose last flush still publishes
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 8192;
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                poll();
+            } catch (RuntimeException e) {
+                log.warn("Polling catalog changes failed, retrying: {}", e.toString());
+            }
+            try {
+                Thread.sleep(properties.pollInterval());
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void poll() {
+        long now = System.nanoTime();
+        if (now - lastPoll > properties.retention().toNanos()) {
+            // Changes may have been purged before this node saw them
+            last = jdbc.queryForObject(HEAD, Long.class);
+            gaps.clear();
+            lastPoll = now;
+            countryCatalog.invalidate();
+            return;
+        }
+        long from = gaps.isEmpty() ? last : Math.min(last, gaps.firstKey() - 1);
+        Set<String> names = new LinkedHashSet<>();
+        boolean[] everything = new boolean[1];
+        jdbc.query(SINCE, row -> {
+            long seq = row.getLong(1);
+            if (seq <= last) {
+                if (gaps.remove(seq) == null) {
+                    return;
+                }
+            } else {
+                if (seq - last <= MAX_GAP) {
+                    for (long missing = last + 1; missing < seq; missing++) {
+                        gaps.put(missing, now + GAP_TIMEOUT);
+                    }
+                }
+                last = seq;
+            }
+            if (!node.equals(row.getString(3))) {
+                String name = row.getString(2);
+                if (name == null) {
+                    everything[0] = true;
+                } else {
+                    names.add(name);
+                }
+            }
+        }, from);
+        lastPoll = now;
+        gaps.values().removeIf(deadline -> deadline - now < 0);
+
+        if (everything[0]) {
+            countryCatalog.invalidate();
+            received.increment();
+        } else {
+            for (String name : names) {
+                countryCatalog.refresh(name);
+                received.increment();
+            }
+        }
+        if (now - lastPurge > properties.retention().toNanos() / 10) {
+            jdbc.update(PURGE, Timestamp.from(Instant.now().minus(properties.retention())));
+            lastPurge = now;
+        }
+    }
+}
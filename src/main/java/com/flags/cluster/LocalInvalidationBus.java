@@ -0,0 +1,96 @@
+package com.flags.cluster;
+
+import com.flags.catalog.CountryCatalog;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Invalidation between the application contexts running in this JVM, such as several nodes
+ * embedded in one process or tests. With a single context it does nothing.
+ * <p>
+ * Each node applies invalidations on its own thread, in the order they were published, so a
+ * publisher never waits on another node's catalog lock.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "flags.invalidation", name = "bus", havingValue = "local", matchIfMissing = true)
+@RequiredArgsConstructor
+public class LocalInvalidationBus implements InvalidationBus, SmartLifecycle {
+
+    private static final Set<LocalInvalidationBus> NODES = ConcurrentHashMap.newKeySet();
+
+    private final CountryCatalog countryCatalog;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder received = new LongAdder();
+
+    private volatile ExecutorService inbox;
+
+    @Override
+    public void publish(String name) {
+        published.increment();
+        for (LocalInvalidationBus node : NODES) {
+            if (node != this) {
+                node.deliver(name);
+            }
+        }
+    }
+
+    @Override
+    public InvalidationStats stats() {
+        return new InvalidationStats(published.sum(), received.sum());
+    }
+
+    private void deliver(String name) {
+        ExecutorService target = inbox;
+        if (target == null) {
+            return;
+        }
+        try {
+            target.execute(() -> {
+                try {
+                    countryCatalog.refresh(name);
+                    received.increment();
+                } catch (RuntimeException e) {
+                    log.warn("Could not refresh {} after a write on another node: {}", name, e.toString());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // The node is stopping, and its catalog goes with it
+        }
+    }
+
+    @Override
+    public void start() {
+        inbox = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("invalidation-inbox").daemon().factory());
+        NODES.add(this);
+    }
+
+    @Override
+    public void stop() {
+        NODES.remove(this);
+        inbox.shutdown();
+        inbox = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return inbox != null;
+    }
+
+    // Stops after the write queue, whose last flush still publishes
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 8192;
+    }
+}
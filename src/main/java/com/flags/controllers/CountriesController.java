@@ -1,8 +1,23 @@
 package com.flags.controllers;
 
+import com.flags.catalog.CountryCatalog;
+import com.flags.catalog.EncodedBody;
+import com.flags.catalog.ListFormat;
+import com.flags.changes.ChangeStream;
+import com.flags.dto.BulkImportReportDto;
+import com.flags.dto.CountryChangesDto;
+import com.flags.dto.CountryColumnsDto;
 import com.flags.dto.CountryDetailDto;
 import com.flags.dto.CountryDto;
+import com.flags.dto.CountryMatchDto;
+import com.flags.dto.CountryPageDto;
+import com.flags.dto.CountrySuggestionDto;
+import com.flags.exceptions.GlobalExceptionHandler;
+import com.flags.flagstore.FlagAtlas;
+import com.flags.pages.PageCache;
+import com.flags.pages.PageKey;
 import com.flags.services.CountriesService;
+import com.flags.services.CountryBulkService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -10,37 +25,199 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 
 @Tag(name = "Countries", description = "Operations related to countries")
 @Controller
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/countries")
 @RequiredArgsConstructor
 public class CountriesController {
 
+    private static final int VIEW_PAGE_SIZE = 48;
+    private static final Map<ListFormat, MediaType> LIST_TYPES = listTypes();
+
     private final CountriesService service;
+    private final CountryBulkService bulkService;
+    private final ChangeStream changeStream;
+    private final FlagAtlas flagAtlas;
 
     @Operation(
             summary = "Get all countries",
-            description = "Returns a list of all countries with their basic information"
+            description = "Returns a list of all countries with their basic information. Service clients can ask for "
+                    + "the same list as CBOR or Smile, or for every field of every country as columns: one CBOR array "
+                    + "per field in name order, with string fields as indexes into a shared string table and -1 for a "
+                    + "missing value."
     )
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "List of countries retrieved successfully",
-                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = CountryDto.class)))
+                    content = {
+                            @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = CountryDto.class)),
+                            @Content(mediaType = "application/cbor", schema = @Schema(implementation = CountryDto.class)),
+                            @Content(mediaType = "application/x-jackson-smile", schema = @Schema(implementation = CountryDto.class)),
+                            @Content(mediaType = "application/vnd.flags.columns+cbor", schema = @Schema(implementation = CountryColumnsDto.class))
+                    }),
+            @ApiResponse(responseCode = "304", description = "List unchanged since the ETag given in If-None-Match")
+    })
+    @GetMapping(produces = {"application/json", "application/cbor", "application/x-jackson-smile", "application/vnd.flags.columns+cbor"})
+    @ResponseBody
+    public ResponseEntity<byte[]> getAllCountries(WebRequest request) {
+        ListFormat format = listFormat(request.getHeader(HttpHeaders.ACCEPT));
+        return encodedResponse(service.getAllCountriesBody(format), LIST_TYPES.get(format), request);
+    }
+
+    @Operation(
+            summary = "Get one page of countries",
+            description = "Returns up to `limit` countries in name order, after the cursor given in `after`. "
+                    + "`next` is the cursor for the following page, or null on the last page. "
+                    + "`fields` picks the returned fields (name, flag, population, capital); default name,flag."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Page retrieved successfully",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = CountryPageDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor, limit or field")
+    })
+    @GetMapping(produces = "application/json", params = "limit")
+    @ResponseBody
+    public CountryPageDto getCountriesPage(
+            @Parameter(description = "Cursor from the previous page's `next`") @RequestParam(required = false) String after,
+            @Parameter(description = "Page size, 1 to " + CountriesService.MAX_PAGE_SIZE, required = true) @RequestParam int limit,
+            @Parameter(description = "Comma-separated fields to return") @RequestParam(required = false) String fields) {
+        return service.getCountriesPage(after, limit, fields);
+    }
+
+    @Operation(
+            summary = "Find countries by approximate name",
+            description = "Returns the countries whose names are closest to the search term, nearest first, "
+                    + "with their edit distance. Tolerates a few typos."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Closest matches retrieved successfully",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = CountryMatchDto.class)))
+    })
+    @GetMapping(produces = "application/json", params = {"search", "fuzzy=true"})
+    @ResponseBody
+    public List<CountryMatchDto> fuzzySearchCountries(
+            @Parameter(description = "Possibly misspelled country name", required = true) @RequestParam String search) {
+        return service.fuzzySearchCountriesByName(search);
+    }
+
+    @Operation(
+            summary = "Suggest countries as the user types",
+            description = "Returns the most populous countries whose name or capital starts with `q`, ignoring case "
+                    + "and accents. A country is suggested once; `match` is the name or capital that matched."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Suggestions retrieved successfully",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = CountrySuggestionDto.class))),
+            @ApiResponse(responseCode = "400", description = "Limit out of range")
+    })
+    @GetMapping(value = "/suggest", produces = "application/json")
+    @ResponseBody
+    public List<CountrySuggestionDto> suggestCountries(
+            @Parameter(description = "Beginning of a country or capital name", required = true) @RequestParam String q,
+            @Parameter(description = "Maximum number of suggestions, 1 to flags.search.suggest.limit") @RequestParam(required = false) Integer limit) {
+        return service.suggestCountries(q, limit);
+    }
+
+    @Operation(
+            summary = "Get the most populous countries",
+            description = "Returns the `n` countries with the largest population, largest first"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Countries retrieved successfully",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = CountryDetailDto.class))),
+            @ApiResponse(responseCode = "400", description = "n out of range")
+    })
+    @GetMapping(value = "/by-population/top", produces = "application/json")
+    @ResponseBody
+    public List<CountryDetailDto> getMostPopulousCountries(
+            @Parameter(description = "Number of countries, 1 to " + CountriesService.MAX_PAGE_SIZE) @RequestParam(defaultValue = "10") int n) {
+        return service.getMostPopulousCountries(n);
+    }
+
+    @Operation(
+            summary = "Get countries in a population range",
+            description = "Returns countries with min <= population <= max, smallest first"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Countries retrieved successfully",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = CountryDetailDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid range or limit")
+    })
+    @GetMapping(value = "/by-population", produces = "application/json")
+    @ResponseBody
+    public List<CountryDetailDto> getCountriesByPopulation(
+            @Parameter(description = "Lowest population, inclusive") @RequestParam(defaultValue = "0") int min,
+            @Parameter(description = "Highest population, inclusive") @RequestParam(defaultValue = "" + Integer.MAX_VALUE) int max,
+            @Parameter(description = "Maximum number of countries, 1 to " + CountriesService.MAX_PAGE_SIZE) @RequestParam(defaultValue = "100") int limit) {
+        return service.getCountriesByPopulation(min, max, limit);
+    }
+
+    @Operation(
+            summary = "Find countries by capital",
+            description = "Returns the countries whose capital matches, ignoring case and accents"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Countries retrieved successfully",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = CountryDetailDto.class)))
+    })
+    @GetMapping(value = "/by-capital/{capital}", produces = "application/json")
+    @ResponseBody
+    public List<CountryDetailDto> getCountriesByCapital(
+            @Parameter(description = "Name of the capital", required = true) @PathVariable String capital) {
+        return service.getCountriesByCapital(capital);
+    }
+
+    @Operation(
+            summary = "Get changes since a sequence number",
+            description = "Returns the creates, updates and deletes after `since`, oldest first, with at most one "
+                    + "change per country in its latest state. Continue from `next`; `more` means the page was cut "
+                    + "at `limit`. 410 means the changes are no longer kept: reload GET /countries, then continue "
+                    + "from the sequence number in the " + GlobalExceptionHandler.CHANGE_HEAD + " header."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Changes retrieved successfully",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = CountryChangesDto.class))),
+            @ApiResponse(responseCode = "410", description = "Resync required")
     })
-    @GetMapping(produces = "application/json")
+    @GetMapping(value = "/changes", produces = "application/json")
     @ResponseBody
-    public List<CountryDto> getAllCountries() {
-        return service.getAllCountries();
+    public CountryChangesDto getChanges(
+            @Parameter(description = "Sequence number of the last change applied", required = true) @RequestParam long since,
+            @Parameter(description = "Maximum number of changes, 1 to " + CountriesService.MAX_PAGE_SIZE) @RequestParam(defaultValue = "" + CountriesService.MAX_PAGE_SIZE) int limit) {
+        return service.getChanges(since, limit);
+    }
+
+    @Operation(
+            summary = "Stream changes as server-sent events",
+            description = "Pushes each change as an event named after its type, with its sequence number as the "
+                    + "event id. Starts after `since`, or after `Last-Event-ID` on reconnect, or with new changes "
+                    + "only. A `resync` event carries the sequence number to continue from after reloading."
+    )
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(
+            @Parameter(description = "Sequence number of the last change applied") @RequestParam(required = false) Long since,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return changeStream.open(since != null ? since : lastEventId);
     }
 
     @Operation(
@@ -50,17 +227,15 @@ public class CountriesController {
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Country details retrieved successfully",
                     content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = CountryDetailDto.class))),
+            @ApiResponse(responseCode = "304", description = "Country unchanged since the ETag given in If-None-Match"),
             @ApiResponse(responseCode = "404", description = "Country not found")
     })
     @GetMapping(value = "/{name}", produces = "application/json")
     @ResponseBody
-    public ResponseEntity<CountryDetailDto> getCountryByName(
-            @Parameter(description = "Name of the country", required = true) @PathVariable String name) {
-        CountryDetailDto country = service.getCountryByName(name);
-        if (country == null) {
-            return ResponseEntity.notFound().build();
-        }
-        return ResponseEntity.ok(country);
+    public ResponseEntity<byte[]> getCountryByName(
+            @Parameter(description = "Name of the country", required = true) @PathVariable String name,
+            WebRequest request) {
+        return encodedResponse(service.getCountryBody(name), MediaType.APPLICATION_JSON, request);
     }
 
     @Operation(
@@ -80,17 +255,52 @@ public class CountriesController {
             )
             @RequestBody CountryDetailDto newCountry) {
         CountryDetailDto created = service.createCountry(newCountry);
-        return ResponseEntity.status(HttpStatus.CREATED).body(created);
+        return ResponseEntity.status(HttpStatus.CREATED).eTag(CountryCatalog.etag(created.getVersion())).body(created);
+    }
+
+    @Operation(
+            summary = "Create countries in bulk",
+            description = "Reads one country JSON object per line (NDJSON) and creates them in batches. "
+                    + "Invalid lines and existing names are reported with their line number and skipped; "
+                    + "the rest of the import continues."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Import finished, see the report for failed lines",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = BulkImportReportDto.class)))
+    })
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_PLAIN_VALUE}, produces = "application/json")
+    @ResponseBody
+    public BulkImportReportDto importCountries(HttpServletRequest request) throws IOException {
+        return bulkService.importCountries(request.getInputStream());
+    }
+
+    @Operation(
+            summary = "Export all countries",
+            description = "Streams every country as one JSON object per line (NDJSON), in name order, "
+                    + "with the flag's origin URL"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Export stream")
+    })
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @ResponseBody
+    public ResponseEntity<StreamingResponseBody> exportCountries() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"countries.ndjson\"")
+                .body(bulkService::exportCountries);
     }
 
     @Operation(
             summary = "Update a country's information by name",
-            description = "Updates an existing country with new values"
+            description = "Updates an existing country with new values. With If-Match, only if the country "
+                    + "still has that ETag; without it the update overwrites whatever is there."
     )
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Country updated successfully",
                     content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = CountryDetailDto.class))),
-            @ApiResponse(responseCode = "404", description = "Country not found")
+            @ApiResponse(responseCode = "404", description = "Country not found"),
+            @ApiResponse(responseCode = "412", description = "Country changed since the ETag given in If-Match")
     })
     @PutMapping(value = "/{name}", consumes = "application/json", produces = "application/json")
     @ResponseBody
@@ -100,27 +310,30 @@ public class CountriesController {
                     description = "Updated country details", required = true,
                     content = @Content(schema = @Schema(implementation = CountryDetailDto.class))
             )
-            @RequestBody CountryDetailDto updatedCountry) {
-        CountryDetailDto updated = service.updateCountry(name, updatedCountry);
+            @RequestBody CountryDetailDto updatedCountry,
+            @Parameter(description = "ETag the country must still have") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        CountryDetailDto updated = service.updateCountry(name, updatedCountry, ifMatch);
         if (updated == null) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(updated);
+        return ResponseEntity.ok().eTag(CountryCatalog.etag(updated.getVersion())).body(updated);
     }
 
     @Operation(
             summary = "Delete a country by name",
-            description = "Removes the specified country"
+            description = "Removes the specified country. With If-Match, only if the country still has that ETag."
     )
     @ApiResponses({
             @ApiResponse(responseCode = "204", description = "Country successfully deleted"),
-            @ApiResponse(responseCode = "404", description = "Country not found")
+            @ApiResponse(responseCode = "404", description = "Country not found"),
+            @ApiResponse(responseCode = "412", description = "Country changed since the ETag given in If-Match")
     })
     @DeleteMapping("/{name}")
     @ResponseBody
     public ResponseEntity<Void> deleteCountry(
-            @Parameter(description = "Name of the country", required = true) @PathVariable String name) {
-        boolean deleted = service.deleteCountry(name);
+            @Parameter(description = "Name of the country", required = true) @PathVariable String name,
+            @Parameter(description = "ETag the country must still have") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        boolean deleted = service.deleteCountry(name, ifMatch);
         if (!deleted) {
             return ResponseEntity.notFound().build();
         }
@@ -129,21 +342,86 @@ public class CountriesController {
 
     // No Swagger annotations for HTML view endpoints (for browsers only)
     @GetMapping(path = "", produces = "text/html")
-    public String listCountriesView(@RequestParam(name = "search", required = false) String search, Model model) {
-        List<CountryDto> countries;
-        if (search != null && !search.trim().isEmpty()) {
-            countries = service.searchCountriesByName(search);
+    public String listCountriesView(@RequestParam(name = "search", required = false) String search,
+                                    @RequestParam(name = "fuzzy", defaultValue = "false") boolean fuzzy,
+                                    Model model) {
+        // Read before the data, so a concurrent write can't leave a stale page under a newer key
+        long version = service.getCatalogVersion();
+        String term = search != null ? search.trim() : "";
+        List<?> countries;
+        String next = null;
+        boolean searching = !term.isEmpty();
+        if (searching && fuzzy) {
+            countries = service.fuzzySearchCountriesByName(term);
+        } else if (searching) {
+            countries = service.searchCountriesByName(term);
         } else {
-            countries = service.getAllCountries();
+            // The rest of the list is fetched page by page from the JSON API as the user scrolls
+            CountryPageDto page = service.getCountriesPage(null, VIEW_PAGE_SIZE, "name,flag");
+            countries = page.getItems();
+            next = page.getNext();
         }
         model.addAttribute("countries", countries);
-        model.addAttribute("param", Map.of("search", search != null ? search : ""));
-        return "countries";
+        model.addAttribute("next", next);
+        model.addAttribute("pageSize", VIEW_PAGE_SIZE);
+        model.addAttribute("fuzzy", searching && fuzzy);
+        model.addAttribute("param", Map.of("search", term));
+        // The atlas is rebuilt in the background, so the page is keyed by the one it links to as well
+        String atlas = flagAtlas.url();
+        model.addAttribute("atlas", atlas);
+        model.addAttribute(PageKey.ATTRIBUTE, new PageKey(PageCache.LIST_VIEW,
+                (searching && fuzzy ? "fuzzy:" : "search:") + term + " " + atlas, version));
+        return PageCache.LIST_VIEW;
     }
 
     @GetMapping(path = "/{name}", produces = "text/html")
     public String getCountryDetailView(@PathVariable String name, Model model) {
-        model.addAttribute("country", service.getCountryByName(name));
-        return "country-detail";
+        long version = service.getCountryVersion(name);
+        CountryDetailDto country = service.getCountryByName(name);
+        model.addAttribute("country", country);
+        model.addAttribute(PageKey.ATTRIBUTE, new PageKey(PageCache.DETAIL_VIEW, country.getName(), version));
+        return PageCache.DETAIL_VIEW;
+    }
+
+    // The most preferred format the client accepts; JSON for */* and when there is no Accept header
+    private static ListFormat listFormat(String accept) {
+        if (accept == null) {
+            return ListFormat.JSON;
+        }
+        List<MediaType> accepted = MediaType.parseMediaTypes(accept);
+        MimeTypeUtils.sortBySpecificity(accepted);
+        for (MediaType type : accepted) {
+            for (Map.Entry<ListFormat, MediaType> format : LIST_TYPES.entrySet()) {
+                if (type.includes(format.getValue())) {
+                    return format.getKey();
+                }
+            }
+        }
+        return ListFormat.JSON;
+    }
+
+    private static Map<ListFormat, MediaType> listTypes() {
+        Map<ListFormat, MediaType> types = new EnumMap<>(ListFormat.class);
+        for (ListFormat format : ListFormat.values()) {
+            types.put(format, MediaType.parseMediaType(format.mediaType()));
+        }
+        return types;
+    }
+
+    // The gzipped copy has a tag of its own; a client holding either copy can revalidate it
+    private ResponseEntity<byte[]> encodedResponse(EncodedBody body, MediaType contentType, WebRequest request) {
+        boolean gzip = ContentCoding.acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        String[] ifNoneMatch = request.getHeaderValues(HttpHeaders.IF_NONE_MATCH);
+        String matched = body.matchingEtag(ifNoneMatch != null ? List.of(ifNoneMatch) : List.of(), gzip);
+        if (matched != null) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(matched).varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING).build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)
+                .contentType(contentType);
+        if (gzip) {
+            return response.eTag(body.gzipEtag()).header(HttpHeaders.CONTENT_ENCODING, "gzip").body(body.gzip());
+        }
+        return response.eTag(body.etag()).body(body.bytes());
     }
-}
\ No newline at end of file
+}
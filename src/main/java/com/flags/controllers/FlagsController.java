@@ -0,0 +1,114 @@
+package com.flags.controllers;
+
+import com.flags.flagstore.FlagAtlas;
+import com.flags.flagstore.FlagImage;
+import com.flags.flagstore.FlagStore;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+
+@Tag(name = "Flags", description = "Locally cached flag images")
+@Controller
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/flags")
+@RequiredArgsConstructor
+public class FlagsController {
+
+    private static final MediaType SVG = MediaType.parseMediaType("image/svg+xml");
+    // Flags come from third-party origins; opened as documents, they may not run scripts or load anything
+    private static final String CONTENT_SECURITY_POLICY = "default-src 'none'; style-src 'unsafe-inline'";
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final FlagStore flagStore;
+    private final FlagAtlas flagAtlas;
+
+    @Operation(
+            summary = "Get all flags as one SVG sprite",
+            description = "Returns an SVG document with one <symbol> per country, with ids from FlagAtlas.symbolId. "
+                    + "Pages reference it through the versioned URL they are rendered with."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Flag atlas"),
+            @ApiResponse(responseCode = "304", description = "Atlas unchanged since the ETag given in If-None-Match")
+    })
+    @GetMapping("/atlas.svg")
+    public ResponseEntity<byte[]> getAtlas(WebRequest request) {
+        FlagAtlas.Document atlas = flagAtlas.document();
+        if (request.checkNotModified(atlas.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(atlas.etag()).build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(atlas.etag())
+                .header(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable")
+                .header("Content-Security-Policy", CONTENT_SECURITY_POLICY)
+                .header("X-Content-Type-Options", "nosniff")
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .contentType(SVG);
+        if (ContentCoding.acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(atlas.gzip());
+        }
+        return response.body(atlas.svg());
+    }
+
+    @Operation(
+            summary = "Get a country's flag",
+            description = "Returns the minified SVG flag from the local store. The URL carries a version parameter, "
+                    + "so responses are immutable."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Flag image"),
+            @ApiResponse(responseCode = "304", description = "Flag unchanged since the ETag given in If-None-Match"),
+            @ApiResponse(responseCode = "404", description = "Country not found"),
+            @ApiResponse(responseCode = "502", description = "Flag could not be fetched from its origin")
+    })
+    @GetMapping("/{name}.svg")
+    public void getFlag(@Parameter(description = "Name of the country", required = true) @PathVariable String name,
+                        HttpServletRequest request, HttpServletResponse response) throws IOException {
+        FlagImage flag = flagStore.get(name);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable");
+        response.setHeader("Content-Security-Policy", CONTENT_SECURITY_POLICY);
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        if (new ServletWebRequest(request, response).checkNotModified(flag.etag())) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+        response.setContentType(SVG.toString());
+        response.setContentLengthLong(flag.length());
+        if (flag.bytes() != null) {
+            response.getOutputStream().write(flag.bytes());
+        } else if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat writes the file straight from the page cache to the socket
+            request.setAttribute(SENDFILE_FILENAME, flag.file().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, flag.length());
+        } else {
+            try (OutputStream out = response.getOutputStream()) {
+                Files.copy(flag.file(), out);
+            }
+        }
+    }
+}
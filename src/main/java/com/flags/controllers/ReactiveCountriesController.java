@@ -0,0 +1,126 @@
+package com.flags.controllers;
+
+import com.flags.catalog.EncodedBody;
+import com.flags.dto.CountryChangesDto;
+import com.flags.dto.CountryDetailDto;
+import com.flags.dto.CountryDto;
+import com.flags.services.CountriesService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.function.Supplier;
+
+/**
+ * Read-only country API for the {@code reactive} profile. Serves the same catalog, ETags and
+ * error mapping as {@link CountriesController}, without tying a thread to each connection.
+ */
+@Tag(name = "Countries (reactive)", description = "Read-only country operations on the reactive stack")
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/countries")
+@RequiredArgsConstructor
+public class ReactiveCountriesController {
+
+    private final CountriesService service;
+
+    @Operation(
+            summary = "Get all countries",
+            description = "Returns a list of all countries with their basic information"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "List of countries retrieved successfully",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = CountryDto.class))),
+            @ApiResponse(responseCode = "304", description = "List unchanged since the ETag given in If-None-Match")
+    })
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<byte[]>> getAllCountries(ServerWebExchange exchange) {
+        return read(service::getAllCountriesBody).map(body -> encodedResponse(body, exchange));
+    }
+
+    @Operation(
+            summary = "Stream all countries",
+            description = "Streams the country list one element at a time, as newline-delimited JSON or server-sent events"
+    )
+    @GetMapping(produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<CountryDto> streamAllCountries() {
+        return read(service::getAllCountries).flatMapIterable(countries -> countries);
+    }
+
+    @Operation(
+            summary = "Get changes since a sequence number",
+            description = "Returns the creates, updates and deletes after `since`, oldest first, with at most one "
+                    + "change per country in its latest state. 410 means the changes are no longer kept."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Changes retrieved successfully",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = CountryChangesDto.class))),
+            @ApiResponse(responseCode = "410", description = "Resync required")
+    })
+    @GetMapping(value = "/changes", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<CountryChangesDto> getChanges(
+            @Parameter(description = "Sequence number of the last change applied", required = true) @RequestParam long since,
+            @Parameter(description = "Maximum number of changes, 1 to " + CountriesService.MAX_PAGE_SIZE) @RequestParam(defaultValue = "" + CountriesService.MAX_PAGE_SIZE) int limit) {
+        return read(() -> service.getChanges(since, limit));
+    }
+
+    @Operation(
+            summary = "Get details for a country by name",
+            description = "Returns detailed information about the specified country"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Country details retrieved successfully",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = CountryDetailDto.class))),
+            @ApiResponse(responseCode = "304", description = "Country unchanged since the ETag given in If-None-Match"),
+            @ApiResponse(responseCode = "404", description = "Country not found")
+    })
+    @GetMapping(value = "/{name}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<byte[]>> getCountryByName(
+            @Parameter(description = "Name of the country", required = true) @PathVariable String name,
+            ServerWebExchange exchange) {
+        return read(() -> service.getCountryBody(name)).map(body -> encodedResponse(body, exchange));
+    }
+
+    // Catalog reads are in memory once a snapshot is loaded; only the load itself goes to the
+    // database, and that must not run on an event loop thread
+    private <T> Mono<T> read(Supplier<T> read) {
+        Mono<T> result = Mono.fromSupplier(read);
+        return service.isCatalogLoaded() ? result : result.subscribeOn(Schedulers.boundedElastic());
+    }
+
+    // The gzipped copy has a tag of its own; a client holding either copy can revalidate it
+    private ResponseEntity<byte[]> encodedResponse(EncodedBody body, ServerWebExchange exchange) {
+        HttpHeaders headers = exchange.getRequest().getHeaders();
+        boolean gzip = ContentCoding.acceptsGzip(headers.getFirst(HttpHeaders.ACCEPT_ENCODING));
+        String matched = body.matchingEtag(headers.getOrEmpty(HttpHeaders.IF_NONE_MATCH), gzip);
+        if (matched != null) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(matched).varyBy(HttpHeaders.ACCEPT_ENCODING).build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            return response.eTag(body.gzipEtag()).header(HttpHeaders.CONTENT_ENCODING, "gzip").body(body.gzip());
+        }
+        return response.eTag(body.etag()).body(body.bytes());
+    }
+}
@@ -0,0 +1,19 @@
+package com.flags.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CountryChangeDto {
+    public static final String PUT = "put";
+    public static final String DELETE = "delete";
+
+    private long seq;
+    private String type;
+    private String name;
+    // The country as written; null for deletes
+    private CountryDetailDto country;
+}
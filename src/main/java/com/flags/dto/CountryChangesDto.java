@@ -0,0 +1,16 @@
+package com.flags.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CountryChangesDto {
+    private List<CountryChangeDto> changes;
+    private long next;
+    private boolean more;
+}
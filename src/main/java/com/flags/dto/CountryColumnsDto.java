@@ -0,0 +1,23 @@
+package com.flags.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * The whole catalog column by column, in name order: row {@code i} is {@code names[i]}. The
+ * flag and capital columns hold indexes into {@code strings}, where each distinct value appears
+ * once; {@code -1} stands for a missing capital or population.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CountryColumnsDto {
+    private List<String> names;
+    private List<String> strings;
+    private int[] flags;
+    private int[] populations;
+    private int[] capitals;
+}
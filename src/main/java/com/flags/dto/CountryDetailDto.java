@@ -1,5 +1,6 @@
 package com.flags.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 
 @Data
@@ -8,4 +9,7 @@ public class CountryDetailDto {
     private String flag;
     private Integer population;
     private String capital;
+    // Sent as the ETag header rather than in the body
+    @JsonIgnore
+    private Long version;
 }
\ No newline at end of file
@@ -0,0 +1,10 @@
+package com.flags.dto;
+
+import lombok.Data;
+
+@Data
+public class CountryMatchDto {
+    private String name;
+    private String flag;
+    private int distance;
+}
@@ -0,0 +1,16 @@
+package com.flags.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CountryPageDto {
+    private List<Map<String, Object>> items;
+    private String next;
+}
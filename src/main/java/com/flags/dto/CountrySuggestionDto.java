@@ -0,0 +1,15 @@
+package com.flags.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CountrySuggestionDto {
+    private String name;
+    private String flag;
+    // The text that starts with the query: the name itself or the capital
+    private String match;
+}
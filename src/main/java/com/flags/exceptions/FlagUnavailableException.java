@@ -0,0 +1,7 @@
+package com.flags.exceptions;
+
+public class FlagUnavailableException extends RuntimeException {
+    public FlagUnavailableException(String name, String reason) {
+        super("Flag unavailable for " + name + ": " + reason);
+    }
+}
@@ -1,5 +1,6 @@
 package com.flags.exceptions;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -7,6 +8,8 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
+    public static final String CHANGE_HEAD = "X-Change-Head";
+
     @ExceptionHandler(CountryNotFoundException.class)
     public ResponseEntity<String> handleCountryNotFound(CountryNotFoundException ex) {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
@@ -16,4 +19,28 @@ public class GlobalExceptionHandler {
     public ResponseEntity<String> handleInvalidCountryData(InvalidCountryDataException ex) {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
     }
+
+    @ExceptionHandler(ResyncRequiredException.class)
+    public ResponseEntity<String> handleResyncRequired(ResyncRequiredException ex) {
+        return ResponseEntity.status(HttpStatus.GONE)
+                .header(CHANGE_HEAD, Long.toString(ex.getHead()))
+                .body(ex.getMessage());
+    }
+
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<String> handlePreconditionFailed(PreconditionFailedException ex) {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(ex.getMessage());
+    }
+
+    @ExceptionHandler(WriteQueueFullException.class)
+    public ResponseEntity<String> handleWriteQueueFull(WriteQueueFullException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(ex.getMessage());
+    }
+
+    @ExceptionHandler(FlagUnavailableException.class)
+    public ResponseEntity<String> handleFlagUnavailable(FlagUnavailableException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body(ex.getMessage());
+    }
 }
\ No newline at end of file
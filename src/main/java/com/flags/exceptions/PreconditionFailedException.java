@@ -0,0 +1,7 @@
+package com.flags.exceptions;
+
+public class PreconditionFailedException extends RuntimeException {
+    public PreconditionFailedException(String name) {
+        super("Country " + name + " has changed since the ETag given in If-Match. Fetch it again and retry.");
+    }
+}
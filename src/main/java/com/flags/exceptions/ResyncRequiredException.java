@@ -0,0 +1,13 @@
+package com.flags.exceptions;
+
+import lombok.Getter;
+
+@Getter
+public class ResyncRequiredException extends RuntimeException {
+    private final long head;
+
+    public ResyncRequiredException(long since, long head) {
+        super("Changes after " + since + " are no longer available. Reload GET /countries and continue from " + head);
+        this.head = head;
+    }
+}
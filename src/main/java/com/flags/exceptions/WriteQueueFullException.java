@@ -0,0 +1,7 @@
+package com.flags.exceptions;
+
+public class WriteQueueFullException extends RuntimeException {
+    public WriteQueueFullException(int capacity) {
+        super("Too many pending writes (" + capacity + "). Retry shortly.");
+    }
+}
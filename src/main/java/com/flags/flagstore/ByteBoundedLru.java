@@ -0,0 +1,37 @@
+package com.flags.flagstore;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least-recently-used byte arrays, evicted once their total length passes {@code capacity}.
+ */
+final class ByteBoundedLru {
+
+    private final long capacity;
+    private final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long size;
+
+    ByteBoundedLru(long capacity) {
+        this.capacity = capacity;
+    }
+
+    synchronized byte[] get(String key) {
+        return entries.get(key);
+    }
+
+    synchronized void put(String key, byte[] value) {
+        byte[] previous = entries.put(key, value);
+        size += value.length - (previous != null ? previous.length : 0);
+        Iterator<Map.Entry<String, byte[]>> eldest = entries.entrySet().iterator();
+        while (size > capacity && eldest.hasNext()) {
+            size -= eldest.next().getValue().length;
+            eldest.remove();
+        }
+    }
+
+    synchronized long size() {
+        return size;
+    }
+}
@@ -0,0 +1,332 @@
+package com.flags.flagstore;
+
+import com.flags.catalog.CatalogEntry;
+import com.flags.catalog.CatalogSnapshot;
+import com.flags.catalog.CountryCatalog;
+import com.flags.catalog.EncodedBody;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * One SVG sprite holding every flag as a {@code <symbol>}, so the country grid needs a single
+ * image request.
+ * <p>
+ * Each symbol is converted once and kept as a byte segment together with the origin URL it was
+ * made from. When the catalog version moves on, only countries that were added or whose flag
+ * origin changed are converted again; the document is then spliced together from the segments.
+ * Rebuilds run in the background, fetching flags in parallel, and readers keep getting the
+ * previous document until the new one is published; only the very first build is waited for.
+ * A flag that could not be converted is left out and tried again after {@link #RETRY_FAILED_AFTER},
+ * or sooner if its origin changes.
+ */
+@Slf4j
+@Component
+public class FlagAtlas implements DisposableBean {
+
+    public static final String PATH = FlagUrls.PREFIX + "atlas.svg";
+
+    static final Duration RETRY_FAILED_AFTER = Duration.ofMinutes(5);
+    private static final int PARALLEL_FETCHES = 16;
+
+    private static final byte[] HEADER = ("<svg xmlns=\"http://www.w3.org/2000/svg\" "
+            + "xmlns:xlink=\"http://www.w3.org/1999/xlink\">").getBytes(StandardCharsets.UTF_8);
+    private static final byte[] FOOTER = "</svg>".getBytes(StandardCharsets.UTF_8);
+
+    private static final Pattern ROOT = Pattern.compile("<svg\\b([^>]*)>");
+    private static final Pattern ATTRIBUTE = Pattern.compile("([\\w:.-]+)\\s*=\\s*([\"'])(.*?)\\2", Pattern.DOTALL);
+    private static final Set<String> ROOT_ONLY = Set.of("xmlns", "version", "baseProfile", "width", "height", "x", "y",
+            "viewBox", "preserveAspectRatio", "id");
+    private static final Pattern ID = Pattern.compile("\\bid=([\"'])(.*?)\\1");
+    private static final Pattern URL_REFERENCE = Pattern.compile("url\\(\\s*#([^)\\s]+)\\s*\\)");
+    private static final Pattern HREF_REFERENCE = Pattern.compile("\\b((?:xlink:)?href)=([\"'])#(.*?)\\2");
+
+    public record Document(long catalogVersion, String etag, byte[] svg, byte[] gzip) {
+    }
+
+    private record Symbol(String origin, byte[] bytes) {
+    }
+
+    private record Failure(String origin, long retryAt) {
+    }
+
+    private final CountryCatalog countryCatalog;
+    private final FlagStore flagStore;
+    private final long retryFailedAfter;
+
+    // Flag fetches block on the network, so each gets a virtual thread; the semaphore bounds how
+    // many hit the origins at once
+    private final ExecutorService rebuilds = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore fetches = new Semaphore(PARALLEL_FETCHES);
+    private final AtomicReference<CompletableFuture<Document>> rebuilding = new AtomicReference<>();
+    // Only touched by the rebuild in progress, of which there is at most one
+    private final NavigableMap<String, Symbol> symbols = new TreeMap<>();
+    private final Map<String, Failure> failures = new HashMap<>();
+    private volatile Document current;
+    // Earliest time a failed flag is due to be fetched again
+    private volatile long nextRetryAt = Long.MAX_VALUE;
+
+    @Autowired
+    public FlagAtlas(CountryCatalog countryCatalog, FlagStore flagStore) {
+        this(countryCatalog, flagStore, RETRY_FAILED_AFTER);
+    }
+
+    FlagAtlas(CountryCatalog countryCatalog, FlagStore flagStore, Duration retryFailedAfter) {
+        this.countryCatalog = countryCatalog;
+        this.flagStore = flagStore;
+        this.retryFailedAfter = retryFailedAfter.toMillis();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild().whenComplete((document, e) -> {
+            if (e != null) {
+                log.warn("Could not build the flag atlas: {}", e.toString());
+            }
+        });
+    }
+
+    /**
+     * The latest atlas. When the catalog has moved on, or a failed flag is due again, a rebuild
+     * starts in the background and the previous document is returned meanwhile; only the first
+     * call waits for a build.
+     */
+    public Document document() {
+        Document document = current;
+        if (document != null && !stale(document)) {
+            return document;
+        }
+        CompletableFuture<Document> rebuild = rebuild();
+        return document != null ? document : rebuild.join();
+    }
+
+    /**
+     * The atlas for the catalog version at the time of the call, waiting for a rebuild if needed.
+     */
+    public Document awaitLatest() {
+        Document document = current;
+        while (document == null || stale(document)) {
+            document = rebuild().join();
+        }
+        return document;
+    }
+
+    @Override
+    public void destroy() {
+        rebuilds.shutdownNow();
+    }
+
+    private boolean stale(Document document) {
+        return document.catalogVersion() != countryCatalog.snapshot().version()
+                || System.currentTimeMillis() >= nextRetryAt;
+    }
+
+    // Starts a rebuild unless one is running, and returns the one that will publish next
+    private CompletableFuture<Document> rebuild() {
+        while (true) {
+            CompletableFuture<Document> running = rebuilding.get();
+            if (running != null) {
+                return running;
+            }
+            CompletableFuture<Document> started = new CompletableFuture<>();
+            if (rebuilding.compareAndSet(null, started)) {
+                rebuilds.execute(() -> {
+                    try {
+                        Document document = rebuild(countryCatalog.snapshot());
+                        current = document;
+                        // Cleared first, so that callers woken by the result start afresh
+                        rebuilding.set(null);
+                        started.complete(document);
+                    } catch (Throwable e) {
+                        rebuilding.set(null);
+                        started.completeExceptionally(e);
+                    }
+                });
+                return started;
+            }
+        }
+    }
+
+    /**
+     * Versioned URL of the atlas, safe to cache as immutable.
+     */
+    public String url() {
+        String etag = document().etag();
+        return PATH + "?v=" + etag.substring(1, 17);
+    }
+
+    /**
+     * {@code f-} followed by the name, with anything but ASCII letters and digits written as
+     * {@code _} and four or more hex digits.
+     */
+    public static String symbolId(String name) {
+        StringBuilder id = new StringBuilder(name.length() + 8).append("f-");
+        name.codePoints().forEach(c -> {
+            if (c < 128 && Character.isLetterOrDigit(c)) {
+                id.append((char) c);
+            } else {
+                id.append('_').append(String.format("%04x", c));
+            }
+        });
+        return id.toString();
+    }
+
+    private Document rebuild(CatalogSnapshot snapshot) {
+        Set<String> names = new HashSet<>();
+        Map<CatalogEntry, Future<byte[]>> converting = new LinkedHashMap<>();
+        long now = System.currentTimeMillis();
+        for (CatalogEntry entry : snapshot.entries()) {
+            names.add(entry.name());
+            Symbol symbol = symbols.get(entry.name());
+            if (symbol != null && Objects.equals(symbol.origin(), entry.flagOrigin())) {
+                continue;
+            }
+            Failure failure = failures.get(entry.name());
+            if (failure != null && Objects.equals(failure.origin(), entry.flagOrigin()) && now < failure.retryAt()) {
+                symbols.remove(entry.name());
+                continue;
+            }
+            converting.put(entry, rebuilds.submit(() -> convert(entry.name())));
+        }
+        long failedAt = System.currentTimeMillis();
+        for (Map.Entry<CatalogEntry, Future<byte[]>> conversion : converting.entrySet()) {
+            CatalogEntry entry = conversion.getKey();
+            byte[] bytes = result(conversion.getValue());
+            if (bytes != null) {
+                symbols.put(entry.name(), new Symbol(entry.flagOrigin(), bytes));
+                failures.remove(entry.name());
+            } else {
+                symbols.remove(entry.name());
+                failures.put(entry.name(), new Failure(entry.flagOrigin(), failedAt + retryFailedAfter));
+            }
+        }
+        symbols.keySet().retainAll(names);
+        failures.keySet().retainAll(names);
+        nextRetryAt = failures.values().stream().mapToLong(Failure::retryAt).min().orElse(Long.MAX_VALUE);
+        int converted = converting.size();
+
+        int length = HEADER.length + FOOTER.length;
+        for (Symbol symbol : symbols.values()) {
+            length += symbol.bytes().length;
+        }
+        byte[] svg = new byte[length];
+        int offset = append(svg, 0, HEADER);
+        for (Map.Entry<String, Symbol> symbol : symbols.entrySet()) {
+            offset = append(svg, offset, symbol.getValue().bytes());
+        }
+        append(svg, offset, FOOTER);
+        log.debug("Flag atlas at catalog version {}: {} symbols, {} converted, {} bytes",
+                snapshot.version(), symbols.size(), converted, svg.length);
+        return new Document(snapshot.version(), "\"" + FlagUrls.sha256(svg).substring(0, 32) + "\"", svg, EncodedBody.gzip(svg));
+    }
+
+    private static byte[] result(Future<byte[]> conversion) {
+        try {
+            return conversion.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while building the flag atlas", e);
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    private byte[] convert(String name) throws InterruptedException {
+        fetches.acquire();
+        try {
+            FlagImage flag = flagStore.get(name);
+            byte[] bytes = flag.bytes() != null ? flag.bytes() : Files.readAllBytes(flag.file());
+            return toSymbol(symbolId(name), new String(bytes, StandardCharsets.UTF_8));
+        } catch (IOException | RuntimeException e) {
+            log.debug("Leaving {} out of the flag atlas: {}", name, e.getMessage());
+            return null;
+        } finally {
+            fetches.release();
+        }
+    }
+
+    /**
+     * Turns a standalone SVG into a symbol. The viewBox is kept (or derived from width and height),
+     * other root attributes move to a wrapping group, and ids inside the flag get the symbol id as
+     * prefix so that gradients and clip paths of different flags cannot clash.
+     */
+    static byte[] toSymbol(String id, String svg) {
+        Matcher root = ROOT.matcher(svg);
+        int end = svg.lastIndexOf("</svg>");
+        if (!root.find() || end < root.end()) {
+            return null;
+        }
+        Map<String, String> attributes = new TreeMap<>();
+        Matcher attribute = ATTRIBUTE.matcher(root.group(1));
+        while (attribute.find()) {
+            attributes.put(attribute.group(1), attribute.group(3));
+        }
+        String viewBox = attributes.get("viewBox");
+        if (viewBox == null && attributes.containsKey("width") && attributes.containsKey("height")) {
+            viewBox = "0 0 " + number(attributes.get("width")) + " " + number(attributes.get("height"));
+        }
+
+        StringBuilder symbol = new StringBuilder(svg.length() + 64).append("<symbol id=\"").append(id).append('"');
+        if (viewBox != null) {
+            symbol.append(" viewBox=\"").append(viewBox).append('"');
+        }
+        if (attributes.containsKey("preserveAspectRatio")) {
+            symbol.append(" preserveAspectRatio=\"").append(attributes.get("preserveAspectRatio")).append('"');
+        }
+        symbol.append('>');
+        StringBuilder group = new StringBuilder();
+        attributes.forEach((key, value) -> {
+            if (!ROOT_ONLY.contains(key) && !key.startsWith("xmlns")) {
+                group.append(' ').append(key).append("=\"").append(value).append('"');
+            }
+        });
+        String body = prefixIds(svg.substring(root.end(), end), id + "-");
+        if (group.isEmpty()) {
+            symbol.append(body);
+        } else {
+            symbol.append("<g").append(group).append('>').append(body).append("</g>");
+        }
+        return symbol.append("</symbol>").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String prefixIds(String body, String prefix) {
+        String quoted = Matcher.quoteReplacement(prefix);
+        body = ID.matcher(body).replaceAll("id=$1" + quoted + "$2$1");
+        body = URL_REFERENCE.matcher(body).replaceAll("url(#" + quoted + "$1)");
+        return HREF_REFERENCE.matcher(body).replaceAll("$1=$2#" + quoted + "$3$2");
+    }
+
+    private static String number(String length) {
+        return length.replaceAll("[^0-9.]", "");
+    }
+
+    private static int append(byte[] target, int offset, byte[] segment) {
+        System.arraycopy(segment, 0, target, offset, segment.length);
+        return offset + segment.length;
+    }
+}
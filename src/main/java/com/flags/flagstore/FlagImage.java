@@ -0,0 +1,9 @@
+package com.flags.flagstore;
+
+import java.nio.file.Path;
+
+/**
+ * A stored flag. {@code bytes} is null when the flag is only held on disk.
+ */
+public record FlagImage(String etag, long length, byte[] bytes, Path file) {
+}
@@ -0,0 +1,11 @@
+package com.flags.flagstore;
+
+import java.io.IOException;
+
+/**
+ * Where {@link FlagStore} gets a flag it has not stored yet. Only called once per origin URL.
+ */
+public interface FlagOrigin {
+
+    byte[] fetch(String originUrl) throws IOException;
+}
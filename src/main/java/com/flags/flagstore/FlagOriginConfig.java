@@ -0,0 +1,17 @@
+package com.flags.flagstore;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ResourceLoader;
+
+@Configuration
+class FlagOriginConfig {
+
+    @Bean
+    FlagOrigin flagOrigin(FlagStoreProperties properties, ResourceLoader resourceLoader) {
+        if (properties.originBase().isBlank()) {
+            return new HttpFlagOrigin(properties.allowedHosts(), properties.maxBytes().toBytes());
+        }
+        return new ResourceFlagOrigin(resourceLoader, properties.originBase());
+    }
+}
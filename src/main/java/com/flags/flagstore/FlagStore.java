@@ -0,0 +1,134 @@
+package com.flags.flagstore;
+
+import com.flags.catalog.CatalogEntry;
+import com.flags.catalog.CountryCatalog;
+import com.flags.exceptions.CountryNotFoundException;
+import com.flags.exceptions.FlagUnavailableException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local copies of the country flags, keyed by origin URL.
+ * <p>
+ * A flag is fetched from its {@link FlagOrigin} once, minified and written to the disk tier, which
+ * survives restarts. Flags up to {@code maxMemoryEntry} are also kept in a byte-bounded LRU
+ * memory tier. Concurrent requests for a flag that is not stored yet wait for a single fetch.
+ */
+@Slf4j
+@Component
+public class FlagStore {
+
+    private record StoredFlag(Path file, String etag, long length) {
+    }
+
+    private final CountryCatalog countryCatalog;
+    private final FlagOrigin origin;
+    private final Path dir;
+    private final long maxMemoryEntry;
+    private final ByteBoundedLru memory;
+    private final ConcurrentHashMap<String, CompletableFuture<StoredFlag>> stored = new ConcurrentHashMap<>();
+
+    private final LongAdder memoryHits = new LongAdder();
+    private final LongAdder diskReads = new LongAdder();
+    private final LongAdder originFetches = new LongAdder();
+
+    public FlagStore(CountryCatalog countryCatalog, FlagOrigin origin, FlagStoreProperties properties) {
+        this.countryCatalog = countryCatalog;
+        this.origin = origin;
+        this.dir = Path.of(properties.dir()).toAbsolutePath();
+        this.maxMemoryEntry = properties.maxMemoryEntry().toBytes();
+        this.memory = new ByteBoundedLru(properties.memorySize().toBytes());
+    }
+
+    /**
+     * The flag of country {@code name}, fetching it first if this is the first request for it.
+     */
+    public FlagImage get(String name) {
+        CatalogEntry entry = countryCatalog.snapshot().find(name);
+        if (entry == null) {
+            throw new CountryNotFoundException(name);
+        }
+        String originUrl = entry.flagOrigin();
+        if (originUrl == null || originUrl.isBlank()) {
+            throw new FlagUnavailableException(name, "no flag URL");
+        }
+        StoredFlag flag = store(originUrl, name);
+        byte[] bytes = flag.length() <= maxMemoryEntry ? memory.get(originUrl) : null;
+        if (bytes != null) {
+            memoryHits.increment();
+            return new FlagImage(flag.etag(), flag.length(), bytes, flag.file());
+        }
+        // Read here, or sent from the file by the caller; either way this request is served from disk
+        diskReads.increment();
+        if (flag.length() <= maxMemoryEntry) {
+            try {
+                bytes = Files.readAllBytes(flag.file());
+                memory.put(originUrl, bytes);
+            } catch (IOException e) {
+                stored.remove(originUrl);
+                throw new FlagUnavailableException(name, e.getMessage());
+            }
+        }
+        return new FlagImage(flag.etag(), flag.length(), bytes, flag.file());
+    }
+
+    public FlagStoreStats stats() {
+        return new FlagStoreStats(memoryHits.sum(), diskReads.sum(), originFetches.sum(), memory.size());
+    }
+
+    long memorySize() {
+        return memory.size();
+    }
+
+    private StoredFlag store(String originUrl, String name) {
+        CompletableFuture<StoredFlag> created = new CompletableFuture<>();
+        CompletableFuture<StoredFlag> existing = stored.putIfAbsent(originUrl, created);
+        if (existing == null) {
+            try {
+                created.complete(materialize(originUrl));
+            } catch (IOException | RuntimeException e) {
+                stored.remove(originUrl, created);
+                created.completeExceptionally(e);
+            }
+            existing = created;
+        }
+        try {
+            return existing.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FlagUnavailableException(name, "interrupted");
+        } catch (ExecutionException e) {
+            log.warn("Could not store flag {}: {}", originUrl, e.getCause().toString());
+            throw new FlagUnavailableException(name, e.getCause().getMessage());
+        }
+    }
+
+    private StoredFlag materialize(String originUrl) throws IOException {
+        Path file = dir.resolve(FlagUrls.sha256(originUrl) + ".svg");
+        byte[] bytes;
+        if (Files.isRegularFile(file)) {
+            // Counted by get(), which serves the request
+            bytes = Files.readAllBytes(file);
+        } else {
+            originFetches.increment();
+            bytes = SvgMinifier.minify(origin.fetch(originUrl));
+            Files.createDirectories(dir);
+            Path temp = Files.createTempFile(dir, "flag", ".tmp");
+            Files.write(temp, bytes);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        if (bytes.length <= maxMemoryEntry) {
+            memory.put(originUrl, bytes);
+        }
+        return new StoredFlag(file, "\"" + FlagUrls.sha256(bytes).substring(0, 32) + "\"", bytes.length);
+    }
+}
@@ -0,0 +1,28 @@
+package com.flags.flagstore;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.util.List;
+
+/**
+ * Local copies of the flag images served under {@code /flags}.
+ *
+ * @param dir            disk tier, one minified SVG per origin URL
+ * @param memorySize     total size of the in-memory tier
+ * @param maxMemoryEntry larger flags are only kept on disk and sent from there
+ * @param originBase     read flags from this location instead of their origin URLs, e.g.
+ *                       {@code classpath:flags/}; blank fetches them over HTTP
+ * @param allowedHosts   hosts flags are fetched from over HTTP; any other origin URL is refused
+ * @param maxBytes       largest flag accepted from an origin
+ */
+@ConfigurationProperties(prefix = "flags.store")
+public record FlagStoreProperties(
+        @DefaultValue("data/flags") String dir,
+        @DefaultValue("8MB") DataSize memorySize,
+        @DefaultValue("256KB") DataSize maxMemoryEntry,
+        @DefaultValue("") String originBase,
+        @DefaultValue({"flagcdn.com", "upload.wikimedia.org"}) List<String> allowedHosts,
+        @DefaultValue("1MB") DataSize maxBytes) {
+}
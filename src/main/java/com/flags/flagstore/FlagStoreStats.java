@@ -0,0 +1,8 @@
+package com.flags.flagstore;
+
+/**
+ * Where flags have been served from since startup: the memory tier, the disk tier, or a fetch
+ * from their origin.
+ */
+public record FlagStoreStats(long memoryHits, long diskReads, long originFetches, long memoryBytes) {
+}
@@ -0,0 +1,44 @@
+package com.flags.flagstore;
+
+import org.springframework.web.util.UriUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * URLs under which {@link FlagStore} serves flags. The {@code v} parameter changes with the origin
+ * URL, so a changed flag gets a new URL and responses can be cached as immutable.
+ */
+public final class FlagUrls {
+
+    public static final String PREFIX = "/flags/";
+
+    private FlagUrls() {
+    }
+
+    public static String local(String name, String originUrl) {
+        if (name == null || originUrl == null || originUrl.isBlank()) {
+            return originUrl;
+        }
+        return PREFIX + UriUtils.encodePathSegment(name, StandardCharsets.UTF_8) + ".svg?v="
+                + sha256(originUrl).substring(0, 10);
+    }
+
+    public static boolean isLocal(String url) {
+        return url != null && url.startsWith(PREFIX);
+    }
+
+    static String sha256(String value) {
+        return sha256(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
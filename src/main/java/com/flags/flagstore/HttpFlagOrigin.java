@@ -0,0 +1,129 @@
+package com.flags.flagstore;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Inet4Address;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Downloads flags from the URL stored on the country.
+ * <p>
+ * Clients set that URL, so it is only fetched over https from one of {@code allowedHosts}, and
+ * not at all when the host resolves to a loopback, private or link-local address. Redirects are
+ * followed within the same host only. The response must be {@code image/svg+xml} and at most
+ * {@code maxBytes} long.
+ */
+public class HttpFlagOrigin implements FlagOrigin {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+    private static final int MAX_REDIRECTS = 3;
+    private static final String SVG = "image/svg+xml";
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .build();
+    private final Set<String> allowedHosts;
+    private final long maxBytes;
+
+    public HttpFlagOrigin(Collection<String> allowedHosts, long maxBytes) {
+        this.allowedHosts = allowedHosts.stream()
+                .map(host -> host.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toUnmodifiableSet());
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public byte[] fetch(String originUrl) throws IOException {
+        URI uri;
+        try {
+            uri = new URI(originUrl);
+        } catch (URISyntaxException e) {
+            throw new IOException("Not a flag URL: " + originUrl, e);
+        }
+        check(uri);
+        try {
+            for (int redirects = 0; ; redirects++) {
+                HttpRequest request = HttpRequest.newBuilder(uri).timeout(REQUEST_TIMEOUT).GET().build();
+                HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+                try (InputStream body = response.body()) {
+                    int status = response.statusCode();
+                    Optional<String> location = response.headers().firstValue("Location");
+                    if (status / 100 == 3 && location.isPresent() && redirects < MAX_REDIRECTS) {
+                        URI next = uri.resolve(location.get());
+                        if (next.getHost() == null || !next.getHost().equalsIgnoreCase(uri.getHost())) {
+                            throw new IOException("GET " + uri + " redirects to another host: " + next);
+                        }
+                        check(next);
+                        uri = next;
+                        continue;
+                    }
+                    if (status / 100 != 2) {
+                        throw new IOException("GET " + uri + " returned " + status);
+                    }
+                    return read(body, response.headers().firstValueAsLong("Content-Length").orElse(-1),
+                            response.headers().firstValue("Content-Type").orElse(""), maxBytes);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while fetching " + originUrl, e);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Not a flag URL: " + originUrl, e);
+        }
+    }
+
+    // Resolving here and again on connect leaves a window for DNS rebinding; the host allowlist is
+    // what keeps that to hosts we trust
+    void check(URI uri) throws IOException {
+        if (!"https".equalsIgnoreCase(uri.getScheme()) || uri.getHost() == null) {
+            throw new IOException("Not an https URL: " + uri);
+        }
+        String host = uri.getHost().toLowerCase(Locale.ROOT);
+        if (!allowedHosts.contains(host)) {
+            throw new IOException("Flag host not allowed: " + host);
+        }
+        for (InetAddress address : InetAddress.getAllByName(host)) {
+            if (isInternal(address)) {
+                throw new IOException(host + " resolves to a non-public address: " + address.getHostAddress());
+            }
+        }
+    }
+
+    static boolean isInternal(InetAddress address) {
+        byte[] bytes = address.getAddress();
+        return address.isAnyLocalAddress() || address.isLoopbackAddress() || address.isLinkLocalAddress()
+                || address.isSiteLocalAddress() || address.isMulticastAddress()
+                // Carrier-grade NAT, 100.64.0.0/10
+                || address instanceof Inet4Address && bytes[0] == 100 && (bytes[1] & 0xc0) == 64
+                // Unique local, fc00::/7
+                || address instanceof Inet6Address && (bytes[0] & 0xfe) == 0xfc;
+    }
+
+    static byte[] read(InputStream body, long contentLength, String contentType, long maxBytes) throws IOException {
+        String mediaType = contentType.split(";", 2)[0].strip();
+        if (!SVG.equalsIgnoreCase(mediaType)) {
+            throw new IOException("Flag is not an SVG: " + (contentType.isEmpty() ? "no content type" : contentType));
+        }
+        if (contentLength > maxBytes) {
+            throw new IOException("Flag is larger than " + maxBytes + " bytes: " + contentLength);
+        }
+        byte[] bytes = body.readNBytes((int) Math.min(maxBytes + 1, Integer.MAX_VALUE - 8));
+        if (bytes.length > maxBytes) {
+            throw new IOException("Flag is larger than " + maxBytes + " bytes");
+        }
+        return bytes;
+    }
+}
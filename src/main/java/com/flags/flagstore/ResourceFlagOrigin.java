@@ -0,0 +1,36 @@
+package com.flags.flagstore;
+
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads flags from a bundled directory (or stub) instead of the network: the file name of the
+ * origin URL is resolved against {@code base}, so {@code https://flagcdn.com/fr.svg} becomes
+ * {@code <base>/fr.svg}.
+ */
+public class ResourceFlagOrigin implements FlagOrigin {
+
+    private final ResourceLoader resourceLoader;
+    private final String base;
+
+    public ResourceFlagOrigin(ResourceLoader resourceLoader, String base) {
+        this.resourceLoader = resourceLoader;
+        this.base = base.endsWith("/") ? base : base + "/";
+    }
+
+    @Override
+    public byte[] fetch(String originUrl) throws IOException {
+        String fileName = originUrl.substring(originUrl.lastIndexOf('/') + 1);
+        int query = fileName.indexOf('?');
+        if (query >= 0) {
+            fileName = fileName.substring(0, query);
+        }
+        Resource resource = resourceLoader.getResource(base + fileName);
+        try (InputStream in = resource.getInputStream()) {
+            return in.readAllBytes();
+        }
+    }
+}
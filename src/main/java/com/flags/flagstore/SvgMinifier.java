@@ -0,0 +1,34 @@
+package com.flags.flagstore;
+
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Strips what browsers ignore from an SVG: the XML declaration, comments, and whitespace
+ * between tags or inside them. Text content is left alone.
+ */
+final class SvgMinifier {
+
+    private static final Pattern DECLARATION = Pattern.compile("<\\?xml.*?\\?>", Pattern.DOTALL);
+    private static final Pattern COMMENT = Pattern.compile("<!--.*?-->", Pattern.DOTALL);
+    private static final Pattern BETWEEN_TAGS = Pattern.compile(">\\s+<");
+    private static final Pattern TAG = Pattern.compile("<[^>]+>");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern BEFORE_CLOSE = Pattern.compile("\\s+(/?>)$");
+
+    private SvgMinifier() {
+    }
+
+    static byte[] minify(byte[] svg) {
+        String text = new String(svg, StandardCharsets.UTF_8);
+        text = DECLARATION.matcher(text).replaceAll("");
+        text = COMMENT.matcher(text).replaceAll("");
+        text = BETWEEN_TAGS.matcher(text).replaceAll("><");
+        text = TAG.matcher(text).replaceAll(tag -> {
+            String collapsed = WHITESPACE.matcher(tag.group()).replaceAll(" ");
+            return Matcher.quoteReplacement(BEFORE_CLOSE.matcher(collapsed).replaceAll("$1"));
+        });
+        return text.strip().getBytes(StandardCharsets.UTF_8);
+    }
+}
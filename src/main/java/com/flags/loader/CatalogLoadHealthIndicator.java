@@ -0,0 +1,31 @@
+package com.flags.loader;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The startup load as a health contributor, {@code catalogLoad}: out of service while it runs,
+ * down if it failed. It is part of the readiness group, so an instance loading in the background
+ * takes no traffic before its data is in.
+ */
+@Component
+@RequiredArgsConstructor
+class CatalogLoadHealthIndicator implements HealthIndicator {
+
+    private final CatalogLoader catalogLoader;
+
+    @Override
+    public Health health() {
+        CompletableFuture<Void> load = catalogLoader.startupLoad();
+        return switch (load.state()) {
+            case RUNNING -> Health.outOfService().build();
+            case SUCCESS -> Health.up().withDetail("rows", catalogLoader.stats().rowsLoaded()).build();
+            case FAILED -> Health.down().withException(load.exceptionNow()).build();
+            case CANCELLED -> Health.down().build();
+        };
+    }
+}
@@ -0,0 +1,297 @@
+package com.flags.loader;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flags.catalog.CountryCatalog;
+import com.flags.models.Country;
+import com.flags.repositories.CountryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fills an empty country table from a restcountries-style JSON array.
+ * <p>
+ * The payload is read with Jackson's streaming parser one object at a time. Every
+ * {@code batchSize} rows go to a worker pool for validation and mapping, and the mapped batches
+ * are written back in order through {@link CountryBatchWriter}. At most two batches per worker
+ * are in flight, so memory stays flat however large the source is.
+ * <p>
+ * Each load also writes a {@link CatalogSnapshotFile}. At startup a fresh snapshot for the same
+ * source is loaded instead of the source itself, and a stale one still stands in when the source
+ * cannot be reached.
+ * <p>
+ * With {@code flags.catalog.load-in-background} the startup load runs on its own thread once the
+ * context is up, and {@link CatalogLoadHealthIndicator} holds readiness down until it ends.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CatalogLoader implements CommandLineRunner {
+
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+
+    private final CatalogProperties properties;
+    private final CountryRepository countryRepository;
+    private final CountryBatchWriter batchWriter;
+    private final CountryCatalog countryCatalog;
+    private final ObjectMapper objectMapper;
+    private final ResourceLoader resourceLoader;
+    private final Environment environment;
+
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder rowsLoaded = new LongAdder();
+    private final LongAdder rowsSkipped = new LongAdder();
+    private volatile LoadReport lastReport;
+    private final CompletableFuture<Void> startupLoad = new CompletableFuture<>();
+
+    @Override
+    public void run(String... args) throws IOException {
+        if (properties.loadInBackground()) {
+            Thread.ofPlatform().name("catalog-loader").daemon().start(this::loadInBackground);
+            return;
+        }
+        try {
+            loadOnStartup();
+            startupLoad.complete(null);
+        } catch (IOException | RuntimeException e) {
+            startupLoad.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Completes when the startup load has ended, straight away if there was nothing to load, and
+     * exceptionally if it failed.
+     */
+    public CompletableFuture<Void> startupLoad() {
+        return startupLoad.copy();
+    }
+
+    private void loadInBackground() {
+        try {
+            loadOnStartup();
+            startupLoad.complete(null);
+        } catch (IOException | RuntimeException e) {
+            log.error("Could not load countries in the background", e);
+            startupLoad.completeExceptionally(e);
+        }
+    }
+
+    private void loadOnStartup() throws IOException {
+        if (!properties.loadOnStartup() || countryRepository.count() > 0) {
+            return;
+        }
+        Path snapshotPath = snapshotPath();
+        CatalogSnapshotFile.Reader snapshot = snapshotPath != null ? openSnapshot(snapshotPath) : null;
+        if (snapshot != null && isFresh(snapshot.header())) {
+            load(snapshot);
+            return;
+        }
+        try {
+            load(properties.sourceUrl());
+        } catch (IOException e) {
+            if (snapshot == null) {
+                throw e;
+            }
+            log.warn("Could not load countries from {}, using snapshot from {}: {}", properties.sourceUrl(),
+                    snapshot.header().createdAt(), e.getMessage());
+            countryRepository.deleteAllInBatch();
+            load(snapshot);
+        }
+    }
+
+    public LoadReport load(String sourceUrl) throws IOException {
+        long start = System.nanoTime();
+        Path snapshotPath = snapshotPath();
+        try (InputStream in = open(sourceUrl);
+             CatalogSnapshotFile.Writer snapshot = snapshotPath != null ? CatalogSnapshotFile.create(snapshotPath, sourceUrl) : null) {
+            LoadReport report = load(sourceUrl, in, snapshot, start);
+            if (snapshot != null) {
+                snapshot.commit();
+            }
+            return report;
+        }
+    }
+
+    public LoadReport load(CatalogSnapshotFile.Reader snapshot) throws IOException {
+        long start = System.nanoTime();
+        int[] loaded = new int[1];
+        snapshot.read(properties.batchSize(), batch -> {
+            batchWriter.insert(batch);
+            loaded[0] += batch.size();
+        });
+        countryCatalog.invalidate();
+        return report("snapshot " + snapshotPath(), snapshot.header().rows(), loaded[0], start);
+    }
+
+    private LoadReport load(String source, InputStream in, CatalogSnapshotFile.Writer snapshot, long start) throws IOException {
+        int batchSize = properties.batchSize();
+        ExecutorService workers = Threading.VIRTUAL.isActive(environment)
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(properties.workers());
+        Deque<Future<List<Country>>> inFlight = new ArrayDeque<>();
+        Set<String> seen = new HashSet<>();
+        int read = 0;
+        int loaded = 0;
+        try (JsonParser parser = objectMapper.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected a JSON array of countries from " + source);
+            }
+            List<RestCountry> chunk = new ArrayList<>(batchSize);
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                chunk.add(objectMapper.readValue(parser, RestCountry.class));
+                read++;
+                if (chunk.size() == batchSize) {
+                    List<RestCountry> rows = chunk;
+                    inFlight.add(workers.submit(() -> map(rows)));
+                    chunk = new ArrayList<>(batchSize);
+                    if (inFlight.size() > properties.workers() * 2) {
+                        loaded += write(inFlight.poll(), seen, snapshot);
+                    }
+                }
+            }
+            if (!chunk.isEmpty()) {
+                List<RestCountry> rows = chunk;
+                inFlight.add(workers.submit(() -> map(rows)));
+            }
+            while (!inFlight.isEmpty()) {
+                loaded += write(inFlight.poll(), seen, snapshot);
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+        countryCatalog.invalidate();
+        return report(source, read, loaded, start);
+    }
+
+    /**
+     * Rows loaded and skipped since startup, and the latest load.
+     */
+    public LoaderStats stats() {
+        return new LoaderStats(loads.sum(), rowsLoaded.sum(), rowsSkipped.sum(), lastReport);
+    }
+
+    private LoadReport report(String source, int read, int loaded, long start) {
+        LoadReport report = new LoadReport(source, read, loaded, read - loaded, Duration.ofNanos(System.nanoTime() - start));
+        loads.increment();
+        rowsLoaded.add(report.loaded());
+        rowsSkipped.add(report.skipped());
+        lastReport = report;
+        log.info("Loaded {} of {} countries from {} in {} ms ({} rows/s)", report.loaded(), report.read(), source,
+                report.elapsed().toMillis(), Math.round(report.rowsPerSecond()));
+        return report;
+    }
+
+    // Runs on the writing thread, in source order, so the first occurrence of a duplicate name wins
+    private int write(Future<List<Country>> batch, Set<String> seen, CatalogSnapshotFile.Writer snapshot) throws IOException {
+        List<Country> countries;
+        try {
+            countries = batch.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading countries", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to map countries", e.getCause());
+        }
+        List<Country> fresh = countries.stream().filter(country -> seen.add(country.getName())).toList();
+        if (!fresh.isEmpty()) {
+            batchWriter.insert(fresh);
+        }
+        if (snapshot != null) {
+            for (Country country : fresh) {
+                snapshot.append(country);
+            }
+        }
+        return fresh.size();
+    }
+
+    private static List<Country> map(List<RestCountry> rows) {
+        List<Country> countries = new ArrayList<>(rows.size());
+        for (RestCountry rc : rows) {
+            if (rc == null || rc.name == null || isBlank(rc.name.common) || rc.flags == null || isBlank(rc.flags.svg)) {
+                continue;
+            }
+            String capital = (rc.capital != null && !rc.capital.isEmpty()) ? rc.capital.get(0) : null;
+            countries.add(new Country(rc.name.common, rc.flags.svg, rc.population, capital));
+        }
+        return countries;
+    }
+
+    private Path snapshotPath() {
+        String path = properties.snapshotPath();
+        return path == null || path.isBlank() ? null : Path.of(path);
+    }
+
+    private CatalogSnapshotFile.Reader openSnapshot(Path path) {
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        try {
+            return CatalogSnapshotFile.open(path);
+        } catch (IOException e) {
+            log.warn("Ignoring catalog snapshot: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private boolean isFresh(CatalogSnapshotFile.Header header) {
+        return header.source().equals(properties.sourceUrl())
+                && header.createdAt().plus(properties.snapshotMaxAge()).isAfter(Instant.now());
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private InputStream open(String sourceUrl) throws IOException {
+        if (!sourceUrl.startsWith("http://") && !sourceUrl.startsWith("https://")) {
+            return resourceLoader.getResource(sourceUrl).getInputStream();
+        }
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(CONNECT_TIMEOUT)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(sourceUrl)).timeout(REQUEST_TIMEOUT).GET().build();
+        try {
+            HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            if (response.statusCode() / 100 != 2) {
+                response.body().close();
+                throw new IOException("GET " + sourceUrl + " returned " + response.statusCode());
+            }
+            return response.body();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while fetching " + sourceUrl, e);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.flags.loader;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Where the reference data comes from and how it is loaded at startup.
+ *
+ * @param sourceUrl   restcountries-style JSON array; {@code https:}, {@code file:} or {@code classpath:}
+ * @param loadOnStartup load when the country table is empty at startup
+ * @param loadInBackground run that load after startup instead of during it; readiness stays down until it ends
+ * @param batchSize   rows per insert transaction and per mapping task
+ * @param workers     threads validating and mapping rows
+ * @param snapshotPath binary snapshot written after each load and preferred on startup; blank disables it
+ * @param snapshotMaxAge age after which the snapshot is refreshed from {@code sourceUrl}
+ */
+@ConfigurationProperties(prefix = "flags.catalog")
+public record CatalogProperties(
+        @DefaultValue("https://restcountries.com/v3.1/all?fields=name,flags,population,capital") String sourceUrl,
+        @DefaultValue("true") boolean loadOnStartup,
+        @DefaultValue("false") boolean loadInBackground,
+        @DefaultValue("500") int batchSize,
+        @DefaultValue("4") int workers,
+        @DefaultValue("data/catalog.snapshot") String snapshotPath,
+        @DefaultValue("7d") Duration snapshotMaxAge) {
+}
@@ -0,0 +1,220 @@
+package com.flags.loader;
+
+import com.flags.models.Country;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Compact binary copy of the country table, written after a successful load and read back
+ * through a memory-mapped buffer on later starts.
+ * <p>
+ * Layout, big-endian:
+ * <pre>
+ * int    magic "CFSN"
+ * short  format version
+ * long   created at, epoch millis
+ * string source the rows were loaded from
+ * rows   byte 1, string name, string flag, int population, string capital
+ * byte   0
+ * int    row count
+ * long   CRC32 of every byte before it
+ * </pre>
+ * Strings are an unsigned short byte length followed by UTF-8, with {@code 0xFFFF} for null;
+ * a null population is stored as {@link Integer#MIN_VALUE}.
+ */
+public final class CatalogSnapshotFile {
+
+    private static final int MAGIC = 0x4346534E;
+    private static final short FORMAT_VERSION = 1;
+    private static final int NULL_STRING = 0xFFFF;
+    private static final int NULL_POPULATION = Integer.MIN_VALUE;
+    private static final int TRAILER_BYTES = Integer.BYTES + Long.BYTES;
+
+    private CatalogSnapshotFile() {
+    }
+
+    public record Header(int formatVersion, Instant createdAt, String source, int rows) {
+    }
+
+    /**
+     * Starts a snapshot next to {@code path}; it only replaces {@code path} on {@link Writer#commit()}.
+     */
+    public static Writer create(Path path, String source) throws IOException {
+        return new Writer(path, source);
+    }
+
+    /**
+     * Maps {@code path} and checks its magic, version and checksum before any row is read.
+     */
+    public static Reader open(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        return new Reader(path, buffer);
+    }
+
+    public static final class Writer implements Closeable {
+
+        private final Path target;
+        private final Path temp;
+        private final CRC32 crc = new CRC32();
+        private final DataOutputStream out;
+        private int rows;
+        private boolean committed;
+
+        private Writer(Path target, String source) throws IOException {
+            this.target = target.toAbsolutePath();
+            Files.createDirectories(this.target.getParent());
+            this.temp = Files.createTempFile(this.target.getParent(), this.target.getFileName().toString(), ".tmp");
+            OutputStream file = Files.newOutputStream(temp);
+            this.out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(file, crc), 64 * 1024));
+            out.writeInt(MAGIC);
+            out.writeShort(FORMAT_VERSION);
+            out.writeLong(System.currentTimeMillis());
+            writeString(source);
+        }
+
+        public void append(Country country) throws IOException {
+            out.writeByte(1);
+            writeString(country.getName());
+            writeString(country.getFlag());
+            out.writeInt(country.getPopulation() != null ? country.getPopulation() : NULL_POPULATION);
+            writeString(country.getCapital());
+            rows++;
+        }
+
+        public void commit() throws IOException {
+            out.writeByte(0);
+            out.writeInt(rows);
+            out.flush();
+            long checksum = crc.getValue();
+            out.writeLong(checksum);
+            out.close();
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                out.close();
+                Files.deleteIfExists(temp);
+            }
+        }
+
+        private void writeString(String value) throws IOException {
+            if (value == null) {
+                out.writeShort(NULL_STRING);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length >= NULL_STRING) {
+                throw new IOException("Value too long for catalog snapshot: " + value.substring(0, 32) + "...");
+            }
+            out.writeShort(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    public static final class Reader {
+
+        private final Path path;
+        private final ByteBuffer buffer;
+        private final Header header;
+        private final int firstRow;
+
+        private Reader(Path path, ByteBuffer buffer) throws IOException {
+            this.path = path;
+            this.buffer = buffer;
+            int size = buffer.limit();
+            if (size < Integer.BYTES + Short.BYTES + Long.BYTES + Short.BYTES + 1 + TRAILER_BYTES
+                    || buffer.getInt(0) != MAGIC) {
+                throw corrupt("not a catalog snapshot");
+            }
+            short version = buffer.getShort(Integer.BYTES);
+            if (version != FORMAT_VERSION) {
+                throw corrupt("unsupported format version " + version);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(0, size - Long.BYTES));
+            if (crc.getValue() != buffer.getLong(size - Long.BYTES)) {
+                throw corrupt("checksum mismatch");
+            }
+            ByteBuffer in = buffer.duplicate().position(Integer.BYTES + Short.BYTES);
+            Instant createdAt = Instant.ofEpochMilli(in.getLong());
+            String source = readString(in);
+            this.firstRow = in.position();
+            this.header = new Header(version, createdAt, source, buffer.getInt(size - TRAILER_BYTES));
+        }
+
+        public Header header() {
+            return header;
+        }
+
+        /**
+         * Decodes the rows in file order and hands them to {@code consumer} in lists of at most
+         * {@code batchSize}.
+         */
+        public void read(int batchSize, Consumer<List<Country>> consumer) throws IOException {
+            ByteBuffer in = buffer.duplicate().position(firstRow).limit(buffer.limit() - TRAILER_BYTES);
+            List<Country> batch = new ArrayList<>(batchSize);
+            int rows = 0;
+            try {
+                while (in.get() == 1) {
+                    String name = readString(in);
+                    String flag = readString(in);
+                    int population = in.getInt();
+                    String capital = readString(in);
+                    batch.add(new Country(name, flag, population != NULL_POPULATION ? population : null, capital));
+                    rows++;
+                    if (batch.size() == batchSize) {
+                        consumer.accept(batch);
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+            } catch (BufferUnderflowException e) {
+                throw corrupt("truncated row " + rows);
+            }
+            if (rows != header.rows()) {
+                throw corrupt("expected " + header.rows() + " rows, found " + rows);
+            }
+            if (!batch.isEmpty()) {
+                consumer.accept(batch);
+            }
+        }
+
+        private static String readString(ByteBuffer in) {
+            int length = Short.toUnsignedInt(in.getShort());
+            if (length == NULL_STRING) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            in.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private IOException corrupt(String reason) {
+            return new IOException("Corrupt catalog snapshot " + path + ": " + reason);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.flags.loader;
+
+import com.flags.models.Country;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Inserts new countries with plain {@code persist} calls in one transaction, so Hibernate can
+ * send them as JDBC batches ({@code hibernate.jdbc.batch_size}) instead of the select-then-insert
+ * that {@code save} does for entities with assigned ids.
+ */
+@Component
+public class CountryBatchWriter {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Transactional
+    public void insert(List<Country> countries) {
+        for (Country country : countries) {
+            entityManager.persist(country);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
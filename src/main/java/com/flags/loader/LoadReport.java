@@ -0,0 +1,11 @@
+package com.flags.loader;
+
+import java.time.Duration;
+
+public record LoadReport(String source, int read, int loaded, int skipped, Duration elapsed) {
+
+    public double rowsPerSecond() {
+        long nanos = Math.max(1, elapsed.toNanos());
+        return loaded * 1_000_000_000.0 / nanos;
+    }
+}
@@ -0,0 +1,7 @@
+package com.flags.loader;
+
+/**
+ * Startup and on-demand loads since startup; {@code last} is {@code null} until the first one.
+ */
+public record LoaderStats(long loads, long rowsLoaded, long rowsSkipped, LoadReport last) {
+}
@@ -0,0 +1,25 @@
+package com.flags.loader;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+class RestCountry {
+    public Name name;
+    public Flags flags;
+    public Integer population;
+    public List<String> capital;
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    static class Name {
+        public String common;
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    static class Flags {
+        @JsonProperty("svg")
+        public String svg;
+    }
+}
@@ -2,14 +2,18 @@ package com.flags.mappers;
 
 import com.flags.dto.CountryDetailDto;
 import com.flags.dto.CountryDto;
+import com.flags.flagstore.FlagUrls;
 import com.flags.models.Country;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 
-@Mapper(componentModel = "spring")
+@Mapper(componentModel = "spring", imports = FlagUrls.class)
 public interface CountryMapper {
 
+    @Mapping(target = "flag", expression = "java(FlagUrls.local(entity.getName(), entity.getFlag()))")
     CountryDto toCountryDto(Country entity);
 
+    @Mapping(target = "flag", expression = "java(FlagUrls.local(entity.getName(), entity.getFlag()))")
     CountryDetailDto toCountryDetailDto(Country entity);
 
     Country toCountry(CountryDetailDto dto);
@@ -0,0 +1,112 @@
+package com.flags.metrics;
+
+import com.flags.catalog.CountryCatalog;
+import com.flags.cluster.InvalidationBus;
+import com.flags.flagstore.FlagStore;
+import com.flags.loader.CatalogLoader;
+import com.flags.loader.LoadReport;
+import com.flags.pages.PageCache;
+import com.flags.search.CountrySearchIndex;
+import com.flags.search.CountrySuggester;
+import com.flags.search.FuzzyCountryMatcher;
+import com.flags.search.SearchStats;
+import com.flags.writes.CountryWriteQueue;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Publishes the counters the catalog, search indexes, flag store, page cache, write queue and
+ * loader keep anyway. Every meter reads those counters when it is scraped, so none of them costs
+ * anything on the request path.
+ */
+@RequiredArgsConstructor
+class FlagsMeterBinder implements MeterBinder {
+
+    private final CountryCatalog catalog;
+    private final CountrySearchIndex searchIndex;
+    private final FuzzyCountryMatcher fuzzyMatcher;
+    private final CountrySuggester suggester;
+    private final FlagStore flagStore;
+    private final CatalogLoader loader;
+    private final PageCache pageCache;
+    private final InvalidationBus invalidationBus;
+    // Null unless write-behind is on
+    private final CountryWriteQueue writeQueue;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("flags.catalog.requests", catalog, c -> c.stats().hits())
+                .tag("result", "hit").description("Catalog reads served from the current snapshot").register(registry);
+        FunctionCounter.builder("flags.catalog.requests", catalog, c -> c.stats().misses())
+                .tag("result", "miss").description("Catalog reads that found no snapshot loaded").register(registry);
+        FunctionCounter.builder("flags.catalog.rebuilds", catalog, c -> c.stats().rebuilds()).register(registry);
+        FunctionTimer.builder("flags.catalog.encode", catalog, c -> c.stats().encodes(), c -> c.stats().encodeNanos(), TimeUnit.NANOSECONDS)
+                .description("JSON serialization of list and detail bodies").register(registry);
+        Gauge.builder("flags.catalog.size", catalog, c -> c.stats().size()).register(registry);
+
+        search(registry, "substring", searchIndex::stats);
+        search(registry, "fuzzy", fuzzyMatcher::stats);
+        search(registry, "suggest", suggester::stats);
+
+        FunctionCounter.builder("flags.flagstore.requests", flagStore, s -> s.stats().memoryHits())
+                .tag("tier", "memory").register(registry);
+        FunctionCounter.builder("flags.flagstore.requests", flagStore, s -> s.stats().diskReads())
+                .tag("tier", "disk").register(registry);
+        FunctionCounter.builder("flags.flagstore.origin.fetches", flagStore, s -> s.stats().originFetches()).register(registry);
+        Gauge.builder("flags.flagstore.memory", flagStore, s -> s.stats().memoryBytes()).baseUnit("bytes").register(registry);
+
+        FunctionCounter.builder("flags.pages.requests", pageCache, p -> p.stats().hits())
+                .tag("result", "hit").description("Pages served without rendering").register(registry);
+        FunctionCounter.builder("flags.pages.requests", pageCache, p -> p.stats().misses())
+                .tag("result", "miss").register(registry);
+        Gauge.builder("flags.pages.memory", pageCache, p -> p.stats().bytes()).baseUnit("bytes").register(registry);
+
+        FunctionCounter.builder("flags.invalidation.messages", invalidationBus, b -> b.stats().published())
+                .tag("direction", "published").description("Country writes announced to the other nodes").register(registry);
+        FunctionCounter.builder("flags.invalidation.messages", invalidationBus, b -> b.stats().received())
+                .tag("direction", "received").description("Writes on other nodes applied to this catalog").register(registry);
+
+        if (writeQueue != null) {
+            Gauge.builder("flags.writes.pending", writeQueue, q -> q.stats().pending()).register(registry);
+            FunctionCounter.builder("flags.writes.requests", writeQueue, q -> q.stats().accepted() - q.stats().coalesced())
+                    .tag("result", "queued").register(registry);
+            FunctionCounter.builder("flags.writes.requests", writeQueue, q -> q.stats().coalesced())
+                    .tag("result", "coalesced").description("Writes that replaced a pending write to the same country").register(registry);
+            FunctionCounter.builder("flags.writes.requests", writeQueue, q -> q.stats().rejected())
+                    .tag("result", "rejected").register(registry);
+            FunctionCounter.builder("flags.writes.batches", writeQueue, q -> q.stats().batches()).register(registry);
+            FunctionCounter.builder("flags.writes.conflicts", writeQueue, q -> q.stats().conflicts())
+                    .description("Writes based on a row version another node had already replaced").register(registry);
+        }
+
+        FunctionCounter.builder("flags.loader.rows", loader, l -> l.stats().rowsLoaded())
+                .tag("outcome", "loaded").register(registry);
+        FunctionCounter.builder("flags.loader.rows", loader, l -> l.stats().rowsSkipped())
+                .tag("outcome", "skipped").register(registry);
+        Gauge.builder("flags.loader.rate", loader, l -> last(l, LoadReport::rowsPerSecond))
+                .baseUnit("rows.per.second").description("Rows per second of the latest load").register(registry);
+        TimeGauge.builder("flags.loader.duration", loader, TimeUnit.NANOSECONDS, l -> last(l, r -> r.elapsed().toNanos()))
+                .description("Duration of the latest load").register(registry);
+    }
+
+    private static void search(MeterRegistry registry, String index, Supplier<SearchStats> stats) {
+        FunctionCounter.builder("flags.search.requests", stats, s -> s.get().hits())
+                .tags("index", index, "result", "hit").register(registry);
+        FunctionCounter.builder("flags.search.requests", stats, s -> s.get().searches() - s.get().hits())
+                .tags("index", index, "result", "miss").register(registry);
+    }
+
+    private static double last(CatalogLoader loader, ToDoubleFunction<LoadReport> value) {
+        LoadReport last = loader.stats().last();
+        return last != null ? value.applyAsDouble(last) : Double.NaN;
+    }
+}
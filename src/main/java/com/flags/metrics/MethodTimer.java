@@ -0,0 +1,77 @@
+package com.flags.metrics;
+
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Times every call through the proxy. A call costs two clock reads and two adds; the totals are
+ * published as a {@link FunctionTimer} per method and outcome, registered on first use. A full
+ * {@code Timer} would also track a max and a histogram, which read the clock again on every
+ * call and cost more than the service methods being timed.
+ */
+class MethodTimer implements MethodInterceptor {
+
+    private final String metricName;
+    private final ObjectProvider<MeterRegistry> registry;
+    private final ConcurrentHashMap<Method, Totals> succeeded = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Outcome, Totals> failed = new ConcurrentHashMap<>();
+
+    MethodTimer(String metricName, ObjectProvider<MeterRegistry> registry) {
+        this.metricName = metricName;
+        this.registry = registry;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        long start = System.nanoTime();
+        try {
+            Object result = invocation.proceed();
+            long elapsed = System.nanoTime() - start;
+            Totals totals = succeeded.get(invocation.getMethod());
+            if (totals == null) {
+                totals = succeeded.computeIfAbsent(invocation.getMethod(), method -> register(invocation, "none"));
+            }
+            totals.record(elapsed);
+            return result;
+        } catch (Throwable e) {
+            long elapsed = System.nanoTime() - start;
+            failed.computeIfAbsent(new Outcome(invocation.getMethod(), e.getClass()),
+                    outcome -> register(invocation, e.getClass().getSimpleName())).record(elapsed);
+            throw e;
+        }
+    }
+
+    private Totals register(MethodInvocation invocation, String exception) {
+        Class<?> target = invocation.getThis() != null ? AopUtils.getTargetClass(invocation.getThis()) : invocation.getMethod().getDeclaringClass();
+        Totals totals = new Totals();
+        FunctionTimer.builder(metricName, totals, t -> t.count.sum(), t -> t.nanos.sum(), TimeUnit.NANOSECONDS)
+                .tag("class", target.getSimpleName())
+                .tag("method", invocation.getMethod().getName())
+                .tag("exception", exception)
+                .register(registry.getObject());
+        return totals;
+    }
+
+    private record Outcome(Method method, Class<?> exception) {
+    }
+
+    private static final class Totals {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        void record(long elapsed) {
+            count.increment();
+            nanos.add(elapsed);
+        }
+    }
+}
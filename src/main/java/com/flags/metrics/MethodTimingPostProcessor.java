@@ -0,0 +1,33 @@
+package com.flags.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.ClassFilter;
+import org.springframework.aop.framework.AbstractAdvisingBeanPostProcessor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcher;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.lang.reflect.Method;
+
+/**
+ * Puts a {@link MethodTimer} in front of every bean matched by {@code classes}. Beans that are
+ * already proxied, for transactions say, get the timer added to their existing proxy.
+ */
+class MethodTimingPostProcessor extends AbstractAdvisingBeanPostProcessor {
+
+    MethodTimingPostProcessor(String metricName, ClassFilter classes, ObjectProvider<MeterRegistry> registry) {
+        this.advisor = new DefaultPointcutAdvisor(new ComposablePointcut(classes, new DeclaredMethods()),
+                new MethodTimer(metricName, registry));
+        setBeforeExistingAdvisors(true);
+    }
+
+    // Leaves out equals, hashCode and toString
+    private static final class DeclaredMethods extends StaticMethodMatcher {
+
+        @Override
+        public boolean matches(Method method, Class<?> targetClass) {
+            return method.getDeclaringClass() != Object.class;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.flags.metrics;
+
+import com.flags.catalog.CountryCatalog;
+import com.flags.cluster.InvalidationBus;
+import com.flags.flagstore.FlagStore;
+import com.flags.loader.CatalogLoader;
+import com.flags.mappers.CountryMapper;
+import com.flags.pages.PageCache;
+import com.flags.search.CountrySearchIndex;
+import com.flags.search.CountrySuggester;
+import com.flags.search.FuzzyCountryMatcher;
+import com.flags.writes.CountryWriteQueue;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.support.RootClassFilter;
+import org.springframework.aop.support.annotation.AnnotationClassFilter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Timers around template renders, plus the application's own counters. Turned off, with the
+ * repository and HTTP request timings, by {@code flags.metrics.enabled=false}.
+ * <p>
+ * Per-method timers around services and mapper calls need {@code flags.metrics.method-timers=true}
+ * as well: the proxy costs several times the cached read it wraps, and the HTTP request timings
+ * already cover the read path.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "flags.metrics", name = "enabled", matchIfMissing = true)
+class MetricsConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "flags.metrics", name = "method-timers")
+    static MethodTimingPostProcessor serviceTimingPostProcessor(ObjectProvider<MeterRegistry> registry) {
+        return new MethodTimingPostProcessor("flags.service", new AnnotationClassFilter(Service.class, true), registry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "flags.metrics", name = "method-timers")
+    static MethodTimingPostProcessor mapperTimingPostProcessor(ObjectProvider<MeterRegistry> registry) {
+        return new MethodTimingPostProcessor("flags.mapper", new RootClassFilter(CountryMapper.class), registry);
+    }
+
+    @Bean
+    FlagsMeterBinder flagsMeterBinder(CountryCatalog catalog, CountrySearchIndex searchIndex, FuzzyCountryMatcher fuzzyMatcher,
+                                      CountrySuggester suggester, FlagStore flagStore, CatalogLoader loader, PageCache pageCache,
+                                      InvalidationBus invalidationBus, ObjectProvider<CountryWriteQueue> writeQueue) {
+        return new FlagsMeterBinder(catalog, searchIndex, fuzzyMatcher, suggester, flagStore, loader, pageCache, invalidationBus,
+                writeQueue.getIfAvailable());
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    static class ViewMetricsConfig implements WebMvcConfigurer {
+
+        private final MeterRegistry registry;
+
+        ViewMetricsConfig(MeterRegistry registry) {
+            this.registry = registry;
+        }
+
+        @Override
+        public void addInterceptors(InterceptorRegistry registry) {
+            registry.addInterceptor(new ViewRenderTimer(this.registry));
+        }
+    }
+}
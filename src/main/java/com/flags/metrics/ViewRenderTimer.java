@@ -0,0 +1,45 @@
+package com.flags.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times template rendering. The dispatcher calls {@code postHandle} right before it renders the
+ * view and {@code afterCompletion} right after, so the gap between the two is the render.
+ */
+class ViewRenderTimer implements HandlerInterceptor {
+
+    private static final String START = ViewRenderTimer.class.getName() + ".start";
+    private static final String VIEW = ViewRenderTimer.class.getName() + ".view";
+
+    private final MeterRegistry registry;
+
+    ViewRenderTimer(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler, ModelAndView modelAndView) {
+        if (modelAndView != null && modelAndView.getViewName() != null) {
+            request.setAttribute(VIEW, modelAndView.getViewName());
+            request.setAttribute(START, System.nanoTime());
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(START) instanceof Long start) {
+            Timer.builder("flags.view.render")
+                    .tag("view", (String) request.getAttribute(VIEW))
+                    .tag("exception", ex != null ? ex.getClass().getSimpleName() : "none")
+                    .register(registry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.flags.pages;
+
+import com.flags.controllers.ContentCoding;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.View;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.util.Map;
+
+/**
+ * Serves a template from the {@link PageCache} when the model carries a {@link PageKey}. On a
+ * miss the template view renders into a buffer, and the cached bytes are exactly what it wrote.
+ */
+class CachedPageView implements View {
+
+    private final View template;
+    private final PageCache cache;
+
+    CachedPageView(View template, PageCache cache) {
+        this.template = template;
+        this.cache = cache;
+    }
+
+    @Override
+    public String getContentType() {
+        return template.getContentType();
+    }
+
+    @Override
+    public void render(Map<String, ?> model, HttpServletRequest request, HttpServletResponse response) throws Exception {
+        if (model == null || !(model.get(PageKey.ATTRIBUTE) instanceof PageKey key)) {
+            template.render(model, request, response);
+            return;
+        }
+        RenderedPage page = cache.get(key);
+        if (page == null) {
+            ContentCachingResponseWrapper buffer = new ContentCachingResponseWrapper(response);
+            template.render(model, request, buffer);
+            page = RenderedPage.of(buffer.getContentType(), buffer.getContentAsByteArray());
+            cache.put(key, page);
+        }
+        response.setContentType(page.contentType());
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        byte[] body = page.html();
+        if (ContentCoding.acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            body = page.gzip();
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+}
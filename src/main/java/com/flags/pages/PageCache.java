@@ -0,0 +1,102 @@
+package com.flags.pages;
+
+import com.flags.catalog.CatalogEntry;
+import com.flags.catalog.CatalogListener;
+import com.flags.catalog.CatalogSnapshot;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Least-recently-used rendered pages, bounded by count and by total size.
+ * <p>
+ * Keys carry the catalog version a page was rendered from, so a page is never served after the
+ * data behind it changed. Writes also drop the pages they make unreachable right away: every
+ * list page, since lists and search results span the whole catalog, and the detail page of the
+ * written country only.
+ */
+@Component
+public class PageCache implements CatalogListener {
+
+    /**
+     * The list view; its pages depend on every country.
+     */
+    public static final String LIST_VIEW = "countries";
+    public static final String DETAIL_VIEW = "country-detail";
+
+    private final long maxSize;
+    private final int maxEntries;
+    private final LinkedHashMap<PageKey, RenderedPage> pages = new LinkedHashMap<>(64, 0.75f, true);
+    private long size;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public PageCache(PageCacheProperties properties) {
+        this.maxSize = properties.maxSize().toBytes();
+        this.maxEntries = properties.maxEntries();
+    }
+
+    RenderedPage get(PageKey key) {
+        RenderedPage page;
+        synchronized (this) {
+            page = pages.get(key);
+        }
+        (page != null ? hits : misses).increment();
+        return page;
+    }
+
+    synchronized void put(PageKey key, RenderedPage page) {
+        if (page.size() > maxSize) {
+            return;
+        }
+        RenderedPage previous = pages.put(key, page);
+        size += page.size() - (previous != null ? previous.size() : 0);
+        Iterator<RenderedPage> eldest = pages.values().iterator();
+        while ((size > maxSize || pages.size() > maxEntries) && eldest.hasNext()) {
+            size -= eldest.next().size();
+            eldest.remove();
+        }
+    }
+
+    public synchronized void clear() {
+        pages.clear();
+        size = 0;
+    }
+
+    public PageCacheStats stats() {
+        synchronized (this) {
+            return new PageCacheStats(hits.sum(), misses.sum(), pages.size(), size);
+        }
+    }
+
+    @Override
+    public void onRebuild(CatalogSnapshot snapshot) {
+        clear();
+    }
+
+    @Override
+    public void onPut(CatalogEntry previous, CatalogEntry current) {
+        evict(current.name());
+    }
+
+    @Override
+    public void onRemove(CatalogEntry removed) {
+        evict(removed.name());
+    }
+
+    private synchronized void evict(String name) {
+        Iterator<Map.Entry<PageKey, RenderedPage>> entries = pages.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<PageKey, RenderedPage> entry = entries.next();
+            PageKey key = entry.getKey();
+            if (key.view().equals(LIST_VIEW) || key.view().equals(DETAIL_VIEW) && key.variant().equals(name)) {
+                size -= entry.getValue().size();
+                entries.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.flags.pages;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.View;
+import org.springframework.web.servlet.ViewResolver;
+import org.thymeleaf.spring6.view.ThymeleafViewResolver;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Puts the {@link PageCache} in front of the Thymeleaf views for the list and detail pages. It
+ * resolves ahead of Thymeleaf, so controllers keep returning plain view names.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "flags.pages", name = "enabled", matchIfMissing = true)
+class PageCacheConfig {
+
+    private static final Set<String> CACHED_VIEWS = Set.of(PageCache.LIST_VIEW, PageCache.DETAIL_VIEW);
+
+    @Bean
+    PageCacheViewResolver pageCacheViewResolver(ThymeleafViewResolver thymeleafViewResolver, PageCache cache) {
+        return new PageCacheViewResolver(thymeleafViewResolver, cache);
+    }
+
+    static final class PageCacheViewResolver implements ViewResolver, Ordered {
+
+        private final ThymeleafViewResolver templates;
+        private final PageCache cache;
+
+        PageCacheViewResolver(ThymeleafViewResolver templates, PageCache cache) {
+            this.templates = templates;
+            this.cache = cache;
+        }
+
+        @Override
+        public View resolveViewName(String viewName, Locale locale) throws Exception {
+            if (!CACHED_VIEWS.contains(viewName)) {
+                return null;
+            }
+            View template = templates.resolveViewName(viewName, locale);
+            return template != null ? new CachedPageView(template, cache) : null;
+        }
+
+        @Override
+        public int getOrder() {
+            return templates.getOrder() - 1;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.flags.pages;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Rendered HTML pages kept in memory.
+ *
+ * @param enabled    off renders every page from its template
+ * @param maxSize    total size of the cached pages, gzipped copies included
+ * @param maxEntries number of pages kept; searches each get their own
+ */
+@ConfigurationProperties(prefix = "flags.pages")
+public record PageCacheProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("16MB") DataSize maxSize,
+        @DefaultValue("1000") int maxEntries) {
+}
@@ -0,0 +1,4 @@
+package com.flags.pages;
+
+public record PageCacheStats(long hits, long misses, int entries, long bytes) {
+}
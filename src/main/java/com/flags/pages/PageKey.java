@@ -0,0 +1,17 @@
+package com.flags.pages;
+
+/**
+ * Identifies one rendering of a view. {@code version} is the catalog version the page was
+ * rendered from: the snapshot's for lists, the country's own for detail pages, so a write only
+ * retires the pages that show it.
+ *
+ * @param view    template name
+ * @param variant what the page shows, such as the search term or the country name
+ */
+public record PageKey(String view, String variant, long version) {
+
+    /**
+     * Model attribute under which controllers put the key of the page they render.
+     */
+    public static final String ATTRIBUTE = PageKey.class.getName();
+}
@@ -0,0 +1,17 @@
+package com.flags.pages;
+
+import com.flags.catalog.EncodedBody;
+
+/**
+ * A rendered page and its gzipped copy, compressed once when the page is stored.
+ */
+record RenderedPage(String contentType, byte[] html, byte[] gzip) {
+
+    static RenderedPage of(String contentType, byte[] html) {
+        return new RenderedPage(contentType, html, EncodedBody.gzip(html));
+    }
+
+    long size() {
+        return html.length + gzip.length;
+    }
+}
@@ -1,10 +1,18 @@
 package com.flags.repositories;
 
 import com.flags.models.Country;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 public interface CountryRepository extends JpaRepository<Country, String> {
     List<Country> findByNameContainingIgnoreCase(String name);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<Country> streamAllByOrderByNameAsc();
 }
\ No newline at end of file
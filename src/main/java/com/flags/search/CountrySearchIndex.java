@@ -0,0 +1,326 @@
+package com.flags.search;
+
+import com.flags.catalog.CatalogEntry;
+import com.flags.catalog.CatalogListener;
+import com.flags.catalog.CatalogSnapshot;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Substring search over country names and capitals, backed by a trigram index.
+ * <p>
+ * Every indexed text contributes its trigrams to posting lists of document slots. A query of
+ * three or more characters intersects the lists of its own trigrams and only verifies the
+ * survivors; shorter queries scan the live slots. Results are ranked exact name, name prefix,
+ * name infix, capital prefix, capital infix, then alphabetically.
+ * <p>
+ * Updates are incremental: a changed country takes a fresh slot and its old slot becomes a
+ * tombstone that queries skip. Once tombstones outnumber live slots the index is compacted.
+ */
+@Component
+public class CountrySearchIndex implements CatalogListener {
+
+    private static final int COMPACT_THRESHOLD = 1024;
+    private static final int RANKS = 5;
+
+    private final int defaultLimit;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final Map<Long, IntList> postings = new HashMap<>();
+    private String[] names = new String[64];
+    private String[] nameKeys = new String[64];
+    private String[] capitalKeys = new String[64];
+    private int size;
+    private int dead;
+
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+
+    public CountrySearchIndex(@Value("${flags.search.limit:100}") int defaultLimit) {
+        this.defaultLimit = defaultLimit;
+    }
+
+    public List<String> search(String query) {
+        return search(query, defaultLimit);
+    }
+
+    /**
+     * Names of the best {@code limit} countries whose name or capital contains {@code query}.
+     */
+    public List<String> search(String query, int limit) {
+        String key = query == null ? "" : SearchText.normalize(query.trim());
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        searches.increment();
+        lock.readLock().lock();
+        try {
+            IntList[] ranked = new IntList[RANKS];
+            if (key.length() < 3) {
+                for (int slot = 0; slot < size; slot++) {
+                    collect(slot, key, ranked);
+                }
+            } else {
+                for (int slot : candidates(key)) {
+                    collect(slot, key, ranked);
+                }
+            }
+            List<String> result = new ArrayList<>();
+            for (int rank = 0; rank < RANKS && result.size() < limit; rank++) {
+                if (ranked[rank] != null) {
+                    addFirst(ranked[rank], limit - result.size(), result);
+                }
+            }
+            if (!result.isEmpty()) {
+                hits.increment();
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public SearchStats stats() {
+        return new SearchStats(searches.sum(), hits.sum());
+    }
+
+    public void index(String name, String capital) {
+        String nameKey = SearchText.normalize(name);
+        String capitalKey = capital == null ? null : SearchText.normalize(capital);
+        lock.writeLock().lock();
+        try {
+            Integer old = slots.get(name);
+            if (old != null) {
+                if (nameKeys[old].equals(nameKey) && Objects.equals(capitalKeys[old], capitalKey)) {
+                    return;
+                }
+                kill(old);
+            }
+            add(name, nameKey, capitalKey);
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String name) {
+        lock.writeLock().lock();
+        try {
+            Integer old = slots.remove(name);
+            if (old != null) {
+                kill(old);
+                compactIfSparse();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            slots.clear();
+            postings.clear();
+            Arrays.fill(names, 0, size, null);
+            Arrays.fill(nameKeys, 0, size, null);
+            Arrays.fill(capitalKeys, 0, size, null);
+            size = 0;
+            dead = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onRebuild(CatalogSnapshot snapshot) {
+        lock.writeLock().lock();
+        try {
+            clear();
+            for (CatalogEntry entry : snapshot.entries()) {
+                index(entry.name(), entry.detail().getCapital());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onPut(CatalogEntry previous, CatalogEntry current) {
+        index(current.name(), current.detail().getCapital());
+    }
+
+    @Override
+    public void onRemove(CatalogEntry removed) {
+        remove(removed.name());
+    }
+
+    private int[] candidates(String key) {
+        int grams = key.length() - 2;
+        IntList[] lists = new IntList[grams];
+        for (int i = 0; i < grams; i++) {
+            IntList list = postings.get(gram(key, i));
+            if (list == null) {
+                return new int[0];
+            }
+            lists[i] = list;
+        }
+        Arrays.sort(lists, Comparator.comparingInt(IntList::size));
+        int[] result = Arrays.copyOf(lists[0].values(), lists[0].size());
+        int count = result.length;
+        for (int i = 1; i < lists.length && count > 0; i++) {
+            count = intersect(result, count, lists[i]);
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    // Both inputs are sorted; keeps the common values in the head of target and returns how many
+    private static int intersect(int[] target, int count, IntList other) {
+        int[] values = other.values();
+        int size = other.size();
+        int kept = 0;
+        int j = 0;
+        for (int i = 0; i < count && j < size; i++) {
+            int value = target[i];
+            while (j < size && values[j] < value) {
+                j++;
+            }
+            if (j < size && values[j] == value) {
+                target[kept++] = value;
+            }
+        }
+        return kept;
+    }
+
+    private void collect(int slot, String key, IntList[] ranked) {
+        if (names[slot] == null) {
+            return;
+        }
+        int rank = rank(nameKeys[slot], capitalKeys[slot], key);
+        if (rank >= 0) {
+            if (ranked[rank] == null) {
+                ranked[rank] = new IntList();
+            }
+            ranked[rank].add(slot);
+        }
+    }
+
+    // Appends the alphabetically first n names of the bucket, keeping a bounded heap when the bucket is larger
+    private void addFirst(IntList bucket, int n, List<String> result) {
+        int[] slots = bucket.values();
+        List<String> first = new ArrayList<>(Math.min(n, bucket.size()));
+        if (bucket.size() <= n) {
+            for (int i = 0; i < bucket.size(); i++) {
+                first.add(names[slots[i]]);
+            }
+        } else {
+            PriorityQueue<String> heap = new PriorityQueue<>(n + 1, Comparator.reverseOrder());
+            for (int i = 0; i < bucket.size(); i++) {
+                String name = names[slots[i]];
+                if (heap.size() < n) {
+                    heap.add(name);
+                } else if (name.compareTo(heap.peek()) < 0) {
+                    heap.poll();
+                    heap.add(name);
+                }
+            }
+            first.addAll(heap);
+        }
+        first.sort(null);
+        result.addAll(first);
+    }
+
+    private static int rank(String nameKey, String capitalKey, String key) {
+        if (nameKey.equals(key)) {
+            return 0;
+        }
+        if (nameKey.startsWith(key)) {
+            return 1;
+        }
+        if (nameKey.contains(key)) {
+            return 2;
+        }
+        if (capitalKey != null) {
+            if (capitalKey.startsWith(key)) {
+                return 3;
+            }
+            if (capitalKey.contains(key)) {
+                return 4;
+            }
+        }
+        return -1;
+    }
+
+    private void add(String name, String nameKey, String capitalKey) {
+        if (size == names.length) {
+            int capacity = size * 2;
+            names = Arrays.copyOf(names, capacity);
+            nameKeys = Arrays.copyOf(nameKeys, capacity);
+            capitalKeys = Arrays.copyOf(capitalKeys, capacity);
+        }
+        int slot = size++;
+        names[slot] = name;
+        nameKeys[slot] = nameKey;
+        capitalKeys[slot] = capitalKey;
+        slots.put(name, slot);
+        addGrams(slot, nameKey);
+        if (capitalKey != null) {
+            addGrams(slot, capitalKey);
+        }
+    }
+
+    private void addGrams(int slot, String text) {
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            IntList list = postings.computeIfAbsent(gram(text, i), k -> new IntList());
+            // Slots only grow, so a repeated gram of the same document is always the last value
+            if (list.last() != slot) {
+                list.add(slot);
+            }
+        }
+    }
+
+    private void kill(int slot) {
+        names[slot] = null;
+        dead++;
+    }
+
+    private void compactIfSparse() {
+        if (dead > COMPACT_THRESHOLD && dead > size / 2) {
+            compact();
+        }
+    }
+
+    private void compact() {
+        String[] liveNames = new String[size - dead];
+        String[] liveNameKeys = new String[liveNames.length];
+        String[] liveCapitalKeys = new String[liveNames.length];
+        int live = 0;
+        for (int slot = 0; slot < size; slot++) {
+            if (names[slot] != null) {
+                liveNames[live] = names[slot];
+                liveNameKeys[live] = nameKeys[slot];
+                liveCapitalKeys[live] = capitalKeys[slot];
+                live++;
+            }
+        }
+        clear();
+        for (int i = 0; i < live; i++) {
+            add(liveNames[i], liveNameKeys[i], liveCapitalKeys[i]);
+        }
+    }
+
+    private static long gram(String text, int at) {
+        return ((long) text.charAt(at) << 32) | ((long) text.charAt(at + 1) << 16) | text.charAt(at + 2);
+    }
+}
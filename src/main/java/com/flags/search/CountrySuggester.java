@@ -0,0 +1,548 @@
+package com.flags.search;
+
+import com.flags.catalog.CatalogEntry;
+import com.flags.catalog.CatalogListener;
+import com.flags.catalog.CatalogSnapshot;
+import com.flags.dto.CountrySuggestionDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Type-ahead over country names and capitals: the most populous countries with a name or capital
+ * starting with the query.
+ * <p>
+ * Keys live in a compressed prefix trie held in parallel arrays; edge labels are ranges of one
+ * shared {@code char[]}, so splitting an edge copies nothing. A key is one entry per country and
+ * field, numbered {@code slot * 2} for the name and {@code slot * 2 + 1} for the capital. Every
+ * node whose subtree holds more than {@code 2k} entries keeps its best {@code 2k}, enough for
+ * {@code k} different countries, so a query is a walk down the query's characters followed by a
+ * copy of that list. Smaller subtrees are collected on the spot. Neither allocates beyond the
+ * returned suggestions.
+ * <p>
+ * Writes update the lists along one path. Nodes left empty by removals stay until there are more
+ * than four nodes per country, then the trie is rebuilt.
+ */
+@Component
+public class CountrySuggester implements CatalogListener {
+
+    private static final int NONE = -1;
+    private static final int ROOT = 0;
+    private static final int COMPACT_THRESHOLD = 4096;
+    private static final int POOLED_SCRATCH = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+    private final int k;
+    // Length of the per-node lists: a country holds at most two entries, so 2k entries always
+    // name at least k countries
+    private final int width;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Rankings of unlisted subtrees. A pool rather than a ThreadLocal: with virtual threads every
+    // request runs on a new thread, so per-thread buffers would be allocated for each query
+    private final ArrayBlockingQueue<int[]> scratch = new ArrayBlockingQueue<>(POOLED_SCRATCH);
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+
+    // Countries by slot
+    private final Map<String, Integer> slots = new HashMap<>();
+    private String[] names = new String[64];
+    private String[] capitals = new String[64];
+    private String[] flags = new String[64];
+    private int[] populations = new int[64];
+    private int[] nextEntry = new int[128];
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+    private int slotCount;
+
+    // Trie nodes
+    private char[] chars = new char[1024];
+    private int charCount;
+    private int[] labelStart = new int[256];
+    private int[] labelEnd = new int[256];
+    private int[] firstChild = new int[256];
+    private int[] nextSibling = new int[256];
+    private int[] firstEntry = new int[256];
+    private int[] counts = new int[256];
+    private int[][] tops = new int[256][];
+    private int nodes;
+
+    public CountrySuggester(@Value("${flags.search.suggest.limit:10}") int k) {
+        this.k = k;
+        this.width = 2 * k;
+        clear();
+    }
+
+    public SearchStats stats() {
+        return new SearchStats(searches.sum(), hits.sum());
+    }
+
+    /**
+     * Most suggestions a query returns.
+     */
+    public int limit() {
+        return k;
+    }
+
+    public List<CountrySuggestionDto> suggest(String query) {
+        return suggest(query, k);
+    }
+
+    /**
+     * Up to {@code limit} (at most {@link #limit()}) countries whose name or capital starts with
+     * {@code query}, ignoring case and accents, most populous first. A country matching on both
+     * is suggested once, for its name.
+     */
+    public List<CountrySuggestionDto> suggest(String query, int limit) {
+        String key = query == null ? "" : query.strip();
+        if (!isAscii(key)) {
+            key = SearchText.normalize(key);
+        }
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        searches.increment();
+        int[] borrowed = null;
+        lock.readLock().lock();
+        try {
+            int node = find(key);
+            if (node == NONE || counts[node] == 0) {
+                return List.of();
+            }
+            int[] ranked = tops[node];
+            int size;
+            if (ranked != null) {
+                size = width;
+            } else {
+                borrowed = scratch.poll();
+                if (borrowed == null) {
+                    borrowed = new int[width];
+                }
+                ranked = borrowed;
+                size = collect(node, ranked, 0);
+                sort(ranked, size);
+            }
+            List<CountrySuggestionDto> suggestions = new ArrayList<>(Math.min(limit, k));
+            for (int i = 0; i < size && suggestions.size() < limit; i++) {
+                int entry = ranked[i];
+                String name = names[entry >> 1];
+                if (isCapital(entry) && suggested(suggestions, name)) {
+                    continue;
+                }
+                suggestions.add(new CountrySuggestionDto(name, flags[entry >> 1], isCapital(entry) ? capitals[entry >> 1] : name));
+            }
+            hits.increment();
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+            if (borrowed != null) {
+                // Dropped when the pool is full
+                scratch.offer(borrowed);
+            }
+        }
+    }
+
+    public void index(String name, String capital, Integer population, String flag) {
+        lock.writeLock().lock();
+        try {
+            Integer existing = slots.get(name);
+            int slot;
+            if (existing != null) {
+                slot = existing;
+                unlink(slot);
+            } else {
+                slot = allocate();
+                slots.put(name, slot);
+            }
+            names[slot] = name;
+            capitals[slot] = capital;
+            flags[slot] = flag;
+            populations[slot] = population != null ? population : -1;
+            link(slot);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String name) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slots.remove(name);
+            if (slot == null) {
+                return;
+            }
+            unlink(slot);
+            names[slot] = null;
+            capitals[slot] = null;
+            flags[slot] = null;
+            if (freeCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+            }
+            freeSlots[freeCount++] = slot;
+            if (nodes > COMPACT_THRESHOLD && nodes > 4 * (slots.size() + 1)) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            slots.clear();
+            Arrays.fill(names, 0, slotCount, null);
+            Arrays.fill(capitals, 0, slotCount, null);
+            Arrays.fill(flags, 0, slotCount, null);
+            Arrays.fill(tops, 0, nodes, null);
+            slotCount = 0;
+            freeCount = 0;
+            charCount = 0;
+            nodes = 0;
+            newNode(0, 0);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onRebuild(CatalogSnapshot snapshot) {
+        lock.writeLock().lock();
+        try {
+            clear();
+            for (CatalogEntry entry : snapshot.entries()) {
+                onPut(null, entry);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onPut(CatalogEntry previous, CatalogEntry current) {
+        index(current.name(), current.detail().getCapital(), current.detail().getPopulation(), current.summary().getFlag());
+    }
+
+    @Override
+    public void onRemove(CatalogEntry removed) {
+        remove(removed.name());
+    }
+
+    // Node whose subtree holds exactly the keys starting with key, or NONE. ASCII letters are
+    // lowered on the way, so a typed query needs no normalized copy.
+    private int find(String key) {
+        int node = ROOT;
+        int i = 0;
+        while (i < key.length()) {
+            node = child(node, lower(key.charAt(i)));
+            if (node == NONE) {
+                return NONE;
+            }
+            for (int at = labelStart[node]; at < labelEnd[node] && i < key.length(); at++, i++) {
+                if (chars[at] != lower(key.charAt(i))) {
+                    return NONE;
+                }
+            }
+        }
+        return node;
+    }
+
+    private void link(int slot) {
+        insert(slot * 2, SearchText.normalize(names[slot]));
+        if (capitals[slot] != null) {
+            insert(slot * 2 + 1, SearchText.normalize(capitals[slot]));
+        }
+    }
+
+    private void unlink(int slot) {
+        delete(slot * 2, SearchText.normalize(names[slot]));
+        if (capitals[slot] != null) {
+            delete(slot * 2 + 1, SearchText.normalize(capitals[slot]));
+        }
+    }
+
+    private void insert(int entry, String key) {
+        int[] path = new int[key.length() + 1];
+        int depth = 0;
+        int node = ROOT;
+        path[depth++] = node;
+        int i = 0;
+        while (i < key.length()) {
+            int child = child(node, key.charAt(i));
+            if (child == NONE) {
+                child = newNode(key, i);
+                nextSibling[child] = firstChild[node];
+                firstChild[node] = child;
+                i = key.length();
+            } else {
+                int matched = 1;
+                int length = labelEnd[child] - labelStart[child];
+                while (matched < length && i + matched < key.length()
+                        && chars[labelStart[child] + matched] == key.charAt(i + matched)) {
+                    matched++;
+                }
+                if (matched < length) {
+                    child = split(node, child, matched);
+                }
+                i += matched;
+            }
+            node = child;
+            path[depth++] = node;
+        }
+        nextEntry[entry] = firstEntry[node];
+        firstEntry[node] = entry;
+        // Bottom up, so a list built here sees its children's lists already updated
+        for (int d = depth - 1; d >= 0; d--) {
+            int on = path[d];
+            counts[on]++;
+            if (tops[on] != null) {
+                offer(tops[on], entry);
+            } else if (counts[on] > width) {
+                tops[on] = top(on);
+            }
+        }
+    }
+
+    private void delete(int entry, String key) {
+        int[] path = new int[key.length() + 1];
+        int depth = 0;
+        int node = ROOT;
+        path[depth++] = node;
+        int i = 0;
+        while (i < key.length()) {
+            node = child(node, key.charAt(i));
+            i += labelEnd[node] - labelStart[node];
+            path[depth++] = node;
+        }
+        if (firstEntry[node] == entry) {
+            firstEntry[node] = nextEntry[entry];
+        } else {
+            int before = firstEntry[node];
+            while (nextEntry[before] != entry) {
+                before = nextEntry[before];
+            }
+            nextEntry[before] = nextEntry[entry];
+        }
+        for (int d = depth - 1; d >= 0; d--) {
+            int on = path[d];
+            counts[on]--;
+            if (counts[on] <= width) {
+                tops[on] = null;
+            } else if (contains(tops[on], entry)) {
+                tops[on] = top(on);
+            }
+        }
+    }
+
+    // The best entries under node, which holds more than width, from its children's lists
+    private int[] top(int node) {
+        int[] top = new int[width];
+        Arrays.fill(top, NONE);
+        for (int entry = firstEntry[node]; entry != NONE; entry = nextEntry[entry]) {
+            offer(top, entry);
+        }
+        int[] small = new int[width];
+        for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+            if (tops[child] != null) {
+                for (int entry : tops[child]) {
+                    offer(top, entry);
+                }
+            } else {
+                int size = collect(child, small, 0);
+                for (int i = 0; i < size; i++) {
+                    offer(top, small[i]);
+                }
+            }
+        }
+        return top;
+    }
+
+    // Inserts entry into a best-first list if it ranks high enough; NONE marks free places
+    private void offer(int[] top, int entry) {
+        int at = width;
+        while (at > 0 && (top[at - 1] == NONE || better(entry, top[at - 1]))) {
+            at--;
+        }
+        if (at < width) {
+            System.arraycopy(top, at, top, at + 1, width - at - 1);
+            top[at] = entry;
+        }
+    }
+
+    // Appends every entry under node, at most width of them as the node is not listed
+    private int collect(int node, int[] into, int size) {
+        for (int entry = firstEntry[node]; entry != NONE; entry = nextEntry[entry]) {
+            into[size++] = entry;
+        }
+        for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+            if (counts[child] > 0) {
+                size = collect(child, into, size);
+            }
+        }
+        return size;
+    }
+
+    private void sort(int[] entries, int size) {
+        for (int i = 1; i < size; i++) {
+            int entry = entries[i];
+            int j = i;
+            while (j > 0 && better(entry, entries[j - 1])) {
+                entries[j] = entries[j - 1];
+                j--;
+            }
+            entries[j] = entry;
+        }
+    }
+
+    // Larger population first, then names before capitals, then by name
+    private boolean better(int a, int b) {
+        int populationA = populations[a >> 1];
+        int populationB = populations[b >> 1];
+        if (populationA != populationB) {
+            return populationA > populationB;
+        }
+        if ((a & 1) != (b & 1)) {
+            return (a & 1) == 0;
+        }
+        return names[a >> 1].compareTo(names[b >> 1]) < 0;
+    }
+
+    private static boolean contains(int[] top, int entry) {
+        if (top != null) {
+            for (int listed : top) {
+                if (listed == entry) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean suggested(List<CountrySuggestionDto> suggestions, String name) {
+        for (int i = 0; i < suggestions.size(); i++) {
+            if (suggestions.get(i).getName().equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static char lower(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    private static boolean isCapital(int entry) {
+        return (entry & 1) == 1;
+    }
+
+    private int child(int node, char first) {
+        for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+            if (chars[labelStart[child]] == first) {
+                return child;
+            }
+        }
+        return NONE;
+    }
+
+    // Puts a new node labelled with the first `at` characters of child's label between node and child
+    private int split(int node, int child, int at) {
+        int middle = newNode(labelStart[child], labelStart[child] + at);
+        labelStart[child] += at;
+        counts[middle] = counts[child];
+        tops[middle] = tops[child] != null ? tops[child].clone() : null;
+        firstChild[middle] = child;
+        nextSibling[middle] = nextSibling[child];
+        nextSibling[child] = NONE;
+        if (firstChild[node] == child) {
+            firstChild[node] = middle;
+        } else {
+            int before = firstChild[node];
+            while (nextSibling[before] != child) {
+                before = nextSibling[before];
+            }
+            nextSibling[before] = middle;
+        }
+        return middle;
+    }
+
+    private int newNode(String key, int from) {
+        int length = key.length() - from;
+        if (charCount + length > chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(chars.length * 2, charCount + length));
+        }
+        key.getChars(from, key.length(), chars, charCount);
+        charCount += length;
+        return newNode(charCount - length, charCount);
+    }
+
+    private int newNode(int start, int end) {
+        if (nodes == labelStart.length) {
+            int capacity = nodes * 2;
+            labelStart = Arrays.copyOf(labelStart, capacity);
+            labelEnd = Arrays.copyOf(labelEnd, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            nextSibling = Arrays.copyOf(nextSibling, capacity);
+            firstEntry = Arrays.copyOf(firstEntry, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+            tops = Arrays.copyOf(tops, capacity);
+        }
+        int node = nodes++;
+        labelStart[node] = start;
+        labelEnd[node] = end;
+        firstChild[node] = NONE;
+        nextSibling[node] = NONE;
+        firstEntry[node] = NONE;
+        counts[node] = 0;
+        tops[node] = null;
+        return node;
+    }
+
+    private int allocate() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (slotCount == names.length) {
+            int capacity = slotCount * 2;
+            names = Arrays.copyOf(names, capacity);
+            capitals = Arrays.copyOf(capitals, capacity);
+            flags = Arrays.copyOf(flags, capacity);
+            populations = Arrays.copyOf(populations, capacity);
+            nextEntry = Arrays.copyOf(nextEntry, capacity * 2);
+        }
+        return slotCount++;
+    }
+
+    private void compact() {
+        List<Integer> live = new ArrayList<>(slots.values());
+        String[] liveNames = new String[live.size()];
+        String[] liveCapitals = new String[live.size()];
+        String[] liveFlags = new String[live.size()];
+        int[] livePopulations = new int[live.size()];
+        for (int i = 0; i < live.size(); i++) {
+            int slot = live.get(i);
+            liveNames[i] = names[slot];
+            liveCapitals[i] = capitals[slot];
+            liveFlags[i] = flags[slot];
+            livePopulations[i] = populations[slot];
+        }
+        clear();
+        for (int i = 0; i < liveNames.length; i++) {
+            index(liveNames[i], liveCapitals[i], livePopulations[i] >= 0 ? livePopulations[i] : null, liveFlags[i]);
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.flags.search;
+
+import com.flags.catalog.CatalogEntry;
+import com.flags.catalog.CatalogListener;
+import com.flags.catalog.CatalogSnapshot;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Typo-tolerant lookup of country names within a bounded Levenshtein distance.
+ * <p>
+ * Names are kept in a character trie. A query walks the trie depth first, computing one row of
+ * the edit-distance matrix per node, and abandons a branch as soon as every cell of its row
+ * exceeds the bound, which tightens further once {@code limit} candidates are held. This is the
+ * trie simulation of a Levenshtein automaton. The walk only touches rows and a {@link FuzzyTopK}
+ * borrowed from a small pool, so scoring does not allocate.
+ */
+@Component
+public class FuzzyCountryMatcher implements CatalogListener {
+
+    private static final int NONE = -1;
+    private static final int POOLED_SCRATCH = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+    private final int maxDistance;
+    private final int defaultLimit;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // A pool rather than a ThreadLocal: with virtual threads every request runs on a new thread,
+    // so per-thread buffers would be allocated for each query and then dropped
+    private final ArrayBlockingQueue<Scratch> scratch = new ArrayBlockingQueue<>(POOLED_SCRATCH);
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+
+    private char[] labels = new char[256];
+    private int[] firstChild = new int[256];
+    private int[] nextSibling = new int[256];
+    private String[][] terminals = new String[256][];
+    private int nodes;
+    private int depth;
+
+    public FuzzyCountryMatcher(@Value("${flags.search.fuzzy.max-distance:3}") int maxDistance,
+                               @Value("${flags.search.fuzzy.limit:10}") int defaultLimit) {
+        this.maxDistance = maxDistance;
+        this.defaultLimit = defaultLimit;
+        clear();
+    }
+
+    public SearchStats stats() {
+        return new SearchStats(searches.sum(), hits.sum());
+    }
+
+    public List<FuzzyMatch> search(String query) {
+        return search(query, defaultLimit);
+    }
+
+    /**
+     * Up to {@code limit} names closest to {@code query}, nearest first. The distance bound
+     * grows with the query: one edit per three characters, at least one and at most the
+     * configured maximum.
+     */
+    public List<FuzzyMatch> search(String query, int limit) {
+        String key = query == null ? "" : SearchText.normalize(query.trim());
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        searches.increment();
+        Scratch local = scratch.poll();
+        if (local == null) {
+            local = new Scratch();
+        }
+        List<FuzzyMatch> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            FuzzyTopK topK = local.topK(limit);
+            char[] chars = local.query(key);
+            walk(chars, key.length(), Math.min(maxDistance, Math.max(1, key.length() / 3)), topK, local.rows(depth, key.length()));
+            for (int i = 0; i < topK.size(); i++) {
+                for (String name : terminals[topK.node(i)]) {
+                    matches.add(new FuzzyMatch(name, topK.distance(i)));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+            // Dropped when the pool is full
+            scratch.offer(local);
+        }
+        matches.sort(Comparator.comparingInt(FuzzyMatch::distance).thenComparing(FuzzyMatch::name));
+        if (!matches.isEmpty()) {
+            hits.increment();
+        }
+        return matches.size() > limit ? matches.subList(0, limit) : matches;
+    }
+
+    public void add(String name) {
+        String key = SearchText.normalize(name);
+        lock.writeLock().lock();
+        try {
+            int node = 0;
+            for (int i = 0; i < key.length(); i++) {
+                node = child(node, key.charAt(i), true);
+            }
+            String[] names = terminals[node];
+            if (names == null) {
+                terminals[node] = new String[]{name};
+            } else if (!Arrays.asList(names).contains(name)) {
+                names = Arrays.copyOf(names, names.length + 1);
+                names[names.length - 1] = name;
+                terminals[node] = names;
+            }
+            depth = Math.max(depth, key.length());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Unlinks the name from its terminal node. The nodes themselves stay until the next rebuild.
+     */
+    public void remove(String name) {
+        String key = SearchText.normalize(name);
+        lock.writeLock().lock();
+        try {
+            int node = 0;
+            for (int i = 0; i < key.length() && node != NONE; i++) {
+                node = child(node, key.charAt(i), false);
+            }
+            if (node == NONE || terminals[node] == null) {
+                return;
+            }
+            String[] names = Arrays.stream(terminals[node]).filter(n -> !n.equals(name)).toArray(String[]::new);
+            terminals[node] = names.length == 0 ? null : names;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            Arrays.fill(terminals, 0, nodes, null);
+            nodes = 1;
+            depth = 0;
+            firstChild[0] = NONE;
+            nextSibling[0] = NONE;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onRebuild(CatalogSnapshot snapshot) {
+        lock.writeLock().lock();
+        try {
+            clear();
+            for (CatalogEntry entry : snapshot.entries()) {
+                add(entry.name());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onPut(CatalogEntry previous, CatalogEntry current) {
+        if (previous == null) {
+            add(current.name());
+        }
+    }
+
+    @Override
+    public void onRemove(CatalogEntry removed) {
+        remove(removed.name());
+    }
+
+    /**
+     * Scores the whole trie against {@code query[0..length)} into {@code topK}. Allocation free;
+     * {@code rows} needs one row of {@code length + 1} cells per trie level plus one.
+     */
+    public void walk(char[] query, int length, int bound, FuzzyTopK topK, int[][] rows) {
+        topK.reset();
+        int[] first = rows[0];
+        for (int j = 0; j <= length; j++) {
+            first[j] = j;
+        }
+        for (int child = firstChild[0]; child != NONE; child = nextSibling[child]) {
+            descend(child, 1, query, length, bound, topK, rows);
+        }
+    }
+
+    /**
+     * Length of the longest indexed key, i.e. the number of rows {@link #walk} needs minus one.
+     */
+    public int depth() {
+        return depth;
+    }
+
+    private void descend(int node, int level, char[] query, int length, int bound, FuzzyTopK topK, int[][] rows) {
+        int[] previous = rows[level - 1];
+        int[] row = rows[level];
+        char label = labels[node];
+        row[0] = level;
+        int rowMin = level;
+        for (int j = 1; j <= length; j++) {
+            int substitution = previous[j - 1] + (query[j - 1] == label ? 0 : 1);
+            int cell = Math.min(Math.min(previous[j] + 1, row[j - 1] + 1), substitution);
+            row[j] = cell;
+            if (cell < rowMin) {
+                rowMin = cell;
+            }
+        }
+        if (terminals[node] != null && row[length] <= topK.bound(bound)) {
+            topK.offer(node, row[length], terminals[node][0]);
+        }
+        if (rowMin > topK.bound(bound)) {
+            return;
+        }
+        for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+            descend(child, level + 1, query, length, bound, topK, rows);
+        }
+    }
+
+    private int child(int parent, char label, boolean create) {
+        for (int child = firstChild[parent]; child != NONE; child = nextSibling[child]) {
+            if (labels[child] == label) {
+                return child;
+            }
+        }
+        if (!create) {
+            return NONE;
+        }
+        if (nodes == labels.length) {
+            int capacity = nodes * 2;
+            labels = Arrays.copyOf(labels, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            nextSibling = Arrays.copyOf(nextSibling, capacity);
+            terminals = Arrays.copyOf(terminals, capacity);
+        }
+        int node = nodes++;
+        labels[node] = label;
+        firstChild[node] = NONE;
+        nextSibling[node] = firstChild[parent];
+        firstChild[parent] = node;
+        return node;
+    }
+
+    // Buffers for one query at a time, grown on demand so steady-state queries reuse them
+    private static final class Scratch {
+        private char[] query = new char[32];
+        private int[][] rows = new int[0][];
+        private FuzzyTopK topK;
+        private int topKCapacity;
+
+        char[] query(String key) {
+            if (query.length < key.length()) {
+                query = new char[key.length()];
+            }
+            key.getChars(0, key.length(), query, 0);
+            return query;
+        }
+
+        int[][] rows(int depth, int length) {
+            if (rows.length < depth + 1 || rows[0].length < length + 1) {
+                int width = Math.max(length + 1, rows.length == 0 ? 32 : rows[0].length);
+                rows = new int[Math.max(depth + 1, rows.length)][width];
+            }
+            return rows;
+        }
+
+        FuzzyTopK topK(int capacity) {
+            if (topK == null || topKCapacity != capacity) {
+                topK = new FuzzyTopK(capacity);
+                topKCapacity = capacity;
+            }
+            return topK;
+        }
+    }
+}
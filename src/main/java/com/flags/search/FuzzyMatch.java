@@ -0,0 +1,4 @@
+package com.flags.search;
+
+public record FuzzyMatch(String name, int distance) {
+}
@@ -0,0 +1,71 @@
+package com.flags.search;
+
+/**
+ * Fixed-capacity collector for the closest trie nodes found by {@link FuzzyCountryMatcher},
+ * ordered by distance and then name. It is reused across queries, so offering a candidate never
+ * allocates.
+ */
+public final class FuzzyTopK {
+
+    private final int[] nodes;
+    private final int[] distances;
+    private final String[] names;
+    private int size;
+
+    public FuzzyTopK(int capacity) {
+        nodes = new int[capacity];
+        distances = new int[capacity];
+        names = new String[capacity];
+    }
+
+    void reset() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    int node(int i) {
+        return nodes[i];
+    }
+
+    int distance(int i) {
+        return distances[i];
+    }
+
+    /**
+     * Largest distance still worth exploring: the current worst once full, otherwise {@code max}.
+     */
+    int bound(int max) {
+        return size < nodes.length ? max : Math.min(max, distances[worst()]);
+    }
+
+    void offer(int node, int distance, String name) {
+        if (size < nodes.length) {
+            set(size++, node, distance, name);
+            return;
+        }
+        int worst = worst();
+        if (distance < distances[worst] || (distance == distances[worst] && name.compareTo(names[worst]) < 0)) {
+            set(worst, node, distance, name);
+        }
+    }
+
+    private void set(int i, int node, int distance, String name) {
+        nodes[i] = node;
+        distances[i] = distance;
+        names[i] = name;
+    }
+
+    private int worst() {
+        int worst = 0;
+        for (int i = 1; i < size; i++) {
+            if (distances[i] > distances[worst]
+                    || (distances[i] == distances[worst] && names[i].compareTo(names[worst]) > 0)) {
+                worst = i;
+            }
+        }
+        return worst;
+    }
+}
@@ -0,0 +1,31 @@
+package com.flags.search;
+
+import java.util.Arrays;
+
+/**
+ * Growable {@code int[]} used for posting lists; values are appended in increasing order.
+ */
+final class IntList {
+
+    private int[] values = new int[4];
+    private int size;
+
+    void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    int last() {
+        return size == 0 ? -1 : values[size - 1];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int[] values() {
+        return values;
+    }
+}
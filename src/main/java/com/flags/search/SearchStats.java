@@ -0,0 +1,7 @@
+package com.flags.search;
+
+/**
+ * Searches served since startup, and how many of them found at least one country.
+ */
+public record SearchStats(long searches, long hits) {
+}
@@ -1,84 +1,427 @@
 package com.flags.services;
 
+import com.flags.catalog.CatalogEntry;
+import com.flags.catalog.CatalogSnapshot;
+import com.flags.catalog.ColumnarReadModel;
+import com.flags.catalog.CountryCatalog;
+import com.flags.catalog.EncodedBody;
+import com.flags.catalog.ListFormat;
+import com.flags.changes.ChangeLog;
+import com.flags.cluster.InvalidationBus;
+import com.flags.dto.CountryChangesDto;
 import com.flags.dto.CountryDetailDto;
 import com.flags.dto.CountryDto;
+import com.flags.dto.CountryMatchDto;
+import com.flags.dto.CountryPageDto;
+import com.flags.dto.CountrySuggestionDto;
 import com.flags.exceptions.CountryAlreadyExistsException;
 import com.flags.exceptions.CountryNotFoundException;
 import com.flags.exceptions.InvalidCountryDataException;
+import com.flags.exceptions.PreconditionFailedException;
+import com.flags.flagstore.FlagUrls;
 import com.flags.mappers.CountryMapper;
 import com.flags.models.Country;
 import com.flags.repositories.CountryRepository;
+import com.flags.search.CountrySearchIndex;
+import com.flags.search.CountrySuggester;
+import com.flags.search.FuzzyCountryMatcher;
+import com.flags.search.FuzzyMatch;
+import com.flags.writes.CountryWriteQueue;
 import lombok.AllArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.ETag;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
 
 @Service
 @AllArgsConstructor
 public class CountriesService {
 
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private static final Map<String, Function<CountryDetailDto, Object>> FIELDS = fields();
+
     private final CountryRepository countryRepository;
     private final CountryMapper countryMapper;
+    private final CountryCatalog countryCatalog;
+    private final CountrySearchIndex countrySearchIndex;
+    private final FuzzyCountryMatcher fuzzyCountryMatcher;
+    private final CountrySuggester countrySuggester;
+    private final ChangeLog changeLog;
+    private final InvalidationBus invalidationBus;
+    // Publishes to the invalidation bus itself once writes reach the database
+    private final Optional<CountryWriteQueue> writeQueue;
+    // Serves list and detail reads instead of the catalog entries when configured
+    private final Optional<ColumnarReadModel> readModel;
+
+    /**
+     * True when reads are served from memory without a repository round trip.
+     */
+    public boolean isCatalogLoaded() {
+        return countryCatalog.isLoaded();
+    }
+
+    /**
+     * Catalog version, which changes with every write.
+     */
+    public long getCatalogVersion() {
+        return countryCatalog.snapshot().version();
+    }
+
+    /**
+     * Catalog version at which {@code name} was last written.
+     */
+    public long getCountryVersion(String name) {
+        CatalogEntry entry = countryCatalog.snapshot().find(name);
+        if (entry == null) {
+            throw new CountryNotFoundException(name);
+        }
+        return entry.version();
+    }
 
     public List<CountryDto> getAllCountries() {
-        return countryRepository.findAll().stream()
-                .map(countryMapper::toCountryDto)
-                .collect(Collectors.toList());
+        if (readModel.isPresent()) {
+            return readModel.get().countries();
+        }
+        return countryCatalog.snapshot().countries();
+    }
+
+    public EncodedBody getAllCountriesBody() {
+        return getAllCountriesBody(ListFormat.JSON);
+    }
+
+    public EncodedBody getAllCountriesBody(ListFormat format) {
+        if (readModel.isPresent() && format == ListFormat.JSON) {
+            return readModel.get().listBody();
+        }
+        return countryCatalog.listBody(format);
     }
 
     public CountryDetailDto getCountryByName(String name) {
         if (name == null || name.trim().isEmpty()) {
             throw new InvalidCountryDataException("Country name must be provided.");
         }
-        return countryRepository.findById(name)
-                .map(countryMapper::toCountryDetailDto)
-                .orElseThrow(() -> new CountryNotFoundException(name));
+        if (readModel.isPresent()) {
+            CountryDetailDto detail = readModel.get().find(name);
+            if (detail == null) {
+                throw new CountryNotFoundException(name);
+            }
+            return detail;
+        }
+        CatalogEntry entry = countryCatalog.snapshot().find(name);
+        if (entry == null) {
+            throw new CountryNotFoundException(name);
+        }
+        return entry.detail();
+    }
+
+    public EncodedBody getCountryBody(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new InvalidCountryDataException("Country name must be provided.");
+        }
+        EncodedBody body = readModel.isPresent() ? readModel.get().detailBody(name) : countryCatalog.detailBody(name);
+        if (body == null) {
+            throw new CountryNotFoundException(name);
+        }
+        return body;
     }
 
 
+    /**
+     * One page of countries in name order, with only the requested {@code fields} (name and flag
+     * by default). {@code after} is the cursor returned as {@code next} by the previous page.
+     */
+    public CountryPageDto getCountriesPage(String after, int limit, String fields) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new InvalidCountryDataException("Page limit must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
+        List<Map.Entry<String, Function<CountryDetailDto, Object>>> projection = projection(fields);
+        List<CatalogEntry> entries = countryCatalog.snapshot().page(PageCursor.decode(after), limit + 1);
+        boolean more = entries.size() > limit;
+        if (more) {
+            entries = entries.subList(0, limit);
+        }
+        List<Map<String, Object>> items = new ArrayList<>(entries.size());
+        for (CatalogEntry entry : entries) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            for (Map.Entry<String, Function<CountryDetailDto, Object>> field : projection) {
+                item.put(field.getKey(), field.getValue().apply(entry.detail()));
+            }
+            items.add(item);
+        }
+        String next = more ? PageCursor.encode(entries.get(entries.size() - 1).name()) : null;
+        return new CountryPageDto(items, next);
+    }
+
+    public List<CountryDetailDto> getMostPopulousCountries(int n) {
+        if (n < 1 || n > MAX_PAGE_SIZE) {
+            throw new InvalidCountryDataException("n must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
+        return details(countryCatalog.snapshot().indexes().topByPopulation(n));
+    }
+
+    public List<CountryDetailDto> getCountriesByPopulation(int min, int max, int limit) {
+        if (min > max) {
+            throw new InvalidCountryDataException("min must not be greater than max.");
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new InvalidCountryDataException("Limit must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
+        return details(countryCatalog.snapshot().indexes().populationBetween(min, max, limit));
+    }
+
+    public List<CountryDetailDto> getCountriesByCapital(String capital) {
+        if (capital == null || capital.trim().isEmpty()) {
+            throw new InvalidCountryDataException("Capital must be provided.");
+        }
+        return details(countryCatalog.snapshot().indexes().byCapital(capital.trim()));
+    }
+
     // For illustration
     public CountryDetailDto createCountry(CountryDetailDto newCountry) {
         if (newCountry == null || newCountry.getName() == null || newCountry.getName().trim().isEmpty()) {
             throw new InvalidCountryDataException("Country data is invalid.");
         }
-        if (countryRepository.existsById(newCountry.getName())) {
-            throw new CountryAlreadyExistsException(newCountry.getName());
+        if (writeQueue.isPresent()) {
+            // The catalog includes queued writes, and its lock makes the check and the write atomic
+            return countryCatalog.put(() -> {
+                if (countryCatalog.snapshot().find(newCountry.getName()) != null) {
+                    throw new CountryAlreadyExistsException(newCountry.getName());
+                }
+                Country country = countryMapper.toCountry(newCountry);
+                // Hibernate's first version, which the queue has to assign itself
+                country.setVersion(0L);
+                return writeQueue.get().put(country, null, true);
+            }).detail();
         }
-        Country country = countryMapper.toCountry(newCountry);
-        Country saved = countryRepository.save(country);
-        return countryMapper.toCountryDetailDto(saved);
+        CountryDetailDto created = countryCatalog.put(() -> {
+            if (countryRepository.existsById(newCountry.getName())) {
+                throw new CountryAlreadyExistsException(newCountry.getName());
+            }
+            Country country = countryMapper.toCountry(newCountry);
+            return countryRepository.save(country);
+        }).detail();
+        invalidationBus.publish(created.getName());
+        return created;
     }
 
     // For illustration
     public CountryDetailDto updateCountry(String name, CountryDetailDto updatedCountry) {
+        return updateCountry(name, updatedCountry, null);
+    }
+
+    /**
+     * Replaces {@code name} if its current ETag matches {@code ifMatch}, or unconditionally when
+     * {@code ifMatch} is null.
+     *
+     * @throws PreconditionFailedException when the country has been written since
+     */
+    public CountryDetailDto updateCountry(String name, CountryDetailDto updatedCountry, String ifMatch) {
         if (updatedCountry == null) {
             throw new InvalidCountryDataException("Country data is invalid.");
         }
-        if (!countryRepository.existsById(name)) {
-            throw new CountryNotFoundException(name);
+        if (writeQueue.isPresent()) {
+            // Queued rows are not in the database yet, so the catalog entry carries the version.
+            // A write with If-Match is applied now, conditional on that version, so that losing to
+            // a writer on another node fails instead of being dropped after the client's 200
+            CountryDetailDto updated = countryCatalog.put(() -> {
+                CatalogEntry existing = countryCatalog.snapshot().find(name);
+                if (existing == null) {
+                    throw new CountryNotFoundException(name);
+                }
+                checkIfMatch(name, ifMatch, existing.detail().getVersion());
+                Country country = toCountry(name, updatedCountry, existing.flagOrigin());
+                Long base = existing.detail().getVersion();
+                country.setVersion(base != null ? base + 1 : 0L);
+                if (ifMatch == null) {
+                    return writeQueue.get().put(country, base, false);
+                }
+                if (!writeQueue.get().updateNow(country, base)) {
+                    throw new PreconditionFailedException(name);
+                }
+                return country;
+            }).detail();
+            if (ifMatch != null) {
+                // The queue only announces the writes it flushes
+                invalidationBus.publish(name);
+            }
+            return updated;
         }
-        Country country = countryMapper.toCountry(updatedCountry);
-        country.setName(name);
-        Country saved = countryRepository.save(country);
-        return countryMapper.toCountryDetailDto(saved);
+        CountryDetailDto updated = countryCatalog.put(() -> {
+            Country existing = countryRepository.findById(name).orElseThrow(() -> new CountryNotFoundException(name));
+            checkIfMatch(name, ifMatch, existing.getVersion());
+            Country country = toCountry(name, updatedCountry, existing.getFlag());
+            // The update is conditional on the version read above, which catches writers in
+            // other instances between the read and the save
+            country.setVersion(existing.getVersion());
+            try {
+                return countryRepository.save(country);
+            } catch (OptimisticLockingFailureException e) {
+                throw new PreconditionFailedException(name);
+            }
+        }).detail();
+        invalidationBus.publish(name);
+        return updated;
     }
 
     // For illustration
     public boolean deleteCountry(String name) {
-        if (!countryRepository.existsById(name)) {
-            throw new CountryNotFoundException(name);
+        return deleteCountry(name, null);
+    }
+
+    /**
+     * Deletes {@code name} if its current ETag matches {@code ifMatch}, or unconditionally when
+     * {@code ifMatch} is null.
+     *
+     * @throws PreconditionFailedException when the country has been written since
+     */
+    public boolean deleteCountry(String name, String ifMatch) {
+        if (writeQueue.isPresent()) {
+            countryCatalog.remove(name, () -> {
+                CatalogEntry existing = countryCatalog.snapshot().find(name);
+                if (existing == null) {
+                    throw new CountryNotFoundException(name);
+                }
+                checkIfMatch(name, ifMatch, existing.detail().getVersion());
+                if (ifMatch == null) {
+                    writeQueue.get().delete(name, existing.detail().getVersion(), false);
+                } else if (!writeQueue.get().deleteNow(name, existing.detail().getVersion())) {
+                    throw new PreconditionFailedException(name);
+                }
+            });
+            if (ifMatch != null) {
+                invalidationBus.publish(name);
+            }
+            return true;
         }
-        countryRepository.deleteById(name);
+        countryCatalog.remove(name, () -> {
+            Country existing = countryRepository.findById(name).orElseThrow(() -> new CountryNotFoundException(name));
+            checkIfMatch(name, ifMatch, existing.getVersion());
+            try {
+                countryRepository.delete(existing);
+            } catch (OptimisticLockingFailureException e) {
+                throw new PreconditionFailedException(name);
+            }
+        });
+        invalidationBus.publish(name);
         return true;
     }
 
+    // If-Match uses strong comparison, so weak tags never match (RFC 9110, 13.1.1). A client that
+    // was sent the gzipped body holds that copy's tag, which names the same version
+    private static void checkIfMatch(String name, String ifMatch, Long version) {
+        if (ifMatch == null) {
+            return;
+        }
+        String current = CountryCatalog.etag(version);
+        String gzipped = EncodedBody.gzipEtag(current);
+        for (ETag tag : ETag.parse(ifMatch)) {
+            if (tag.isWildcard() || (!tag.weak() && (tag.formattedTag().equals(current) || tag.formattedTag().equals(gzipped)))) {
+                return;
+            }
+        }
+        throw new PreconditionFailedException(name);
+    }
+
+    private Country toCountry(String name, CountryDetailDto dto, String existingFlag) {
+        Country country = countryMapper.toCountry(dto);
+        country.setName(name);
+        // Clients echo back the /flags URL they were given, which must not replace the origin
+        if (FlagUrls.isLocal(country.getFlag())) {
+            country.setFlag(existingFlag);
+        }
+        return country;
+    }
+
     public List<CountryDto> searchCountriesByName(String search) {
         if (search == null || search.trim().isEmpty()) {
             return getAllCountries();
         }
-        return countryRepository.findByNameContainingIgnoreCase(search).stream()
-                .map(countryMapper::toCountryDto)
-                .collect(Collectors.toList());
+        // Reading the snapshot first brings the index up to date if the catalog was invalidated
+        CatalogSnapshot snapshot = countryCatalog.snapshot();
+        return countrySearchIndex.search(search).stream()
+                .map(snapshot::find)
+                .filter(Objects::nonNull)
+                .map(CatalogEntry::summary)
+                .toList();
+    }
+
+    public List<CountryMatchDto> fuzzySearchCountriesByName(String search) {
+        if (search == null || search.trim().isEmpty()) {
+            throw new InvalidCountryDataException("Search term must be provided.");
+        }
+        CatalogSnapshot snapshot = countryCatalog.snapshot();
+        List<CountryMatchDto> matches = new ArrayList<>();
+        for (FuzzyMatch match : fuzzyCountryMatcher.search(search)) {
+            CatalogEntry entry = snapshot.find(match.name());
+            if (entry != null) {
+                CountryMatchDto dto = new CountryMatchDto();
+                dto.setName(entry.name());
+                dto.setFlag(entry.summary().getFlag());
+                dto.setDistance(match.distance());
+                matches.add(dto);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Type-ahead suggestions for {@code query}; {@code limit} defaults to the suggester's maximum.
+     */
+    public List<CountrySuggestionDto> suggestCountries(String query, Integer limit) {
+        int max = countrySuggester.limit();
+        if (limit != null && (limit < 1 || limit > max)) {
+            throw new InvalidCountryDataException("Limit must be between 1 and " + max + ".");
+        }
+        countryCatalog.snapshot();
+        return countrySuggester.suggest(query, limit != null ? limit : max);
+    }
+
+    /**
+     * Writes after {@code since}, compacted to the latest change per country.
+     */
+    public CountryChangesDto getChanges(long since, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new InvalidCountryDataException("Limit must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
+        // Reading the snapshot first moves the log past a pending rebuild, instead of serving
+        // changes that the rebuild is about to invalidate
+        countryCatalog.snapshot();
+        return changeLog.since(since, limit);
+    }
+
+    private static List<CountryDetailDto> details(List<CatalogEntry> entries) {
+        return entries.stream().map(CatalogEntry::detail).toList();
+    }
+
+    private static List<Map.Entry<String, Function<CountryDetailDto, Object>>> projection(String fields) {
+        if (fields == null || fields.isBlank()) {
+            fields = "name,flag";
+        }
+        List<Map.Entry<String, Function<CountryDetailDto, Object>>> projection = new ArrayList<>();
+        for (String field : fields.split(",")) {
+            Function<CountryDetailDto, Object> getter = FIELDS.get(field.trim());
+            if (getter == null) {
+                throw new InvalidCountryDataException("Unknown field: " + field.trim() + ". Allowed: " + FIELDS.keySet());
+            }
+            projection.add(Map.entry(field.trim(), getter));
+        }
+        return projection;
+    }
+
+    private static Map<String, Function<CountryDetailDto, Object>> fields() {
+        Map<String, Function<CountryDetailDto, Object>> fields = new LinkedHashMap<>();
+        fields.put("name", CountryDetailDto::getName);
+        fields.put("flag", CountryDetailDto::getFlag);
+        fields.put("population", CountryDetailDto::getPopulation);
+        fields.put("capital", CountryDetailDto::getCapital);
+        return fields;
     }
-}
\ No newline at end of file
+}
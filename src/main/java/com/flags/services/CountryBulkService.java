@@ -0,0 +1,167 @@
+package com.flags.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flags.catalog.CountryCatalog;
+import com.flags.cluster.InvalidationBus;
+import com.flags.dto.BulkImportReportDto;
+import com.flags.dto.CountryDetailDto;
+import com.flags.exceptions.InvalidCountryDataException;
+import com.flags.loader.CatalogProperties;
+import com.flags.loader.CountryBatchWriter;
+import com.flags.mappers.CountryMapper;
+import com.flags.models.Country;
+import com.flags.repositories.CountryRepository;
+import com.flags.validation.CountryValidator;
+import com.flags.writes.CountryWriteQueue;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * NDJSON import and export of the whole country table. Both sides stream, so memory use depends
+ * on the batch size and not on the number of rows.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CountryBulkService {
+
+    static final int MAX_REPORTED_ERRORS = 100;
+
+    private final CountryRepository countryRepository;
+    private final CountryMapper countryMapper;
+    private final CountryValidator countryValidator;
+    private final CountryBatchWriter batchWriter;
+    private final CountryCatalog countryCatalog;
+    private final InvalidationBus invalidationBus;
+    private final CatalogProperties catalogProperties;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+    private final Optional<CountryWriteQueue> writeQueue;
+
+    /**
+     * Creates one country per line. Invalid lines, names that already exist and names repeated
+     * within a batch are reported and skipped; the other lines are still imported. With
+     * write-behind, queued writes are flushed before each batch, so that its existence check sees
+     * them.
+     */
+    public BulkImportReportDto importCountries(InputStream ndjson) throws IOException {
+        BulkImportReportDto report = new BulkImportReportDto();
+        Map<String, Long> batch = new LinkedHashMap<>();
+        List<Country> countries = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(ndjson, StandardCharsets.UTF_8));
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            report.setRead(report.getRead() + 1);
+            CountryDetailDto dto;
+            try {
+                dto = objectMapper.readValue(line, CountryDetailDto.class);
+                countryValidator.validateForCreate(dto);
+            } catch (JsonProcessingException e) {
+                fail(report, lineNumber, null, "Malformed JSON: " + e.getOriginalMessage());
+                continue;
+            } catch (InvalidCountryDataException e) {
+                fail(report, lineNumber, null, e.getMessage());
+                continue;
+            }
+            if (batch.putIfAbsent(dto.getName(), lineNumber) != null) {
+                fail(report, lineNumber, dto.getName(), "Duplicate name in this import");
+                continue;
+            }
+            countries.add(countryMapper.toCountry(dto));
+            if (countries.size() == catalogProperties.batchSize()) {
+                writeBatch(batch, countries, report);
+            }
+        }
+        writeBatch(batch, countries, report);
+        if (report.getCreated() > 0) {
+            countryCatalog.invalidate();
+            invalidationBus.publish(null);
+        }
+        log.info("Bulk import: {} read, {} created, {} failed", report.getRead(), report.getCreated(), report.getFailed());
+        return report;
+    }
+
+    /**
+     * Writes every country as one JSON line, in name order, with the flag's origin URL so the
+     * output can be imported again. Rows are read through a cursor and detached once written.
+     */
+    @Transactional(readOnly = true)
+    public void exportCountries(OutputStream target) throws IOException {
+        OutputStream out = new BufferedOutputStream(target, 64 * 1024);
+        try (Stream<Country> countries = countryRepository.streamAllByOrderByNameAsc()) {
+            for (Country country : (Iterable<Country>) countries::iterator) {
+                out.write(objectMapper.writeValueAsBytes(country));
+                out.write('\n');
+                entityManager.detach(country);
+            }
+        }
+        out.flush();
+    }
+
+    private void writeBatch(Map<String, Long> batch, List<Country> countries, BulkImportReportDto report) {
+        if (countries.isEmpty()) {
+            return;
+        }
+        // Rows go straight to the database rather than through the queue, which would fill up
+        writeQueue.ifPresent(CountryWriteQueue::flush);
+        Set<String> existing = new HashSet<>();
+        for (Country country : countryRepository.findAllById(batch.keySet())) {
+            existing.add(country.getName());
+        }
+        List<Country> fresh = new ArrayList<>(countries.size());
+        for (Country country : countries) {
+            if (existing.contains(country.getName())) {
+                fail(report, batch.get(country.getName()), country.getName(), "Country already exists");
+            } else {
+                fresh.add(country);
+            }
+        }
+        try {
+            if (!fresh.isEmpty()) {
+                batchWriter.insert(fresh);
+            }
+            report.setCreated(report.getCreated() + fresh.size());
+        } catch (RuntimeException e) {
+            // Another writer got in between the existence check and the insert
+            for (Country country : fresh) {
+                fail(report, batch.get(country.getName()), country.getName(), "Batch insert failed: " + e.getMessage());
+            }
+        }
+        batch.clear();
+        countries.clear();
+    }
+
+    private static void fail(BulkImportReportDto report, long line, String name, String message) {
+        report.setFailed(report.getFailed() + 1);
+        if (report.getErrors().size() < MAX_REPORTED_ERRORS) {
+            report.getErrors().add(new BulkImportReportDto.LineError(line, name, message));
+        } else {
+            report.setErrorsTruncated(true);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.flags.services;
+
+import com.flags.exceptions.InvalidCountryDataException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor: the last country name of a page, base64url encoded. Clients pass it back
+ * as {@code after} and must not rely on what is inside.
+ */
+final class PageCursor {
+
+    private static final String PREFIX = "n:";
+
+    private PageCursor() {
+    }
+
+    static String encode(String lastName) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + lastName).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (value.startsWith(PREFIX)) {
+                return value.substring(PREFIX.length());
+            }
+        } catch (IllegalArgumentException e) {
+            // Reported below
+        }
+        throw new InvalidCountryDataException("Invalid page cursor: " + cursor);
+    }
+}
@@ -0,0 +1,452 @@
+package com.flags.writes;
+
+import com.flags.catalog.CatalogListener;
+import com.flags.catalog.CountryCatalog;
+import com.flags.cluster.InvalidationBus;
+import com.flags.exceptions.WriteQueueFullException;
+import com.flags.models.Country;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pending country writes, applied to the database in batches by a background thread.
+ * <p>
+ * Callers update the catalog first, so reads see a write as soon as it is queued. The queue
+ * holds at most one write per country: a second write to a country that is still pending
+ * replaces the first in place, and only countries without a pending write count against the
+ * capacity. A batch is one transaction; a batch that fails goes back to the front of the queue,
+ * behind nothing that superseded it.
+ * <p>
+ * Each write carries the row version it was based on, and only applies while the database still
+ * has that version, so writers on different nodes cannot silently overwrite each other. When the
+ * row has moved on, a queued update or delete is applied over the newer row with the next version,
+ * and a queued create is dropped; either way the country is then re-read into the catalog. Writes
+ * made with {@code If-Match} are not queued: {@link #updateNow} and {@link #deleteNow} apply them
+ * at once, so a write that lost to another node can still fail.
+ * <p>
+ * Everything pending is written before the catalog reloads from the database, and when the
+ * application stops, after the web server has stopped taking requests. Other nodes hear of a
+ * write through the {@link InvalidationBus} once its batch is committed. Until then, the catalog
+ * does not refresh a country from the database on their writes, which would replace the queued
+ * write with an older row; those countries are refreshed after the flush instead.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "flags.writes", name = "write-behind", havingValue = "true")
+public class CountryWriteQueue implements CatalogListener, SmartLifecycle {
+
+    private static final String INSERT = "insert into country (name, flag, population, capital, version) "
+            + "select ?, ?, ?, ?, ? where not exists (select 1 from country where name = ?)";
+    private static final String UPDATE = "update country set flag = ?, population = ?, capital = ?, version = ? "
+            + "where name = ? and version = ?";
+    private static final String DELETE = "delete from country where name = ? and version = ?";
+    // For writes without If-Match that lost a race
+    private static final String FORCE_UPDATE = "update country set flag = ?, population = ?, capital = ?, version = version + 1 "
+            + "where name = ?";
+    private static final String FORCE_INSERT = "insert into country (name, flag, population, capital, version) values (?, ?, ?, ?, ?)";
+    private static final String FORCE_DELETE = "delete from country where name = ?";
+
+    private final WriteBehindProperties properties;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transactions;
+    // Looked up on use: the bus refreshes the catalog, which holds this queue as a listener
+    private final ObjectProvider<InvalidationBus> invalidationBus;
+    private final ObjectProvider<CountryCatalog> countryCatalog;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition queued = lock.newCondition();
+    // Guarded by lock
+    private LinkedHashMap<String, Write> pending = new LinkedHashMap<>();
+    // Guarded by lock: names in the batch being applied, and names to re-read into the catalog
+    // after the flush, because a refresh was skipped while they were pending or they conflicted
+    private final Set<String> inFlight = new HashSet<>();
+    private final Set<String> staleNames = new LinkedHashSet<>();
+    // Held while a batch is taken and applied, so batches reach the database in queue order
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public CountryWriteQueue(WriteBehindProperties properties, JdbcTemplate jdbc, PlatformTransactionManager transactionManager,
+                             ObjectProvider<InvalidationBus> invalidationBus, ObjectProvider<CountryCatalog> countryCatalog) {
+        this.properties = properties;
+        this.jdbc = jdbc;
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.invalidationBus = invalidationBus;
+        this.countryCatalog = countryCatalog;
+    }
+
+    /**
+     * Queues a create or update of {@code country}.
+     *
+     * @param baseVersion version of the row the write replaces, {@code null} for a create
+     * @param conditional whether the write is dropped, rather than forced, if the row has moved on
+     * @return {@code country}, for passing straight to the catalog
+     * @throws WriteQueueFullException if the country has no pending write and the queue is full
+     */
+    public Country put(Country country, Long baseVersion, boolean conditional) {
+        enqueue(new Write(country.getName(), country, baseVersion, conditional));
+        return country;
+    }
+
+    public void delete(String name, Long baseVersion, boolean conditional) {
+        enqueue(new Write(name, null, baseVersion, conditional));
+    }
+
+    /**
+     * Updates {@code country} in the database now, if the row still has {@code baseVersion}.
+     * A write queued for the country is written first, as the update is based on it. Callers hold
+     * the catalog lock, so nothing can be queued for the country meanwhile.
+     *
+     * @return whether the update was applied; {@code false} if another write got there first
+     */
+    public boolean updateNow(Country country, Long baseVersion) {
+        settle(country.getName());
+        return applied(jdbc.update(UPDATE, country.getFlag(), country.getPopulation(), country.getCapital(), country.getVersion(),
+                country.getName(), baseVersion));
+    }
+
+    /**
+     * Deletes {@code name} from the database now, if its row still has {@code baseVersion}; see
+     * {@link #updateNow}.
+     */
+    public boolean deleteNow(String name, Long baseVersion) {
+        settle(name);
+        return applied(jdbc.update(DELETE, name, baseVersion));
+    }
+
+    /**
+     * Writes everything queued so far, and anything queued while doing so, before returning.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            List<Write> batch;
+            while (!(batch = take()).isEmpty()) {
+                try {
+                    apply(batch);
+                } catch (RuntimeException e) {
+                    requeue(batch);
+                    throw e;
+                } finally {
+                    landed(batch);
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+        // Outside the flush lock: a catalog reload holds the catalog lock while it waits for that one
+        refreshSkipped();
+    }
+
+    public WriteQueueStats stats() {
+        lock.lock();
+        try {
+            return new WriteQueueStats(pending.size(), accepted.sum(), coalesced.sum(), rejected.sum(), written.sum(), batches.sum(),
+                    conflicts.sum());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void beforeRebuild() {
+        flush();
+    }
+
+    @Override
+    public boolean holdsPendingWrite(String name) {
+        lock.lock();
+        try {
+            if (pending.containsKey(name) || inFlight.contains(name)) {
+                staleNames.add(name);
+                return true;
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        writer = Thread.ofPlatform().name("country-writer").daemon().start(this::run);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        writer.interrupt();
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Could not write {} pending country changes on shutdown", stats().pending(), e);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // After the web server's graceful shutdown, so no request can queue a write behind the last flush
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void enqueue(Write write) {
+        lock.lock();
+        try {
+            Write earlier = pending.get(write.name());
+            if (earlier != null) {
+                coalesced.increment();
+                write = write.after(earlier);
+            } else if (pending.size() >= properties.queueCapacity()) {
+                rejected.increment();
+                throw new WriteQueueFullException(properties.queueCapacity());
+            }
+            pending.put(write.name(), write);
+            accepted.increment();
+            if (pending.size() >= properties.batchSize()) {
+                queued.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void settle(String name) {
+        boolean queued;
+        lock.lock();
+        try {
+            queued = pending.containsKey(name) || inFlight.contains(name);
+        } finally {
+            lock.unlock();
+        }
+        if (queued) {
+            flush();
+        }
+    }
+
+    private boolean applied(int count) {
+        if (count == 0) {
+            conflicts.increment();
+            return false;
+        }
+        written.increment();
+        return true;
+    }
+
+    private void run() {
+        long interval = properties.flushInterval().toNanos();
+        while (running) {
+            lock.lock();
+            try {
+                long nanos = interval;
+                while (running && pending.size() < properties.batchSize() && nanos > 0) {
+                    nanos = queued.awaitNanos(nanos);
+                }
+            } catch (InterruptedException e) {
+                // stop() writes what is left
+                return;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                log.warn("Writing {} pending country changes failed, retrying: {}", stats().pending(), e.toString());
+                try {
+                    Thread.sleep(properties.flushInterval());
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private List<Write> take() {
+        lock.lock();
+        try {
+            List<Write> batch = new ArrayList<>(Math.min(pending.size(), properties.batchSize()));
+            Iterator<Write> oldest = pending.values().iterator();
+            while (batch.size() < properties.batchSize() && oldest.hasNext()) {
+                Write write = oldest.next();
+                batch.add(write);
+                inFlight.add(write.name());
+                oldest.remove();
+            }
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void landed(List<Write> batch) {
+        lock.lock();
+        try {
+            for (Write write : batch) {
+                inFlight.remove(write.name());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Picks up writes from other nodes that arrived while this node's own write was queued, and the
+    // database's version of rows that conflicted
+    private void refreshSkipped() {
+        CountryCatalog catalog = countryCatalog.getIfAvailable();
+        if (catalog == null || !running) {
+            return;
+        }
+        List<String> names;
+        lock.lock();
+        try {
+            names = new ArrayList<>(staleNames);
+            staleNames.clear();
+        } finally {
+            lock.unlock();
+        }
+        for (String name : names) {
+            catalog.refresh(name);
+        }
+    }
+
+    private void requeue(List<Write> batch) {
+        lock.lock();
+        try {
+            LinkedHashMap<String, Write> merged = new LinkedHashMap<>();
+            for (Write write : batch) {
+                merged.put(write.name(), write);
+            }
+            // Writes queued since the batch was taken are newer and win, from the batch's base version
+            for (Write write : pending.values()) {
+                Write earlier = merged.get(write.name());
+                merged.put(write.name(), earlier != null ? write.after(earlier) : write);
+            }
+            pending = merged;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void apply(List<Write> batch) {
+        List<Write> inserts = new ArrayList<>();
+        List<Write> updates = new ArrayList<>();
+        List<Write> deletes = new ArrayList<>();
+        List<Write> unconditional = new ArrayList<>();
+        for (Write write : batch) {
+            if (write.country() != null) {
+                (write.baseVersion() == null ? inserts : updates).add(write);
+            } else if (write.baseVersion() != null) {
+                deletes.add(write);
+            } else if (!write.conditional()) {
+                // Created and deleted while queued; the row should not exist, but a client that
+                // deleted without If-Match wants it gone either way
+                unconditional.add(write);
+            }
+        }
+        List<String> conflicted = new ArrayList<>();
+        // Each country appears once per batch, so the statements commute
+        transactions.executeWithoutResult(status -> {
+            List<Write> lost = new ArrayList<>();
+            lost.addAll(lost(inserts, jdbc.batchUpdate(INSERT, inserts.stream().map(write -> {
+                Country c = write.country();
+                return new Object[]{c.getName(), c.getFlag(), c.getPopulation(), c.getCapital(), c.getVersion(), c.getName()};
+            }).toList())));
+            lost.addAll(lost(updates, jdbc.batchUpdate(UPDATE, updates.stream().map(write -> {
+                Country c = write.country();
+                return new Object[]{c.getFlag(), c.getPopulation(), c.getCapital(), c.getVersion(), c.getName(), write.baseVersion()};
+            }).toList())));
+            lost.addAll(lost(deletes, jdbc.batchUpdate(DELETE, deletes.stream()
+                    .map(write -> new Object[]{write.name(), write.baseVersion()}).toList())));
+            for (Write write : lost) {
+                if (!write.conditional()) {
+                    force(write);
+                }
+            }
+            for (Write write : unconditional) {
+                force(write);
+            }
+            lost.forEach(write -> conflicted.add(write.name()));
+        });
+        written.add(batch.size());
+        batches.increment();
+        if (!conflicted.isEmpty()) {
+            conflicts.add(conflicted.size());
+            log.info("{} queued country writes conflicted with newer rows: {}", conflicted.size(), conflicted);
+            lock.lock();
+            try {
+                staleNames.addAll(conflicted);
+            } finally {
+                lock.unlock();
+            }
+        }
+        InvalidationBus bus = invalidationBus.getIfAvailable();
+        if (bus != null) {
+            for (Write write : batch) {
+                bus.publish(write.name());
+            }
+        }
+    }
+
+    private static List<Write> lost(List<Write> writes, int[] counts) {
+        List<Write> lost = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                lost.add(writes.get(i));
+            }
+        }
+        return lost;
+    }
+
+    private void force(Write write) {
+        Country c = write.country();
+        if (c == null) {
+            jdbc.update(FORCE_DELETE, write.name());
+        } else if (jdbc.update(FORCE_UPDATE, c.getFlag(), c.getPopulation(), c.getCapital(), c.getName()) == 0) {
+            jdbc.update(FORCE_INSERT, c.getName(), c.getFlag(), c.getPopulation(), c.getCapital(), c.getVersion());
+        }
+    }
+
+    // country is null for a delete; baseVersion is null when the row did not exist
+    private record Write(String name, Country country, Long baseVersion, boolean conditional) {
+
+        // This write replacing an earlier one that never reached the database
+        Write after(Write earlier) {
+            return new Write(name, country, earlier.baseVersion, conditional || earlier.conditional);
+        }
+    }
+}
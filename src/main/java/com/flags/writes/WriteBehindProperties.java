@@ -0,0 +1,23 @@
+package com.flags.writes;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Optional write-behind for country creates, updates and deletes.
+ *
+ * @param writeBehind   queue writes and apply them in batches; off writes each request through
+ * @param queueCapacity countries with a pending write; writes to further countries get a 429
+ * @param batchSize     writes applied per transaction
+ * @param flushInterval longest a write waits before its batch is applied, and the retry delay
+ *                      after a failed batch
+ */
+@ConfigurationProperties(prefix = "flags.writes")
+public record WriteBehindProperties(
+        @DefaultValue("false") boolean writeBehind,
+        @DefaultValue("10000") int queueCapacity,
+        @DefaultValue("500") int batchSize,
+        @DefaultValue("100ms") Duration flushInterval) {
+}
@@ -0,0 +1,5 @@
+package com.flags.writes;
+
+public record WriteQueueStats(int pending, long accepted, long coalesced, long rejected, long written, long batches,
+                              long conflicts) {
+}
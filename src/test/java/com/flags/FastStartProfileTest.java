@@ -0,0 +1,54 @@
+package com.flags;
+
+import com.flags.repositories.CountryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"test", "fast-start"})
+class FastStartProfileTest {
+
+    private static final Duration READY_WITHIN = Duration.ofSeconds(30);
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private CountryRepository countryRepository;
+
+    @Test
+    void becomesReadyOnceTheCatalogIsLoaded() throws InterruptedException {
+        long deadline = System.nanoTime() + READY_WITHIN.toNanos();
+        while (restTemplate.getForEntity("/actuator/health/readiness", String.class).getStatusCode() != HttpStatus.OK) {
+            assertTrue(System.nanoTime() < deadline, "Not ready within " + READY_WITHIN);
+            Thread.sleep(50);
+        }
+        assertEquals(11, countryRepository.count());
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+        ResponseEntity<String> response = restTemplate.exchange("/countries/France", HttpMethod.GET,
+                new HttpEntity<>(headers), String.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(response.getBody().contains("Paris"));
+    }
+
+    @Test
+    void servesNoApiDocs() {
+        assertEquals(HttpStatus.NOT_FOUND, restTemplate.getForEntity("/v3/api-docs", String.class).getStatusCode());
+    }
+}
@@ -0,0 +1,59 @@
+package com.flags;
+
+import com.flags.repositories.CountryRepository;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"test", "virtual-threads"})
+class VirtualThreadsProfileTest {
+
+    @Autowired
+    private ServletWebServerApplicationContext context;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private TaskExecutor applicationTaskExecutor;
+
+    @Autowired
+    private CountryRepository countryRepository;
+
+    @Test
+    void servesRequestsAndAsyncTasksOnVirtualThreads() {
+        TomcatWebServer server = (TomcatWebServer) context.getWebServer();
+        assertInstanceOf(VirtualThreadExecutor.class, server.getTomcat().getConnector().getProtocolHandler().getExecutor());
+        assertInstanceOf(SimpleAsyncTaskExecutor.class, applicationTaskExecutor);
+    }
+
+    @Test
+    void loadsCatalogAndServesCountries() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+        ResponseEntity<String> response = restTemplate.exchange("/countries/France", HttpMethod.GET,
+                new HttpEntity<>(headers), String.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(response.getBody().contains("Paris"));
+        assertEquals(11, countryRepository.count());
+    }
+}
@@ -0,0 +1,120 @@
+package com.flags.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flags.CountryFlags;
+import com.flags.loader.CatalogLoader;
+import com.flags.loader.CatalogSnapshotFile;
+import com.flags.models.Country;
+import com.flags.repositories.CountryRepository;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup load of the country table from each source {@link CatalogLoader} supports: the binary
+ * snapshot, a JSON file like the test fixture, and the same JSON over HTTP from a local stub
+ * server. The stub takes network latency out of the remote case, so the gap to the snapshot is
+ * a lower bound of what a real restcountries.com fetch costs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CatalogLoadBenchmark {
+
+    @Param({"250", "50000"})
+    public int rows;
+
+    @Param({"snapshot", "fixture", "remote"})
+    public String source;
+
+    private Path dir;
+    private Path snapshot;
+    private String url;
+    private HttpServer server;
+    private ConfigurableApplicationContext context;
+    private CatalogLoader loader;
+    private CountryRepository repository;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        List<Country> countries = SyntheticCountries.generate(rows);
+        dir = Files.createTempDirectory("catalog-load");
+
+        Path json = dir.resolve("countries.json");
+        byte[] payload = new ObjectMapper().writeValueAsBytes(countries.stream().map(c -> Map.of(
+                "name", Map.of("common", c.getName()),
+                "flags", Map.of("svg", c.getFlag()),
+                "population", c.getPopulation(),
+                "capital", List.of(c.getCapital()))).toList());
+        Files.write(json, payload);
+
+        snapshot = dir.resolve("catalog.snapshot");
+        try (CatalogSnapshotFile.Writer writer = CatalogSnapshotFile.create(snapshot, json.toUri().toString())) {
+            for (Country country : countries) {
+                writer.append(country);
+            }
+            writer.commit();
+        }
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v3.1/all", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, payload.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(payload);
+            }
+        });
+        server.start();
+
+        url = switch (source) {
+            case "remote" -> "http://127.0.0.1:" + server.getAddress().getPort() + "/v3.1/all";
+            default -> json.toUri().toString();
+        };
+
+        context = new SpringApplicationBuilder(CountryFlags.class)
+                .web(WebApplicationType.NONE)
+                .run("--flags.catalog.load-on-startup=false", "--flags.catalog.snapshot-path=",
+                        "--spring.datasource.url=jdbc:h2:mem:load" + rows + source + ";DB_CLOSE_ON_EXIT=FALSE", "--logging.level.root=WARN");
+        loader = context.getBean(CatalogLoader.class);
+        repository = context.getBean(CountryRepository.class);
+    }
+
+    @Setup(Level.Invocation)
+    public void empty() {
+        repository.deleteAllInBatch();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        server.stop(0);
+        try (var files = Files.list(dir)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    @Benchmark
+    public int load() throws IOException {
+        if (source.equals("snapshot")) {
+            return loader.load(CatalogSnapshotFile.open(snapshot)).loaded();
+        }
+        return loader.load(url).loaded();
+    }
+}
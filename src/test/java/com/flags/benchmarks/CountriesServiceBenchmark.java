@@ -0,0 +1,79 @@
+package com.flags.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flags.catalog.CountryCatalog;
+import com.flags.changes.ChangeLog;
+import com.flags.changes.ChangeProperties;
+import com.flags.cluster.InvalidationBus;
+import com.flags.dto.CountryDetailDto;
+import com.flags.dto.CountryDto;
+import com.flags.mappers.CountryMapperImpl;
+import com.flags.models.Country;
+import com.flags.repositories.CountryRepository;
+import com.flags.search.CountrySearchIndex;
+import com.flags.search.CountrySuggester;
+import com.flags.search.FuzzyCountryMatcher;
+import com.flags.services.CountriesService;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@link CountriesService} reads the controllers call, over a loaded catalog with its search
+ * indexes wired in as they are in the application. The repository is a mock that is only read
+ * once, when the catalog is built.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CountriesServiceBenchmark {
+
+    @Param({"250", "10000", "1000000"})
+    public int rows;
+
+    @Param({"sta"})
+    public String query;
+
+    private CountriesService service;
+    private List<String> names;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        List<Country> countries = SyntheticCountries.generate(rows);
+        names = countries.stream().map(Country::getName).toList();
+
+        CountryRepository repository = Mockito.mock(CountryRepository.class);
+        Mockito.when(repository.findAll()).thenReturn(countries);
+        CountrySearchIndex searchIndex = new CountrySearchIndex(100);
+        FuzzyCountryMatcher fuzzyMatcher = new FuzzyCountryMatcher(3, 10);
+        CountrySuggester suggester = new CountrySuggester(10);
+        ChangeLog changeLog = new ChangeLog(new ChangeProperties(10_000, Duration.ofHours(24), Duration.ofSeconds(30), Duration.ofMinutes(30)));
+        CountryMapperImpl mapper = new CountryMapperImpl();
+        CountryCatalog catalog = new CountryCatalog(repository, mapper, new ObjectMapper(), List.of(searchIndex, fuzzyMatcher, suggester, changeLog));
+        service = new CountriesService(repository, mapper, catalog, searchIndex, fuzzyMatcher, suggester, changeLog, Mockito.mock(InvalidationBus.class), Optional.empty(), Optional.empty());
+        service.getAllCountries();
+    }
+
+    @Benchmark
+    public List<CountryDto> getAllCountries() {
+        return service.getAllCountries();
+    }
+
+    @Benchmark
+    public CountryDetailDto getCountryByName() {
+        return service.getCountryByName(names.get(ThreadLocalRandom.current().nextInt(names.size())));
+    }
+
+    @Benchmark
+    public List<CountryDto> searchCountriesByName() {
+        return service.searchCountriesByName(query);
+    }
+}
@@ -0,0 +1,65 @@
+package com.flags.benchmarks;
+
+import com.flags.dto.CountryDetailDto;
+import com.flags.dto.CountryDto;
+import com.flags.mappers.CountryMapper;
+import com.flags.mappers.CountryMapperImpl;
+import com.flags.models.Country;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The generated {@link CountryMapper} over a whole dataset, as a catalog rebuild maps it, and
+ * the reverse mapping a write makes per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CountryMapperBenchmark {
+
+    @Param({"250", "10000", "1000000"})
+    public int rows;
+
+    private final CountryMapper mapper = new CountryMapperImpl();
+    private List<Country> countries;
+    private List<CountryDetailDto> details;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        countries = SyntheticCountries.generate(rows);
+        details = countries.stream().map(mapper::toCountryDetailDto).toList();
+    }
+
+    @Benchmark
+    public List<CountryDto> toCountryDtos() {
+        List<CountryDto> dtos = new ArrayList<>(countries.size());
+        for (Country country : countries) {
+            dtos.add(mapper.toCountryDto(country));
+        }
+        return dtos;
+    }
+
+    @Benchmark
+    public List<CountryDetailDto> toCountryDetailDtos() {
+        List<CountryDetailDto> dtos = new ArrayList<>(countries.size());
+        for (Country country : countries) {
+            dtos.add(mapper.toCountryDetailDto(country));
+        }
+        return dtos;
+    }
+
+    @Benchmark
+    public List<Country> toCountries() {
+        List<Country> entities = new ArrayList<>(details.size());
+        for (CountryDetailDto detail : details) {
+            entities.add(mapper.toCountry(detail));
+        }
+        return entities;
+    }
+}
@@ -0,0 +1,97 @@
+package com.flags.benchmarks;
+
+import com.flags.models.Country;
+import com.flags.search.CountrySearchIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CountrySearchIndex} against the {@code LIKE '%x%'} scan that
+ * {@code CountryRepository.findByNameContainingIgnoreCase} issues. The SQL side runs the
+ * statement Hibernate generates for that method directly over JDBC on H2, so it measures the
+ * database work without the Spring context around it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CountrySearchBenchmark {
+
+    @Param({"250", "10000", "1000000"})
+    public int rows;
+
+    @Param({"sta", "stabur"})
+    public String query;
+
+    private CountrySearchIndex index;
+    private Connection connection;
+    private PreparedStatement containing;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        List<Country> countries = SyntheticCountries.generate(rows);
+
+        index = new CountrySearchIndex(100);
+        for (Country country : countries) {
+            index.index(country.getName(), country.getCapital());
+        }
+
+        connection = DriverManager.getConnection("jdbc:h2:mem:search" + rows + ";DB_CLOSE_DELAY=-1");
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("drop table if exists country");
+            ddl.execute("create table country (name varchar(255) primary key, capital varchar(255), "
+                    + "flag varchar(255), population integer)");
+        }
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement("insert into country values (?, ?, ?, ?)")) {
+            for (int i = 0; i < countries.size(); i++) {
+                Country country = countries.get(i);
+                insert.setString(1, country.getName());
+                insert.setString(2, country.getCapital());
+                insert.setString(3, country.getFlag());
+                insert.setInt(4, country.getPopulation());
+                insert.addBatch();
+                if (i % 1000 == 999) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+        containing = connection.prepareStatement("select c1_0.name,c1_0.capital,c1_0.flag,c1_0.population "
+                + "from country c1_0 where upper(c1_0.name) like upper(?) escape '\\'");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public List<String> searchIndex() {
+        return index.search(query);
+    }
+
+    @Benchmark
+    public List<String> sqlContainingIgnoreCase() throws SQLException {
+        containing.setString(1, "%" + query + "%");
+        List<String> names = new ArrayList<>();
+        try (ResultSet rs = containing.executeQuery()) {
+            while (rs.next()) {
+                names.add(rs.getString(1));
+            }
+        }
+        return names;
+    }
+}
@@ -0,0 +1,90 @@
+package com.flags.benchmarks;
+
+import com.flags.models.Country;
+import com.flags.search.FuzzyCountryMatcher;
+import com.flags.search.FuzzyMatch;
+import com.flags.search.FuzzyTopK;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of {@link FuzzyCountryMatcher}, sampled so the p99 is reported, and a guard that the
+ * scoring walk stays allocation free: each iteration fails if the thread allocated as much as
+ * one byte per walk.
+ * Add {@code -prof gc} to see {@code gc.alloc.rate.norm} for the end-to-end search as well.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FuzzySearchBenchmark {
+
+    @Param({"250", "50000", "1000000"})
+    public int rows;
+
+    private FuzzyCountryMatcher matcher;
+    private String misspelled;
+    private char[] query;
+    private int bound;
+    private FuzzyTopK topK;
+    private int[][] scratch;
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private long allocatedBefore;
+    private long walks;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        List<Country> countries = SyntheticCountries.generate(rows);
+        matcher = new FuzzyCountryMatcher(3, 10);
+        for (Country country : countries) {
+            matcher.add(country.getName());
+        }
+        // Drop one letter and swap two others in a real name, like "Kazakstan" or "Filipines"
+        String name = countries.stream().map(Country::getName).filter(n -> n.length() >= 8)
+                .findFirst().orElseThrow().toLowerCase();
+        StringBuilder typo = new StringBuilder(name).deleteCharAt(1);
+        char c = typo.charAt(2);
+        typo.setCharAt(2, typo.charAt(3));
+        typo.setCharAt(3, c);
+        misspelled = typo.toString();
+        query = misspelled.toCharArray();
+        bound = Math.min(3, Math.max(1, query.length / 3));
+        topK = new FuzzyTopK(10);
+        scratch = new int[matcher.depth() + 1][query.length + 1];
+    }
+
+    @Setup(Level.Iteration)
+    public void startCounting() {
+        walks = 0;
+        allocatedBefore = threads.getThreadAllocatedBytes(Thread.currentThread().threadId());
+    }
+
+    @TearDown(Level.Iteration)
+    public void checkAllocation() {
+        long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().threadId()) - allocatedBefore;
+        if (walks > 10_000 && allocated > walks) {
+            throw new IllegalStateException("scoring allocated " + allocated + " bytes over " + walks + " walks");
+        }
+    }
+
+    @Benchmark
+    public List<FuzzyMatch> search() {
+        return matcher.search(misspelled);
+    }
+
+    // Average time rather than sampling: the sampler's own bookkeeping would count against the guard
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public int scoring() {
+        matcher.walk(query, query.length, bound, topK, scratch);
+        walks++;
+        return topK.size();
+    }
+}
@@ -0,0 +1,83 @@
+package com.flags.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.flags.catalog.CountryColumns;
+import com.flags.catalog.EncodedBody;
+import com.flags.dto.CountryColumnsDto;
+import com.flags.dto.CountryDetailDto;
+import com.flags.dto.CountryDto;
+import com.flags.mappers.CountryMapperImpl;
+import com.flags.models.Country;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of the country list in each format GET /countries negotiates. JSON, CBOR
+ * and Smile carry the name and flag of each country; {@code columns} carries all four fields,
+ * so it is also compared with {@code jsonDetails}, the same fields as a JSON array of objects.
+ * Body sizes, plain and gzipped, are printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class ListFormatBenchmark {
+
+    @Param({"250", "1000000"})
+    public int rows;
+
+    @Param({"json", "cbor", "smile", "columns", "jsonDetails"})
+    public String format;
+
+    private Object value;
+    private List<CountryDetailDto> details;
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        CountryMapperImpl mapper = new CountryMapperImpl();
+        List<Country> generated = SyntheticCountries.generate(rows);
+        List<CountryDto> countries = generated.stream().map(mapper::toCountryDto).toList();
+        details = generated.stream().map(mapper::toCountryDetailDto).toList();
+        ObjectMapper json = new ObjectMapper();
+        ObjectMapper cbor = new CBORMapper();
+        switch (format) {
+            case "json" -> use(json, countries, CountryDto[].class);
+            case "cbor" -> use(cbor, countries, CountryDto[].class);
+            case "smile" -> use(new SmileMapper(), countries, CountryDto[].class);
+            case "columns" -> use(cbor, null, CountryColumnsDto.class);
+            case "jsonDetails" -> use(json, details, CountryDetailDto[].class);
+            default -> throw new IllegalArgumentException(format);
+        }
+        encoded = encode();
+        System.out.printf("%n%s, %d rows: %d bytes, %d gzipped%n", format, rows, encoded.length, EncodedBody.gzip(encoded).length);
+    }
+
+    private void use(ObjectMapper mapper, Object value, Class<?> type) {
+        this.value = value;
+        this.writer = mapper.writer();
+        this.reader = mapper.readerFor(type);
+    }
+
+    // Columns are built from the rows on every encode, as the catalog does once per version
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return writer.writeValueAsBytes(value != null ? value : CountryColumns.of(details));
+    }
+
+    @Benchmark
+    public Object decode() throws IOException {
+        return reader.readValue(encoded);
+    }
+}
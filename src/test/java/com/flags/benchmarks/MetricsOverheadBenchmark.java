@@ -0,0 +1,75 @@
+package com.flags.benchmarks;
+
+import com.flags.CountryFlags;
+import com.flags.catalog.EncodedBody;
+import com.flags.services.CountriesService;
+import jakarta.servlet.Filter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Cost of the instrumentation on the hot read path: {@code off} sets {@code flags.metrics.enabled}
+ * to false, {@code on} is the default, and {@code method-timers} adds the per-method service and
+ * mapper timers. {@code request} runs GET /countries/{name} through the full MVC stack, including
+ * the servlet filters that time HTTP requests; {@code service} calls the service method directly,
+ * which isolates the per-call cost of the method timer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+
+    @Param({"off", "on", "method-timers"})
+    public String metrics;
+
+    private ConfigurableApplicationContext context;
+    private CountriesService service;
+    private MockMvc mockMvc;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = new SpringApplicationBuilder(CountryFlags.class)
+                .web(WebApplicationType.SERVLET)
+                .run("--server.port=0", "--flags.metrics.enabled=" + !metrics.equals("off"),
+                        "--flags.metrics.method-timers=" + metrics.equals("method-timers"),
+                        "--flags.catalog.source-url=classpath:fixtures/restcountries.json", "--flags.catalog.snapshot-path=",
+                        "--flags.store.origin-base=classpath:fixtures/flags/", "--flags.store.dir=target/benchmark-flags",
+                        "--spring.datasource.url=jdbc:h2:mem:metrics-" + metrics + ";DB_CLOSE_ON_EXIT=FALSE",
+                        "--logging.level.root=ERROR");
+        service = context.getBean(CountriesService.class);
+        Filter[] filters = context.getBeansOfType(FilterRegistrationBean.class).values().stream()
+                .map(FilterRegistrationBean::getFilter)
+                .toArray(Filter[]::new);
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).addFilters(filters).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public EncodedBody service() {
+        return service.getCountryBody("France");
+    }
+
+    @Benchmark
+    public MvcResult request() throws Exception {
+        return mockMvc.perform(get("/countries/France").accept(MediaType.APPLICATION_JSON)).andReturn();
+    }
+}
@@ -0,0 +1,146 @@
+package com.flags.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flags.catalog.CatalogEntry;
+import com.flags.catalog.CatalogIndexes;
+import com.flags.catalog.CountryCatalog;
+import com.flags.mappers.CountryMapperImpl;
+import com.flags.models.Country;
+import com.flags.repositories.CountryRepository;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CatalogIndexes}, which serve the population and capital endpoints, against the same
+ * queries as ad-hoc SQL over JDBC on H2, using the {@code idx_country_population} and
+ * {@code idx_country_capital} indexes that {@code Country} declares for such queries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PopulationQueryBenchmark {
+
+    private static final int TOP = 10;
+    private static final int RANGE_LIMIT = 100;
+
+    @Param({"1000000"})
+    public int rows;
+
+    private CatalogIndexes indexes;
+    private Connection connection;
+    private PreparedStatement top;
+    private PreparedStatement range;
+    private PreparedStatement capital;
+    private int rangeMin;
+    private int rangeMax;
+    private String capitalName;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        List<Country> countries = SyntheticCountries.generate(rows);
+        rangeMin = 50_000_000;
+        rangeMax = 50_100_000;
+        capitalName = countries.get(rows / 2).getCapital();
+
+        CountryRepository repository = Mockito.mock(CountryRepository.class);
+        Mockito.when(repository.findAll()).thenReturn(countries);
+        CountryCatalog catalog = new CountryCatalog(repository, new CountryMapperImpl(), new ObjectMapper(), List.of());
+        indexes = catalog.snapshot().indexes();
+
+        connection = DriverManager.getConnection("jdbc:h2:mem:population" + rows + ";DB_CLOSE_DELAY=-1");
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("drop table if exists country");
+            ddl.execute("create table country (name varchar(255) primary key, capital varchar(255), "
+                    + "flag varchar(255), population integer)");
+        }
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement("insert into country values (?, ?, ?, ?)")) {
+            for (int i = 0; i < countries.size(); i++) {
+                Country country = countries.get(i);
+                insert.setString(1, country.getName());
+                insert.setString(2, country.getCapital());
+                insert.setString(3, country.getFlag());
+                insert.setInt(4, country.getPopulation());
+                insert.addBatch();
+                if (i % 1000 == 999) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("create index idx_country_population on country (population)");
+            ddl.execute("create index idx_country_capital on country (capital)");
+            ddl.execute("analyze");
+        }
+        top = connection.prepareStatement("select name, capital, flag, population from country "
+                + "where population is not null order by population desc fetch first ? rows only");
+        range = connection.prepareStatement("select name, capital, flag, population from country "
+                + "where population between ? and ? order by population fetch first ? rows only");
+        capital = connection.prepareStatement("select name, capital, flag, population from country where capital = ?");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public List<CatalogEntry> topInMemory() {
+        return indexes.topByPopulation(TOP);
+    }
+
+    @Benchmark
+    public List<String> topSql() throws SQLException {
+        top.setInt(1, TOP);
+        return names(top);
+    }
+
+    @Benchmark
+    public List<CatalogEntry> rangeInMemory() {
+        return indexes.populationBetween(rangeMin, rangeMax, RANGE_LIMIT);
+    }
+
+    @Benchmark
+    public List<String> rangeSql() throws SQLException {
+        range.setInt(1, rangeMin);
+        range.setInt(2, rangeMax);
+        range.setInt(3, RANGE_LIMIT);
+        return names(range);
+    }
+
+    @Benchmark
+    public List<CatalogEntry> capitalInMemory() {
+        return indexes.byCapital(capitalName);
+    }
+
+    @Benchmark
+    public List<String> capitalSql() throws SQLException {
+        capital.setString(1, capitalName);
+        return names(capital);
+    }
+
+    private static List<String> names(PreparedStatement statement) throws SQLException {
+        List<String> names = new ArrayList<>();
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                names.add(rs.getString(1));
+            }
+        }
+        return names;
+    }
+}
@@ -0,0 +1,52 @@
+package com.flags.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.flags.dto.CountryDetailDto;
+import com.flags.dto.CountryDto;
+import com.flags.mappers.CountryMapperImpl;
+import com.flags.models.Country;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson encoding of the DTOs the API returns: the full country list, which the catalog encodes
+ * once per snapshot, and the detail of one country.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"250", "10000", "1000000"})
+    public int rows;
+
+    private ObjectWriter writer;
+    private List<CountryDto> countries;
+    private CountryDetailDto detail;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        CountryMapperImpl mapper = new CountryMapperImpl();
+        List<Country> generated = SyntheticCountries.generate(rows);
+        countries = generated.stream().map(mapper::toCountryDto).toList();
+        detail = mapper.toCountryDetailDto(generated.get(rows / 2));
+        writer = new ObjectMapper().writer();
+    }
+
+    @Benchmark
+    public byte[] countryList() throws JsonProcessingException {
+        return writer.writeValueAsBytes(countries);
+    }
+
+    @Benchmark
+    public byte[] countryDetail() throws JsonProcessingException {
+        return writer.writeValueAsBytes(detail);
+    }
+}
@@ -0,0 +1,63 @@
+package com.flags.benchmarks;
+
+import com.flags.dto.CountrySuggestionDto;
+import com.flags.models.Country;
+import com.flags.search.CountrySearchIndex;
+import com.flags.search.CountrySuggester;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of {@link CountrySuggester} for one- to four-character prefixes, sampled so the p99 is
+ * reported. At 1M rows the trie holds about 2M keys, names and capitals. {@code substring} runs
+ * the same prefixes through {@link CountrySearchIndex}, which the search box used before.
+ * Add {@code -prof gc} to see {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SuggestBenchmark {
+
+    @Param({"250", "1000000"})
+    public int rows;
+
+    private CountrySuggester suggester;
+    private CountrySearchIndex searchIndex;
+    private String[] prefixes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        List<Country> countries = SyntheticCountries.generate(rows);
+        suggester = new CountrySuggester(10);
+        searchIndex = new CountrySearchIndex(10);
+        for (Country country : countries) {
+            suggester.index(country.getName(), country.getCapital(), country.getPopulation(), country.getFlag());
+            searchIndex.index(country.getName(), country.getCapital());
+        }
+        // Prefixes of real names and capitals, as typed one character at a time
+        Random random = new Random(42);
+        prefixes = new String[1024];
+        for (int i = 0; i < prefixes.length; i++) {
+            Country country = countries.get(random.nextInt(countries.size()));
+            String key = random.nextBoolean() ? country.getName() : country.getCapital();
+            prefixes[i] = key.substring(0, Math.min(key.length(), 1 + random.nextInt(4))).toLowerCase();
+        }
+    }
+
+    @Benchmark
+    public List<CountrySuggestionDto> suggest() {
+        return suggester.suggest(prefixes[next++ & (prefixes.length - 1)]);
+    }
+
+    @Benchmark
+    public List<String> substring() {
+        return searchIndex.search(prefixes[next++ & (prefixes.length - 1)]);
+    }
+}
@@ -0,0 +1,49 @@
+package com.flags.benchmarks;
+
+import com.flags.models.Country;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Deterministic, country-like rows for benchmarks at sizes the real catalog never reaches.
+ */
+public final class SyntheticCountries {
+
+    private static final String[] SYLLABLES = {
+            "ka", "ri", "sta", "lo", "ne", "an", "bur", "gia", "mo", "ta", "vi", "ze", "ul", "do", "pre",
+            "sa", "lan", "tho", "mi", "ra", "que", "bo", "li", "nor", "we", "ga", "ir", "to", "ces", "al"
+    };
+
+    private SyntheticCountries() {
+    }
+
+    public static List<Country> generate(int count) {
+        Random random = new Random(42);
+        Set<String> names = new HashSet<>(count * 2);
+        List<Country> countries = new ArrayList<>(count);
+        while (countries.size() < count) {
+            String name = word(random, 2 + random.nextInt(3));
+            if (!names.add(name)) {
+                name = name + " " + countries.size();
+                names.add(name);
+            }
+            String capital = word(random, 2 + random.nextInt(2));
+            String flag = "https://flagcdn.com/" + name.toLowerCase().replace(' ', '-') + ".svg";
+            countries.add(new Country(name, flag, 1000 + random.nextInt(200_000_000), capital));
+        }
+        return countries;
+    }
+
+    private static String word(Random random, int syllables) {
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < syllables; i++) {
+            word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        word.setCharAt(0, Character.toUpperCase(word.charAt(0)));
+        return word.toString();
+    }
+}
@@ -0,0 +1,115 @@
+package com.flags.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flags.CountryFlags;
+import com.flags.controllers.CountriesController;
+import com.flags.controllers.ReactiveCountriesController;
+import com.flags.models.Country;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The read endpoints over real HTTP on both web stacks: {@link CountriesController} on Tomcat
+ * and {@link ReactiveCountriesController} on Netty, each with the same catalog loaded. Sixteen
+ * client threads keep requests in flight, so the scores are throughput under concurrency rather
+ * than single-request latency.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(16)
+@Fork(1)
+public class WebStackBenchmark {
+
+    @Param({"250", "10000"})
+    public int rows;
+
+    @Param({"servlet", "reactive"})
+    public String stack;
+
+    private Path dir;
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private URI list;
+    private List<URI> details;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        List<Country> countries = SyntheticCountries.generate(rows);
+        dir = Files.createTempDirectory("web-stack");
+        Path json = dir.resolve("countries.json");
+        Files.write(json, new ObjectMapper().writeValueAsBytes(countries.stream().map(c -> Map.of(
+                "name", Map.of("common", c.getName()),
+                "flags", Map.of("svg", c.getFlag()),
+                "population", c.getPopulation(),
+                "capital", List.of(c.getCapital()))).toList()));
+
+        context = new SpringApplicationBuilder(CountryFlags.class)
+                .web(stack.equals("reactive") ? WebApplicationType.REACTIVE : WebApplicationType.SERVLET)
+                .run("--server.port=0", "--flags.catalog.snapshot-path=",
+                        "--flags.catalog.source-url=" + json.toUri(),
+                        "--spring.datasource.url=jdbc:h2:mem:web" + rows + stack + ";DB_CLOSE_ON_EXIT=FALSE",
+                        // Keeps the flag atlas warm-up off the network; synthetic flags have no origin
+                        "--flags.store.dir=" + dir.resolve("flags"), "--flags.store.origin-base=" + dir.toUri(),
+                        "--logging.level.root=ERROR");
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+
+        URI base = URI.create("http://127.0.0.1:" + port);
+        list = base.resolve("/countries");
+        details = countries.stream()
+                .map(c -> base.resolve("/countries/" + URLEncoder.encode(c.getName(), StandardCharsets.UTF_8).replace("+", "%20")))
+                .toList();
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        client.close();
+        context.close();
+        try (var files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public int list() throws IOException, InterruptedException {
+        return get(list);
+    }
+
+    @Benchmark
+    public int detail() throws IOException, InterruptedException {
+        return get(details.get(ThreadLocalRandom.current().nextInt(details.size())));
+    }
+
+    private int get(URI uri) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(
+                HttpRequest.newBuilder(uri).header("Accept", "application/json").header("Accept-Encoding", "gzip").build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(uri + " returned " + response.statusCode());
+        }
+        return response.body().length;
+    }
+}
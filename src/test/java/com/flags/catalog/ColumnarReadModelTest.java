@@ -0,0 +1,58 @@
+package com.flags.catalog;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flags.mappers.CountryMapperImpl;
+import com.flags.models.Country;
+import com.flags.repositories.CountryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ColumnarReadModelTest {
+
+    private final CountryRepository repository = mock(CountryRepository.class);
+    private final CountryCatalog catalog = new CountryCatalog(repository, new CountryMapperImpl(), new ObjectMapper(), List.of());
+    private final ColumnarReadModel readModel = new ColumnarReadModel(catalog);
+
+    @BeforeEach
+    void setup() {
+        when(repository.findAll()).thenReturn(List.of(
+                new Country("France", "https://flagcdn.com/fr.svg", 67000000, "Paris", 3L),
+                new Country("Austria", "https://flagcdn.com/at.svg", null, "Vienna", 0L)));
+    }
+
+    @Test
+    void servesTheSameBodiesAsTheCatalog() {
+        assertEquals(catalog.snapshot().countries(), readModel.countries());
+        assertEquals(catalog.listBody().etag(), readModel.listBody().etag());
+        assertArrayEquals(catalog.listBody().bytes(), readModel.listBody().bytes());
+
+        for (String name : List.of("France", "Austria")) {
+            assertEquals(catalog.snapshot().find(name).detail(), readModel.find(name));
+            assertEquals(catalog.detailBody(name).etag(), readModel.detailBody(name).etag());
+            assertArrayEquals(catalog.detailBody(name).bytes(), readModel.detailBody(name).bytes());
+        }
+        assertNull(readModel.find("Japan"));
+        assertNull(readModel.detailBody("Japan"));
+    }
+
+    @Test
+    void encodesOncePerCatalogVersion() {
+        EncodedBody list = readModel.listBody();
+        EncodedBody france = readModel.detailBody("France");
+        assertSame(list, readModel.listBody());
+        assertSame(france, readModel.detailBody("France"));
+
+        catalog.put(() -> new Country("Japan", "https://flagcdn.com/jp.svg", 125000000, "Tokyo"));
+
+        assertNotSame(list, readModel.listBody());
+        assertNotEquals(list.etag(), readModel.listBody().etag());
+        assertEquals("Tokyo", readModel.find("Japan").getCapital());
+        assertEquals(List.of("Austria", "France", "Japan"), readModel.countries().stream().map(c -> c.getName()).toList());
+        verify(repository, times(1)).findAll();
+    }
+}
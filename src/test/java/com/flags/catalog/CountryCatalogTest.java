@@ -0,0 +1,160 @@
+package com.flags.catalog;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flags.mappers.CountryMapperImpl;
+import com.flags.models.Country;
+import com.flags.repositories.CountryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CountryCatalogTest {
+
+    private final CountryRepository repository = mock(CountryRepository.class);
+    private final CountryCatalog catalog = new CountryCatalog(repository, new CountryMapperImpl(), new ObjectMapper(), List.of());
+
+    @BeforeEach
+    void setup() {
+        when(repository.findAll()).thenReturn(List.of(
+                new Country("France", "fr.svg", 67000000, "Paris"),
+                new Country("Austria", "at.svg", 9000000, "Vienna")));
+    }
+
+    @Test
+    void readsAreServedFromOneSnapshot() {
+        CatalogSnapshot first = catalog.snapshot();
+        CatalogSnapshot second = catalog.snapshot();
+
+        assertSame(first, second);
+        assertEquals(List.of("Austria", "France"), first.countries().stream().map(c -> c.getName()).toList());
+        verify(repository, times(1)).findAll();
+
+        CatalogStats stats = catalog.stats();
+        assertEquals(1, stats.misses());
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.rebuilds());
+    }
+
+    @Test
+    void putSwapsInNewSnapshotWithoutReloading() {
+        CatalogSnapshot before = catalog.snapshot();
+
+        catalog.put(() -> new Country("Japan", "jp.svg", 125000000, "Tokyo"));
+        CatalogSnapshot after = catalog.snapshot();
+
+        assertNull(before.find("Japan"));
+        assertEquals("Tokyo", after.find("Japan").detail().getCapital());
+        assertTrue(after.version() > before.version());
+        verify(repository, times(1)).findAll();
+    }
+
+    @Test
+    void removeSwapsInNewSnapshot() {
+        catalog.snapshot();
+
+        catalog.remove("France", () -> { });
+
+        assertNull(catalog.snapshot().find("France"));
+        assertEquals(1, catalog.snapshot().size());
+    }
+
+    @Test
+    void failedWriteKeepsSnapshot() {
+        CatalogSnapshot before = catalog.snapshot();
+
+        assertThrows(IllegalStateException.class, () -> catalog.put(() -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        assertSame(before, catalog.snapshot());
+    }
+
+    @Test
+    void invalidateReloadsOnNextRead() {
+        catalog.snapshot();
+        catalog.invalidate();
+        catalog.snapshot();
+
+        verify(repository, times(2)).findAll();
+        assertEquals(2, catalog.stats().rebuilds());
+    }
+
+    @Test
+    void concurrentFirstReadsEncodeOnce() throws Exception {
+        EncodedBody list = catalog.listBody();
+        long encodes = catalog.stats().encodes();
+        try (ExecutorService readers = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<byte[]>> gzipped = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                gzipped.add(readers.submit(() -> list.gzip()));
+            }
+            for (Future<byte[]> gzip : gzipped) {
+                assertSame(list.gzip(), gzip.get());
+            }
+        }
+        assertEquals(encodes + 1, catalog.stats().encodes());
+    }
+
+    @Test
+    void writeReencodesOnlyTheChangedCountry() {
+        EncodedBody france = catalog.detailBody("France");
+        EncodedBody austria = catalog.detailBody("Austria");
+        france.bytes();
+        austria.bytes();
+        catalog.listBody().bytes();
+        long encodes = catalog.stats().encodes();
+
+        catalog.put(() -> new Country("France", "fr.svg", 68000000, "Paris", 1L));
+
+        assertSame(austria, catalog.detailBody("Austria"));
+        assertNotEquals(france.etag(), catalog.detailBody("France").etag());
+        catalog.detailBody("Austria").bytes();
+        catalog.detailBody("France").bytes();
+        catalog.listBody().bytes();
+        assertEquals(encodes + 2, catalog.stats().encodes());
+    }
+
+    @Test
+    void pagesInNameOrderAfterKey() {
+        catalog.snapshot();
+        catalog.put(() -> new Country("Japan", "jp.svg", 125000000, "Tokyo"));
+        CatalogSnapshot snapshot = catalog.snapshot();
+
+        assertEquals(List.of("Austria", "France"), snapshot.page(null, 2).stream().map(CatalogEntry::name).toList());
+        assertEquals(List.of("France", "Japan"), snapshot.page("Austria", 5).stream().map(CatalogEntry::name).toList());
+        assertEquals(List.of("Japan"), snapshot.page("Germany", 5).stream().map(CatalogEntry::name).toList());
+        assertEquals(List.of(), snapshot.page("Japan", 5));
+    }
+
+    @Test
+    void indexesPopulationAndCapital() {
+        when(repository.findAll()).thenReturn(List.of(
+                new Country("France", "fr.svg", 67000000, "Paris"),
+                new Country("Austria", "at.svg", 9000000, "Vienna"),
+                new Country("Bhutan", "bt.svg", 9000000, "Thimphu"),
+                new Country("Antarctica", "aq.svg", null, null),
+                new Country("Côte d'Ivoire", "ci.svg", 26000000, "Yamoussoukro"),
+                new Country("Iceland", "is.svg", 370000, "Reykjavík")));
+        CatalogIndexes indexes = catalog.snapshot().indexes();
+
+        assertEquals(List.of("France", "Côte d'Ivoire"), names(indexes.topByPopulation(2)));
+        assertEquals(5, indexes.topByPopulation(10).size());
+        assertEquals(List.of("Austria", "Bhutan", "Côte d'Ivoire"), names(indexes.populationBetween(9000000, 26000000, 10)));
+        assertEquals(List.of("Austria"), names(indexes.populationBetween(9000000, 26000000, 1)));
+        assertEquals(List.of(), indexes.populationBetween(100, 1000, 10));
+        assertEquals(List.of("Iceland"), names(indexes.byCapital("REYKJAVIK")));
+        assertSame(indexes, catalog.snapshot().indexes());
+    }
+
+    private static List<String> names(List<CatalogEntry> entries) {
+        return entries.stream().map(CatalogEntry::name).toList();
+    }
+}
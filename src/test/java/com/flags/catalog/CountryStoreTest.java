@@ -0,0 +1,114 @@
+package com.flags.catalog;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flags.benchmarks.SyntheticCountries;
+import com.flags.dto.CountryDetailDto;
+import com.flags.mappers.CountryMapperImpl;
+import com.flags.models.Country;
+import com.flags.repositories.CountryRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphStats;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CountryStoreTest {
+
+    private static final int ROWS = 1_000_000;
+
+    private final CountryStore store = CountryStore.of(List.of(
+            new Country("France", "https://flagcdn.com/fr.svg", 67391582, "Paris", 3L),
+            new Country("Antarctica", "https://flagcdn.com/aq.svg", null, null),
+            new Country("Japan", "https://flagcdn.com/jp.svg", 125836021, "Tokyo"),
+            new Country("Tokyo Bay", "https://example.org/flags/tb.svg", 1000, "Tokyo"),
+            new Country("Nowhere", null, 0, "Paris")));
+
+    @Test
+    void findsRowsByName() {
+        CountryView france = store.find("France");
+        assertEquals("France", france.name());
+        assertEquals("https://flagcdn.com/fr.svg", france.flag());
+        assertEquals(67391582, france.population());
+        assertEquals("Paris", france.capital());
+        assertEquals(3, france.version());
+
+        assertNull(store.find("Atlantis"));
+        assertEquals(-1, store.indexOf("france"));
+        for (CountryView view : store.views()) {
+            assertEquals(view, store.find(view.name()));
+        }
+    }
+
+    @Test
+    void keepsMissingValues() {
+        CountryView antarctica = store.find("Antarctica");
+        assertEquals(CountryStore.NO_POPULATION, antarctica.population());
+        assertNull(antarctica.capital());
+        assertEquals(0, antarctica.version());
+        assertNull(store.find("Nowhere").flag());
+        assertEquals(0, store.find("Nowhere").population());
+    }
+
+    @Test
+    void poolsCapitalsAndFlagPrefixes() {
+        // Paris, Tokyo; https://flagcdn.com/, https://example.org/flags/
+        assertEquals(4, store.pooledStrings());
+        assertSame(store.find("Japan").capital(), store.find("Tokyo Bay").capital());
+    }
+
+    @Test
+    void pagesInNameOrder() {
+        assertEquals(List.of("Antarctica", "France", "Japan", "Nowhere", "Tokyo Bay"), names(store.views()));
+        assertEquals(List.of("Antarctica", "France"), names(store.page(null, 2)));
+        assertEquals(List.of("Japan", "Nowhere"), names(store.page("France", 2)));
+        assertEquals(List.of("Japan"), names(store.page("Germany", 1)));
+        assertEquals(List.of(), names(store.page("Tokyo Bay", 10)));
+    }
+
+    @Test
+    void viewsMapLikeTheMapper() {
+        Country japan = new Country("Japan", "https://flagcdn.com/jp.svg", 125836021, "Tokyo", 2L);
+        CountryDetailDto mapped = new CountryMapperImpl().toCountryDetailDto(japan);
+        assertEquals(mapped, CountryStore.of(List.of(japan)).find("Japan").toDetailDto());
+    }
+
+    @Test
+    void rejectsDuplicateNames() {
+        CountryStore.Builder builder = CountryStore.builder()
+                .add("France", null, null, null, null)
+                .add("France", null, null, null, null);
+        assertThrows(IllegalArgumentException.class, builder::build);
+    }
+
+    // About two minutes at 1M rows, so only with -Dsurefire.excludedGroups=
+    @Test
+    @Tag("heap")
+    void takesAFractionOfTheCatalogHeap() {
+        List<Country> countries = SyntheticCountries.generate(ROWS);
+        CountryStore columns = CountryStore.of(countries);
+        assertEquals(countries.get(ROWS / 2).getCapital(), columns.find(countries.get(ROWS / 2).getName()).capital());
+        long storeBytes = GraphStats.parseInstance(columns).totalSize();
+        columns = null;
+        long entityBytes = GraphStats.parseInstance(countries).totalSize();
+
+        // What the catalog holds today: one entry and two DTOs per row in a sorted map
+        CountryRepository repository = mock(CountryRepository.class);
+        when(repository.findAll()).thenReturn(countries);
+        CatalogSnapshot snapshot = new CountryCatalog(repository, new CountryMapperImpl(), new ObjectMapper(), List.of()).snapshot();
+        countries = null;
+        reset(repository);
+        long catalogBytes = GraphStats.parseInstance(snapshot).totalSize();
+
+        System.out.printf("%d rows: entities %d MB, catalog snapshot %d MB, column store %d MB%n",
+                ROWS, entityBytes >> 20, catalogBytes >> 20, storeBytes >> 20);
+        assertTrue(storeBytes * 3 < catalogBytes, "Column store is not a third of the catalog's heap");
+        assertTrue(storeBytes < entityBytes, "Column store is not smaller than the entities");
+    }
+
+    private static List<String> names(List<CountryView> views) {
+        return views.stream().map(CountryView::name).toList();
+    }
+}
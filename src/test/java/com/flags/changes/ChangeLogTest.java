@@ -0,0 +1,269 @@
+package com.flags.changes;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flags.catalog.CatalogEntry;
+import com.flags.catalog.CountryCatalog;
+import com.flags.dto.CountryChangeDto;
+import com.flags.dto.CountryChangesDto;
+import com.flags.exceptions.ResyncRequiredException;
+import com.flags.mappers.CountryMapperImpl;
+import com.flags.models.Country;
+import com.flags.repositories.CountryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ChangeLogTest {
+
+    private final CountryRepository repository = mock(CountryRepository.class);
+    private final MutableClock clock = new MutableClock();
+    private ChangeLog changeLog;
+    private CountryCatalog catalog;
+
+    @BeforeEach
+    void setup() {
+        when(repository.findAll()).thenReturn(List.of(new Country("France", "fr.svg", 67000000, "Paris")));
+        changeLog = new ChangeLog(new ChangeProperties(4, Duration.ofHours(1), Duration.ofSeconds(1), Duration.ofMinutes(1)), clock);
+        catalog = new CountryCatalog(repository, new CountryMapperImpl(), new ObjectMapper(), List.of(changeLog));
+        catalog.snapshot();
+    }
+
+    @Test
+    void returnsWritesAfterCursorInOrder() {
+        long start = changeLog.head();
+
+        put("Japan", "Tokyo");
+        catalog.remove("France", () -> { });
+        put("Chile", "Santiago");
+        CountryChangesDto changes = changeLog.since(start, 10);
+
+        assertEquals(List.of("Japan", "France", "Chile"), names(changes));
+        assertEquals(List.of(CountryChangeDto.PUT, CountryChangeDto.DELETE, CountryChangeDto.PUT),
+                changes.getChanges().stream().map(CountryChangeDto::getType).toList());
+        assertNull(changes.getChanges().get(1).getCountry());
+        assertEquals(changeLog.head(), changes.getNext());
+        assertFalse(changes.isMore());
+        assertEquals(List.of("Chile"), names(changeLog.since(changes.getChanges().get(1).getSeq(), 10)));
+        assertEquals(List.of(), changeLog.since(changes.getNext(), 10).getChanges());
+    }
+
+    @Test
+    void compactsToLatestChangePerCountry() {
+        long start = changeLog.head();
+
+        put("Japan", "Kyoto");
+        put("Chile", "Santiago");
+        put("Japan", "Tokyo");
+        CountryChangesDto changes = changeLog.since(start, 10);
+
+        assertEquals(List.of("Chile", "Japan"), names(changes));
+        assertEquals("Tokyo", changes.getChanges().get(1).getCountry().getCapital());
+    }
+
+    @Test
+    void pagesWithLimit() {
+        long start = changeLog.head();
+        put("Japan", "Tokyo");
+        put("Chile", "Santiago");
+        put("Peru", "Lima");
+
+        CountryChangesDto first = changeLog.since(start, 2);
+        CountryChangesDto second = changeLog.since(first.getNext(), 2);
+
+        assertEquals(List.of("Japan", "Chile"), names(first));
+        assertTrue(first.isMore());
+        assertEquals(List.of("Peru"), names(second));
+        assertFalse(second.isMore());
+    }
+
+    @Test
+    void cursorsOutsideRetentionMustResync() {
+        long start = changeLog.head();
+        for (String name : List.of("Japan", "Chile", "Peru", "Togo", "Mali")) {
+            put(name, "Capital");
+        }
+
+        ResyncRequiredException e = assertThrows(ResyncRequiredException.class, () -> changeLog.since(start, 10));
+        assertEquals(changeLog.head(), e.getHead());
+        assertEquals(List.of("Chile", "Peru", "Togo", "Mali"), names(changeLog.since(start + 1, 10)));
+        assertThrows(ResyncRequiredException.class, () -> changeLog.since(changeLog.head() + 1, 10));
+    }
+
+    @Test
+    void expiredChangesMustResync() {
+        long start = changeLog.head();
+        put("Japan", "Tokyo");
+        clock.advance(Duration.ofMinutes(30));
+        put("Chile", "Santiago");
+        clock.advance(Duration.ofMinutes(31));
+
+        assertThrows(ResyncRequiredException.class, () -> changeLog.since(start, 10));
+        assertEquals(List.of("Chile"), names(changeLog.since(start + 1, 10)));
+    }
+
+    @Test
+    void rebuildRequiresResync() {
+        long start = changeLog.head();
+        put("Japan", "Tokyo");
+
+        catalog.invalidate();
+        catalog.snapshot();
+
+        assertThrows(ResyncRequiredException.class, () -> changeLog.since(start, 10));
+        assertEquals(List.of(), changeLog.since(changeLog.head(), 10).getChanges());
+    }
+
+    @Test
+    void cursorsFromEarlierRunMustResync() {
+        long earlier = changeLog.head();
+        put("Japan", "Tokyo");
+        clock.advance(Duration.ofSeconds(1));
+
+        ChangeLog next = new ChangeLog(new ChangeProperties(4, Duration.ofHours(1), Duration.ofSeconds(1), Duration.ofMinutes(1)), clock);
+
+        assertThrows(ResyncRequiredException.class, () -> next.since(earlier + 1, 10));
+    }
+
+    @Test
+    void awaitWakesOnAppend() throws Exception {
+        long head = changeLog.head();
+        assertFalse(changeLog.awaitAfter(head, Duration.ofMillis(10)));
+
+        CountDownLatch waiting = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> woken = executor.submit(() -> {
+                waiting.countDown();
+                return changeLog.awaitAfter(head, Duration.ofSeconds(10));
+            });
+            waiting.await();
+            put("Japan", "Tokyo");
+            assertTrue(woken.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrentWritersProduceOneTotalOrder() throws Exception {
+        changeLog = new ChangeLog(new ChangeProperties(10000, Duration.ofHours(1), Duration.ofSeconds(1), Duration.ofMinutes(1)), clock);
+        catalog = new CountryCatalog(repository, new CountryMapperImpl(), new ObjectMapper(), List.of(changeLog));
+        catalog.snapshot();
+        long start = changeLog.head();
+        List<String> names = List.of("Japan", "Chile", "Peru", "Togo", "Mali", "Fiji", "Oman", "Cuba");
+        AtomicReference<Throwable> readerFailure = new AtomicReference<>();
+        Map<String, CountryChangeDto> replica = new HashMap<>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(9);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int w = 0; w < 8; w++) {
+                writers.add(executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < 500; i++) {
+                        String name = names.get(random.nextInt(names.size()));
+                        if (random.nextInt(5) == 0) {
+                            catalog.remove(name, () -> { });
+                        } else {
+                            put(name, "Capital " + random.nextInt(1000));
+                        }
+                    }
+                }));
+            }
+            // A client syncing while the writers run: sequence numbers must only grow
+            Future<?> reader = executor.submit(() -> {
+                long cursor = start;
+                try {
+                    while (writers.stream().anyMatch(f -> !f.isDone())) {
+                        cursor = apply(changeLog.since(cursor, 7), cursor, replica);
+                    }
+                    apply(changeLog.since(cursor, 10000), cursor, replica);
+                } catch (Throwable t) {
+                    readerFailure.set(t);
+                }
+            });
+            for (Future<?> writer : writers) {
+                writer.get(30, TimeUnit.SECONDS);
+            }
+            reader.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertNull(readerFailure.get());
+        // Replaying the log onto nothing gives the catalog's final state
+        for (String name : names) {
+            CountryChangeDto last = replica.get(name);
+            CatalogEntry entry = catalog.snapshot().find(name);
+            if (entry == null) {
+                assertTrue(last == null || last.getType().equals(CountryChangeDto.DELETE), name);
+            } else {
+                assertEquals(entry.detail().getCapital(), last.getCountry().getCapital(), name);
+            }
+        }
+        List<Long> seqs = changeLog.since(start, 10000).getChanges().stream().map(CountryChangeDto::getSeq).toList();
+        assertEquals(seqs.stream().sorted().distinct().toList(), seqs);
+        assertTrue(seqs.size() <= names.size());
+    }
+
+    private static long apply(CountryChangesDto page, long cursor, Map<String, CountryChangeDto> replica) {
+        for (CountryChangeDto change : page.getChanges()) {
+            assertTrue(change.getSeq() > cursor, "sequence went backwards");
+            cursor = change.getSeq();
+            replica.put(change.getName(), change);
+        }
+        assertTrue(page.getNext() >= cursor);
+        return page.getNext();
+    }
+
+    private void put(String name, String capital) {
+        catalog.put(() -> new Country(name, name.toLowerCase() + ".svg", 1000, capital));
+    }
+
+    private static List<String> names(CountryChangesDto changes) {
+        return changes.getChanges().stream().map(CountryChangeDto::getName).toList();
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
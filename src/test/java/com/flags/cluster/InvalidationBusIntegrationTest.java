@@ -0,0 +1,167 @@
+package com.flags.cluster;
+
+import com.flags.CountryFlags;
+import com.flags.dto.CountryDetailDto;
+import com.flags.exceptions.CountryNotFoundException;
+import com.flags.exceptions.PreconditionFailedException;
+import com.flags.repositories.CountryRepository;
+import com.flags.services.CountriesService;
+import com.flags.services.CountryBulkService;
+import com.flags.writes.CountryWriteQueue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Two nodes on one H2 file database: a write on either shows up in the other's catalog within
+ * {@link #MAX_LAG}.
+ */
+class InvalidationBusIntegrationTest {
+
+    private static final Duration MAX_LAG = Duration.ofSeconds(5);
+    private static final Path DATABASE = Path.of("target", "cluster-test");
+
+    private ConfigurableApplicationContext first;
+    private ConfigurableApplicationContext second;
+
+    @AfterEach
+    void stopNodes() {
+        if (second != null) {
+            second.close();
+        }
+        if (first != null) {
+            first.close();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"local", "jdbc"})
+    void writesReachTheOtherNode(String bus) throws Exception {
+        FileSystemUtils.deleteRecursively(DATABASE.resolve(bus));
+        first = start(bus);
+        second = start(bus);
+        CountriesService one = first.getBean(CountriesService.class);
+        CountriesService two = second.getBean(CountriesService.class);
+        assertEquals(one.getCountryByName("France").getPopulation(), two.getCountryByName("France").getPopulation());
+
+        one.updateCountry("France", france(70000000));
+        long update = lag(() -> two.getCountryByName("France").getPopulation() == 70000000);
+
+        two.deleteCountry("Japan");
+        long delete = lag(() -> !exists(one, "Japan"));
+
+        second.getBean(CountryBulkService.class).importCountries(new ByteArrayInputStream(
+                "{\"name\":\"Atlantis\",\"flag\":\"https://flagcdn.com/aq.svg\",\"population\":1,\"capital\":\"Poseidonia\"}\n"
+                        .getBytes(StandardCharsets.UTF_8)));
+        long bulk = lag(() -> exists(one, "Atlantis"));
+
+        System.out.printf("%s bus: update %d ms, delete %d ms, bulk import %d ms%n", bus, update, delete, bulk);
+        assertTrue(first.getBean(InvalidationBus.class).stats().received() >= 2);
+        assertTrue(second.getBean(InvalidationBus.class).stats().received() >= 1);
+    }
+
+    @Test
+    void writeBehindNodesConvergeAfterConcurrentUpdates() throws Exception {
+        FileSystemUtils.deleteRecursively(DATABASE.resolve("write-behind"));
+        // Only the test flushes
+        String[] writeBehind = {"--flags.writes.write-behind=true", "--flags.writes.flush-interval=1h"};
+        first = start("local", "write-behind", writeBehind);
+        second = start("local", "write-behind", writeBehind);
+        CountriesService one = first.getBean(CountriesService.class);
+        CountriesService two = second.getBean(CountriesService.class);
+
+        // Both start from the same row and queue different content
+        one.updateCountry("France", france(70000000));
+        two.updateCountry("France", france(71000000));
+        first.getBean(CountryWriteQueue.class).flush();
+        // The second node's queued write is newer than what the first just committed, so it is kept
+        Thread.sleep(200);
+        assertEquals(71000000, two.getCountryByName("France").getPopulation());
+        second.getBean(CountryWriteQueue.class).flush();
+
+        int stored = second.getBean(CountryRepository.class).findById("France").orElseThrow().getPopulation();
+        lag(() -> one.getCountryByName("France").getPopulation() == stored
+                && two.getCountryByName("France").getPopulation() == stored);
+        assertEquals(one.getCountryByName("France").getVersion(), two.getCountryByName("France").getVersion());
+    }
+
+    @Test
+    void losingIfMatchWriterGetsPreconditionFailedWithWriteBehind() throws Exception {
+        FileSystemUtils.deleteRecursively(DATABASE.resolve("write-behind-if-match"));
+        String[] writeBehind = {"--flags.writes.write-behind=true", "--flags.writes.flush-interval=1h"};
+        first = start("local", "write-behind-if-match", writeBehind);
+        second = start("local", "write-behind-if-match", writeBehind);
+        CountriesService one = first.getBean(CountriesService.class);
+        CountriesService two = second.getBean(CountriesService.class);
+        String etag = "\"" + two.getCountryByName("France").getVersion() + "\"";
+        assertEquals(etag, "\"" + one.getCountryByName("France").getVersion() + "\"");
+
+        // Both nodes check the same ETag against their own catalog; the database decides
+        one.updateCountry("France", france(70000000), etag);
+        assertThrows(PreconditionFailedException.class, () -> two.updateCountry("France", france(71000000), etag));
+        assertThrows(PreconditionFailedException.class, () -> two.deleteCountry("France", etag));
+
+        assertEquals(70000000, second.getBean(CountryRepository.class).findById("France").orElseThrow().getPopulation());
+        lag(() -> two.getCountryByName("France").getPopulation() == 70000000);
+    }
+
+    private static ConfigurableApplicationContext start(String bus, String... args) {
+        return start(bus, bus, args);
+    }
+
+    private static ConfigurableApplicationContext start(String bus, String database, String... args) {
+        List<String> arguments = new ArrayList<>(List.of("--flags.invalidation.bus=" + bus, "--flags.invalidation.poll-interval=100ms",
+                "--spring.datasource.url=jdbc:h2:file:./" + DATABASE.resolve(database).resolve("flags") + ";AUTO_SERVER=TRUE",
+                "--spring.jpa.hibernate.ddl-auto=update"));
+        arguments.addAll(List.of(args));
+        return new SpringApplicationBuilder(CountryFlags.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .run(arguments.toArray(String[]::new));
+    }
+
+    // Milliseconds until the condition holds, failing after MAX_LAG
+    private static long lag(BooleanSupplier condition) throws InterruptedException {
+        long start = System.nanoTime();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() - start < MAX_LAG.toNanos(), "Not seen on the other node within " + MAX_LAG);
+            Thread.sleep(10);
+        }
+        return Duration.ofNanos(System.nanoTime() - start).toMillis();
+    }
+
+    private static boolean exists(CountriesService service, String name) {
+        try {
+            service.getCountryByName(name);
+            return true;
+        } catch (CountryNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static CountryDetailDto france(int population) {
+        CountryDetailDto dto = new CountryDetailDto();
+        dto.setName("France");
+        dto.setFlag("https://flagcdn.com/fr.svg");
+        dto.setPopulation(population);
+        dto.setCapital("Paris");
+        return dto;
+    }
+}
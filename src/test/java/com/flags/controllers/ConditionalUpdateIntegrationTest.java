@@ -0,0 +1,186 @@
+package com.flags.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flags.catalog.CountryCatalog;
+import com.flags.dto.CountryDetailDto;
+import com.flags.exceptions.PreconditionFailedException;
+import com.flags.models.Country;
+import com.flags.repositories.CountryRepository;
+import com.flags.services.CountriesService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ConditionalUpdateIntegrationTest {
+
+    private static final int WRITERS = 8;
+    private static final int INCREMENTS = 25;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CountriesService service;
+
+    @Autowired
+    private CountryRepository countryRepository;
+
+    @Autowired
+    private CountryCatalog countryCatalog;
+
+    @Autowired
+    private TransactionTemplate transactions;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void setup() {
+        countryRepository.deleteAll();
+        countryRepository.save(new Country("France", "https://flagcdn.com/fr.svg", 0, "Paris"));
+        countryCatalog.invalidate();
+    }
+
+    @Test
+    @DisplayName("PUT with the current ETag in If-Match succeeds and returns the next ETag")
+    void putWithCurrentETag() throws Exception {
+        String etag = mockMvc.perform(get("/countries/France")).andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(put("/countries/France")
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(france(1))))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""))
+                .andExpect(jsonPath("$.population", is(1)));
+
+        mockMvc.perform(get("/countries/France"))
+                .andExpect(header().string("ETag", "\"1\""));
+    }
+
+    @Test
+    @DisplayName("PUT and DELETE with a stale ETag in If-Match return 412 and change nothing")
+    void staleETagIsRejected() throws Exception {
+        String stale = mockMvc.perform(get("/countries/France")).andReturn().getResponse().getHeader("ETag");
+        service.updateCountry("France", france(1));
+
+        mockMvc.perform(put("/countries/France")
+                        .header("If-Match", stale)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(france(2))))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(delete("/countries/France").header("If-Match", stale))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(delete("/countries/France").header("If-Match", "W/\"1\""))
+                .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(get("/countries/France"))
+                .andExpect(jsonPath("$.population", is(1)));
+        mockMvc.perform(delete("/countries/France").header("If-Match", "\"1\""))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    @DisplayName("Concurrent conditional increments lose no updates")
+    void concurrentConditionalUpdatesLoseNothing() throws Exception {
+        AtomicInteger conflicts = new AtomicInteger();
+        long optimistic = run(() -> {
+            while (true) {
+                CountryDetailDto current = service.getCountryByName("France");
+                try {
+                    service.updateCountry("France", france(current.getPopulation() + 1), CountryCatalog.etag(current.getVersion()));
+                    return;
+                } catch (PreconditionFailedException e) {
+                    conflicts.incrementAndGet();
+                }
+            }
+        });
+        assertEquals(WRITERS * INCREMENTS, service.getCountryByName("France").getPopulation());
+        assertEquals(WRITERS * INCREMENTS, countryRepository.findById("France").orElseThrow().getPopulation());
+
+        // The same read-modify-write through the same service call, under a row lock held for the
+        // whole transaction instead of If-Match
+        long pessimistic = run(() -> transactions.executeWithoutResult(status -> {
+            Country country = entityManager.find(Country.class, "France", LockModeType.PESSIMISTIC_WRITE);
+            service.updateCountry("France", france(country.getPopulation() + 1));
+        }));
+        // The catalog took the country before the transaction flushed its version
+        countryCatalog.invalidate();
+        assertEquals(2 * WRITERS * INCREMENTS, service.getCountryByName("France").getPopulation());
+
+        System.out.printf("%d writers x %d increments: If-Match %.0f writes/s (%d retries), row lock %.0f writes/s%n",
+                WRITERS, INCREMENTS, rate(optimistic), conflicts.get(), rate(pessimistic));
+    }
+
+    // Runs INCREMENTS writes on each of WRITERS threads, all starting together; returns nanoseconds
+    private long run(Runnable write) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> writers = new ArrayList<>();
+            for (int i = 0; i < WRITERS; i++) {
+                writers.add(pool.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < INCREMENTS; j++) {
+                        write.run();
+                    }
+                    return null;
+                }));
+            }
+            long began = System.nanoTime();
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+            return System.nanoTime() - began;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static double rate(long nanos) {
+        return WRITERS * INCREMENTS / (nanos / 1e9);
+    }
+
+    private static CountryDetailDto france(int population) {
+        CountryDetailDto dto = new CountryDetailDto();
+        dto.setName("France");
+        dto.setFlag("https://flagcdn.com/fr.svg");
+        dto.setPopulation(population);
+        dto.setCapital("Paris");
+        return dto;
+    }
+}
@@ -1,6 +1,10 @@
 package com.flags.controllers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.flags.catalog.CountryCatalog;
+import com.flags.dto.CountryColumnsDto;
 import com.flags.dto.CountryDetailDto;
 import com.flags.models.Country;
 import com.flags.repositories.CountryRepository;
@@ -11,14 +15,28 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @SpringBootTest
 @AutoConfigureMockMvc
+@ActiveProfiles("test")
 class CountriesControllerIntegrationTest {
 
     @Autowired
@@ -27,6 +45,9 @@ class CountriesControllerIntegrationTest {
     @Autowired
     private CountryRepository countryRepository;
 
+    @Autowired
+    private CountryCatalog countryCatalog;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -34,6 +55,7 @@ class CountriesControllerIntegrationTest {
     void setup() {
         countryRepository.deleteAll();
         countryRepository.save(new Country("France", "🇫🇷", 67000000, "Paris"));
+        countryCatalog.invalidate();
     }
 
     // Test: GET /countries returns a list of countries
@@ -57,6 +79,238 @@ class CountriesControllerIntegrationTest {
                 .andExpect(jsonPath("$.name").value("France"));
     }
 
+    @Test
+    @DisplayName("GET /countries with a matching ETag returns 304 without serializing")
+    void getAllCountriesNotModified() throws Exception {
+        String etag = mockMvc.perform(get("/countries"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+        long encodes = countryCatalog.stats().encodes();
+
+        mockMvc.perform(get("/countries").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+        mockMvc.perform(get("/countries/France").header("If-None-Match",
+                        mockMvc.perform(get("/countries/France")).andReturn().getResponse().getHeader("ETag")))
+                .andExpect(status().isNotModified());
+
+        assertEquals(encodes + 1, countryCatalog.stats().encodes());
+    }
+
+    @Test
+    @DisplayName("GET /countries negotiates CBOR and Smile encodings of the same list")
+    void getAllCountriesBinary() throws Exception {
+        String json = mockMvc.perform(get("/countries")).andReturn().getResponse().getContentAsString();
+
+        Map<String, ObjectMapper> formats = Map.of("application/cbor", new CBORMapper(), "application/x-jackson-smile", new SmileMapper());
+        for (Map.Entry<String, ObjectMapper> format : formats.entrySet()) {
+            byte[] body = mockMvc.perform(get("/countries").accept(format.getKey()))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(format.getKey()))
+                    .andReturn().getResponse().getContentAsByteArray();
+            assertEquals(objectMapper.readTree(json), format.getValue().readTree(body));
+        }
+    }
+
+    @Test
+    @DisplayName("GET /countries as columns carries every field, with its own ETag")
+    void getAllCountriesColumns() throws Exception {
+        countryRepository.save(new Country("Monaco", "🇲🇨", 38000, "Monaco"));
+        countryCatalog.invalidate();
+        String jsonEtag = mockMvc.perform(get("/countries")).andReturn().getResponse().getHeader("ETag");
+
+        MockHttpServletResponse response = mockMvc.perform(get("/countries").accept("application/vnd.flags.columns+cbor"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Vary", containsString("Accept")))
+                .andReturn().getResponse();
+        CountryColumnsDto columns = new CBORMapper().readValue(response.getContentAsByteArray(), CountryColumnsDto.class);
+
+        assertNotEquals(jsonEtag, response.getHeader("ETag"));
+        assertEquals(List.of("France", "Monaco"), columns.getNames());
+        assertArrayEquals(new int[]{67000000, 38000}, columns.getPopulations());
+        assertEquals("Monaco", columns.getStrings().get(columns.getCapitals()[1]));
+        assertEquals(countryCatalog.snapshot().find("France").detail().getFlag(), columns.getStrings().get(columns.getFlags()[0]));
+        mockMvc.perform(get("/countries").accept("application/vnd.flags.columns+cbor").header("If-None-Match", response.getHeader("ETag")))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    @DisplayName("GET /countries serves a gzip body when the client accepts it")
+    void getAllCountriesGzip() throws Exception {
+        byte[] gzip = mockMvc.perform(get("/countries").header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            assertEquals("France", objectMapper.readTree(in).get(0).get("name").asText());
+        }
+    }
+
+    @Test
+    @DisplayName("GET /countries tags the gzip body apart from the plain one, and revalidates either")
+    void gzipBodyHasItsOwnETag() throws Exception {
+        String plain = mockMvc.perform(get("/countries/France")).andReturn().getResponse().getHeader("ETag");
+        String gzip = mockMvc.perform(get("/countries/France").header("Accept-Encoding", "gzip"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        assertEquals(plain.substring(0, plain.length() - 1) + "-gz\"", gzip);
+        mockMvc.perform(get("/countries/France").header("Accept-Encoding", "gzip").header("If-None-Match", plain))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", plain));
+        mockMvc.perform(get("/countries/France").header("If-None-Match", "W/" + gzip))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", gzip));
+
+        CountryDetailDto dto = new CountryDetailDto();
+        dto.setName("France");
+        dto.setFlag("🇫🇷");
+        dto.setPopulation(68000000);
+        dto.setCapital("Paris");
+        mockMvc.perform(put("/countries/France").header("If-Match", gzip)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("PUT /countries/{name} changes that country's ETag")
+    void updateCountryChangesETag() throws Exception {
+        String before = mockMvc.perform(get("/countries/France")).andReturn().getResponse().getHeader("ETag");
+        CountryDetailDto dto = new CountryDetailDto();
+        dto.setName("France");
+        dto.setFlag("🇫🇷");
+        dto.setPopulation(68000000);
+        dto.setCapital("Paris");
+
+        mockMvc.perform(put("/countries/France")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/countries/France").header("If-None-Match", before))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.population", is(68000000)));
+    }
+
+    @Test
+    @DisplayName("GET /countries?search=...&fuzzy=true returns close matches with distances")
+    void fuzzySearch() throws Exception {
+        mockMvc.perform(get("/countries").param("search", "Frnace").param("fuzzy", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name", is("France")))
+                .andExpect(jsonPath("$[0].distance", is(2)));
+
+        mockMvc.perform(get("/countries").accept("text/html").param("search", "Frnace").param("fuzzy", "true"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(org.hamcrest.Matchers.containsString("Closest matches")));
+    }
+
+    @Test
+    @DisplayName("GET /countries/suggest follows creates, updates and deletes")
+    void suggest() throws Exception {
+        CountryDetailDto finland = new CountryDetailDto();
+        finland.setName("Finland");
+        finland.setFlag("🇫🇮");
+        finland.setPopulation(5500000);
+        finland.setCapital("Helsinki");
+        mockMvc.perform(post("/countries").contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(finland)))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/countries/suggest").param("q", "f"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].name", contains("France", "Finland")));
+        mockMvc.perform(get("/countries/suggest").param("q", "PAR"))
+                .andExpect(jsonPath("$[0].name", is("France")))
+                .andExpect(jsonPath("$[0].match", is("Paris")));
+
+        finland.setPopulation(90000000);
+        mockMvc.perform(put("/countries/Finland").contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(finland)))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/countries/suggest").param("q", "f").param("limit", "1"))
+                .andExpect(jsonPath("$[*].name", contains("Finland")));
+
+        mockMvc.perform(delete("/countries/Finland")).andExpect(status().isNoContent());
+        mockMvc.perform(get("/countries/suggest").param("q", "hel"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+
+        mockMvc.perform(get("/countries/suggest").param("q", "f").param("limit", "11"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /countries?limit=... pages through countries in name order with cursors")
+    void pagination() throws Exception {
+        for (String name : new String[]{"Austria", "Belgium", "Chile", "Denmark"}) {
+            countryRepository.save(new Country(name, "flag", 1000000, name + " City"));
+        }
+        countryCatalog.invalidate();
+
+        String next = mockMvc.perform(get("/countries").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].name", contains("Austria", "Belgium")))
+                .andExpect(jsonPath("$.items[0].flag").exists())
+                .andExpect(jsonPath("$.next").isString())
+                .andReturn().getResponse().getContentAsString();
+        String cursor = objectMapper.readTree(next).get("next").asText();
+
+        mockMvc.perform(get("/countries").param("limit", "10").param("after", cursor).param("fields", "name,population"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].name", contains("Chile", "Denmark", "France")))
+                .andExpect(jsonPath("$.items[0].population", is(1000000)))
+                .andExpect(jsonPath("$.items[0].flag").doesNotExist())
+                .andExpect(jsonPath("$.next").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("GET /countries?limit=... rejects bad cursors, limits and fields")
+    void paginationValidation() throws Exception {
+        mockMvc.perform(get("/countries").param("limit", "2").param("after", "not a cursor"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/countries").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/countries").param("limit", "2").param("fields", "name,secret"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("The countries page renders the first page and the cursor for infinite scroll")
+    void countriesPageIsPaged() throws Exception {
+        for (int i = 0; i < 60; i++) {
+            countryRepository.save(new Country(String.format("Country %02d", i), "flag", i, null));
+        }
+        countryCatalog.invalidate();
+
+        mockMvc.perform(get("/countries").accept("text/html"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(org.hamcrest.Matchers.containsString("Country 47")))
+                .andExpect(content().string(org.hamcrest.Matchers.not(org.hamcrest.Matchers.containsString("Country 48"))))
+                .andExpect(content().string(org.hamcrest.Matchers.containsString("data-next=\"")))
+                .andExpect(content().string(org.hamcrest.Matchers.containsString("id=\"page-sentinel\"")));
+    }
+
+    @Test
+    @DisplayName("GET /countries/by-population and /by-capital query the secondary indexes")
+    void populationAndCapitalQueries() throws Exception {
+        countryRepository.save(new Country("Japan", "flag", 125000000, "Tokyo"));
+        countryRepository.save(new Country("Iceland", "flag", 370000, "Reykjavík"));
+        countryCatalog.invalidate();
+
+        mockMvc.perform(get("/countries/by-population/top").param("n", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].name", contains("Japan", "France")));
+        mockMvc.perform(get("/countries/by-population").param("min", "300000").param("max", "70000000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].name", contains("Iceland", "France")));
+        mockMvc.perform(get("/countries/by-population").param("min", "10").param("max", "1"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/countries/by-capital/reykjavik"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].name", contains("Iceland")));
+    }
+
     @Test
     @DisplayName("POST /countries creates new country")
     void createCountry() throws Exception {
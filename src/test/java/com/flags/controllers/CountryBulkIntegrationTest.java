@@ -0,0 +1,89 @@
+package com.flags.controllers;
+
+import com.flags.catalog.CountryCatalog;
+import com.flags.models.Country;
+import com.flags.repositories.CountryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Batches of two so that the import below spans several existence checks and inserts
+@SpringBootTest(properties = "flags.catalog.batch-size=2")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CountryBulkIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CountryRepository countryRepository;
+
+    @Autowired
+    private CountryCatalog countryCatalog;
+
+    @BeforeEach
+    void setup() {
+        countryRepository.deleteAll();
+        countryRepository.save(new Country("France", "https://flagcdn.com/fr.svg", 67000000, "Paris"));
+        countryCatalog.invalidate();
+    }
+
+    @Test
+    @DisplayName("POST /countries/bulk imports valid lines and reports the others by line number")
+    void importReportsFailedLines() throws Exception {
+        String ndjson = """
+                {"name":"Japan","flag":"https://flagcdn.com/jp.svg","population":125000000,"capital":"Tokyo"}
+                {"name":"Broken",
+                {"name":"Nowhere","flag":"x.svg","population":-1,"capital":"None"}
+                {"name":"France","flag":"https://flagcdn.com/fr.svg","population":67000000,"capital":"Paris"}
+
+                {"name":"Japan","flag":"https://flagcdn.com/jp.svg","population":125000000,"capital":"Tokyo"}
+                {"name":"Kenya","flag":"https://flagcdn.com/ke.svg","population":54000000,"capital":"Nairobi"}
+                """;
+
+        mockMvc.perform(post("/countries/bulk").contentType(MediaType.APPLICATION_NDJSON).content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.read", is(6)))
+                .andExpect(jsonPath("$.created", is(2)))
+                .andExpect(jsonPath("$.failed", is(4)))
+                .andExpect(jsonPath("$.errors[*].line", contains(2, 3, 4, 6)))
+                .andExpect(jsonPath("$.errors[2].message", is("Country already exists")))
+                .andExpect(jsonPath("$.errors[3].name", is("Japan")));
+
+        assertEquals(3, countryRepository.count());
+        mockMvc.perform(get("/countries/Kenya")).andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("GET /countries/export streams every row as NDJSON in name order")
+    void exportStreamsNdjson() throws Exception {
+        countryRepository.save(new Country("Austria", "https://flagcdn.com/at.svg", 9000000, "Vienna"));
+
+        MvcResult result = mockMvc.perform(get("/countries/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("""
+                {"name":"Austria","flag":"https://flagcdn.com/at.svg","population":9000000,"capital":"Vienna"}
+                {"name":"France","flag":"https://flagcdn.com/fr.svg","population":67000000,"capital":"Paris"}
+                """, body);
+    }
+}
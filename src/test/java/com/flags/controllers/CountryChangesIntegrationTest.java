@@ -0,0 +1,105 @@
+package com.flags.controllers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flags.catalog.CountryCatalog;
+import com.flags.exceptions.GlobalExceptionHandler;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {"flags.changes.retention=3", "flags.changes.stream-timeout=1s", "flags.changes.heartbeat=200ms"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CountryChangesIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CountryCatalog countryCatalog;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    @DisplayName("GET /countries/changes returns writes after the cursor, then 410 once they are dropped")
+    void changesSinceCursor() throws Exception {
+        long since = head();
+
+        mockMvc.perform(post("/countries").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Atlantis\",\"flag\":\"https://example.com/at.svg\",\"population\":10,\"capital\":\"Poseidonia\"}"))
+                .andExpect(status().isCreated());
+        mockMvc.perform(put("/countries/Atlantis").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Atlantis\",\"flag\":\"https://example.com/at.svg\",\"population\":20,\"capital\":\"Poseidonia\"}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/countries/Japan"))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/countries/changes").param("since", Long.toString(since)).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changes[*].name", contains("Atlantis", "Japan")))
+                .andExpect(jsonPath("$.changes[*].type", contains("put", "delete")))
+                .andExpect(jsonPath("$.changes[0].country.population", is(20)))
+                .andExpect(jsonPath("$.more", is(false)));
+
+        for (String name : new String[]{"Lemuria", "Mu", "Thule"}) {
+            mockMvc.perform(post("/countries").contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"name\":\"" + name + "\",\"flag\":\"https://example.com/x.svg\",\"population\":1,\"capital\":\"X\"}"))
+                    .andExpect(status().isCreated());
+        }
+        mockMvc.perform(get("/countries/changes").param("since", Long.toString(since)).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isGone())
+                .andExpect(header().string(GlobalExceptionHandler.CHANGE_HEAD, Long.toString(head())));
+    }
+
+    @Test
+    @DisplayName("GET /countries/changes streams changes as server-sent events")
+    void streamsChanges() throws Exception {
+        long since = head();
+        mockMvc.perform(put("/countries/France").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"France\",\"flag\":\"https://flagcdn.com/fr.svg\",\"population\":68000000,\"capital\":\"Paris\"}"))
+                .andExpect(status().isOk());
+
+        MvcResult result = mockMvc.perform(get("/countries/changes").param("since", Long.toString(since))
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult(5000);
+        String body = result.getResponse().getContentAsString();
+
+        assertTrue(body.contains("id:" + (since + 1)), body);
+        assertTrue(body.contains("event:put"), body);
+        assertTrue(body.contains("\"name\":\"France\""), body);
+    }
+
+    @Test
+    @DisplayName("A stale cursor gets a resync event")
+    void streamSignalsResync() throws Exception {
+        MvcResult result = mockMvc.perform(get("/countries/changes").param("since", "1").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult(5000);
+
+        assertTrue(result.getResponse().getContentAsString().contains("event:resync"));
+    }
+
+    private long head() throws Exception {
+        countryCatalog.snapshot();
+        MvcResult result = mockMvc.perform(get("/countries/changes").param("since", "0").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isGone())
+                .andReturn();
+        return Long.parseLong(result.getResponse().getHeader(GlobalExceptionHandler.CHANGE_HEAD));
+    }
+}
@@ -0,0 +1,147 @@
+package com.flags.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flags.catalog.CountryCatalog;
+import com.flags.dto.CountryDetailDto;
+import com.flags.models.Country;
+import com.flags.repositories.CountryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class FlagsControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CountryRepository countryRepository;
+
+    @Autowired
+    private CountryCatalog countryCatalog;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setup() {
+        countryRepository.deleteAll();
+        countryRepository.save(new Country("France", "https://flagcdn.com/fr.svg", 67000000, "Paris"));
+        countryRepository.save(new Country("Atlantis", "https://flagcdn.com/xa.svg", 0, "Poseidonia"));
+        countryCatalog.invalidate();
+    }
+
+    @Test
+    @DisplayName("Country JSON and pages point at the local flag URL")
+    void countriesUseLocalFlagUrl() throws Exception {
+        mockMvc.perform(get("/countries/France"))
+                .andExpect(jsonPath("$.flag", startsWith("/flags/France.svg?v=")));
+
+        mockMvc.perform(get("/countries/France").accept("text/html"))
+                .andExpect(content().string(containsString("src=\"/flags/France.svg?v=")));
+    }
+
+    @Test
+    @DisplayName("GET /flags/{name}.svg serves the minified flag with immutable caching")
+    void servesFlag() throws Exception {
+        MvcResult result = mockMvc.perform(get(flagUrl("France")))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/svg+xml"))
+                .andExpect(header().string("Cache-Control", "public, max-age=31536000, immutable"))
+                .andExpect(header().string("Content-Security-Policy", "default-src 'none'; style-src 'unsafe-inline'"))
+                .andExpect(header().string("X-Content-Type-Options", "nosniff"))
+                .andExpect(header().exists("ETag"))
+                .andExpect(content().string(startsWith("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"900\"")))
+                .andReturn();
+
+        mockMvc.perform(get(flagUrl("France")).header("If-None-Match", result.getResponse().getHeader("ETag")))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    @DisplayName("GET /flags/{name}.svg returns 404 for unknown countries and 502 when the origin fails")
+    void missingFlags() throws Exception {
+        mockMvc.perform(get("/flags/Nowhere.svg")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/flags/Atlantis.svg")).andExpect(status().isBadGateway());
+    }
+
+    @Test
+    @DisplayName("PUT with the local flag URL keeps the flag's origin")
+    void updateKeepsOrigin() throws Exception {
+        CountryDetailDto dto = new CountryDetailDto();
+        dto.setName("France");
+        dto.setFlag(flagUrl("France"));
+        dto.setPopulation(68000000);
+        dto.setCapital("Paris");
+
+        mockMvc.perform(put("/countries/France")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isOk());
+
+        assertEquals("https://flagcdn.com/fr.svg", countryRepository.findById("France").orElseThrow().getFlag());
+        assertEquals(flagUrl("France"), countryCatalog.snapshot().find("France").detail().getFlag());
+    }
+
+    @Test
+    @DisplayName("The countries grid loads all flags with one atlas request instead of one request per flag")
+    void gridUsesAtlas() throws Exception {
+        countryRepository.save(new Country("Japan", "https://flagcdn.com/jp.svg", 125000000, "Tokyo"));
+        countryCatalog.invalidate();
+
+        // Before: one image request per card, each for the flag itself
+        int requestsBefore = 0;
+        long bytesBefore = 0;
+        for (String name : List.of("France", "Japan")) {
+            bytesBefore += mockMvc.perform(get(flagUrl(name))).andReturn().getResponse().getContentAsByteArray().length;
+            requestsBefore++;
+        }
+
+        String page = mockMvc.perform(get("/countries").accept("text/html"))
+                .andReturn().getResponse().getContentAsString();
+        Set<String> imageUrls = new HashSet<>();
+        Matcher reference = Pattern.compile("<(?:img|use)[^>]*?\\s(?:src|href)=\"([^\"#]+)").matcher(page);
+        while (reference.find()) {
+            imageUrls.add(reference.group(1));
+        }
+        assertEquals(1, imageUrls.size());
+        String atlasUrl = imageUrls.iterator().next();
+        assertTrue(atlasUrl.startsWith("/flags/atlas.svg?v="));
+        assertTrue(page.contains(atlasUrl + "#f-France"));
+
+        byte[] atlas = mockMvc.perform(get(atlasUrl).header("Accept-Encoding", "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("Cache-Control", "public, max-age=31536000, immutable"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertTrue(imageUrls.size() < requestsBefore);
+        assertTrue(atlas.length < bytesBefore, atlas.length + " atlas bytes vs " + bytesBefore + " for separate flags");
+    }
+
+    private String flagUrl(String name) {
+        return countryCatalog.snapshot().find(name).detail().getFlag();
+    }
+}
@@ -0,0 +1,111 @@
+package com.flags.controllers;
+
+import com.flags.dto.CountryDto;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@AutoConfigureWebTestClient
+@ActiveProfiles({"test", "reactive"})
+class ReactiveCountriesControllerIntegrationTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Test
+    @DisplayName("Only the reactive controller is registered")
+    void replacesMvcControllers() {
+        assertEquals(1, context.getBeanNamesForType(ReactiveCountriesController.class).length);
+        assertEquals(0, context.getBeanNamesForType(CountriesController.class).length);
+    }
+
+    @Test
+    @DisplayName("GET /countries returns the list with an ETag")
+    void getAllCountries() {
+        String etag = webTestClient.get().uri("/countries").accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectBody().jsonPath("$.length()").isEqualTo(11)
+                .returnResult().getResponseHeaders().getETag();
+
+        webTestClient.get().uri("/countries").accept(MediaType.APPLICATION_JSON).header("If-None-Match", etag)
+                .exchange()
+                .expectStatus().isNotModified();
+    }
+
+    @Test
+    @DisplayName("GET /countries/{name} tags the gzip body apart from the plain one")
+    void gzipBodyHasItsOwnETag() {
+        String plain = webTestClient.get().uri("/countries/France")
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(byte[].class).getResponseHeaders().getETag();
+        String gzip = webTestClient.get().uri("/countries/France").header("Accept-Encoding", "gzip")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("Content-Encoding", "gzip")
+                .returnResult(byte[].class).getResponseHeaders().getETag();
+
+        assertEquals(plain.substring(0, plain.length() - 1) + "-gz\"", gzip);
+        webTestClient.get().uri("/countries/France").header("Accept-Encoding", "gzip").header("If-None-Match", plain)
+                .exchange()
+                .expectStatus().isNotModified();
+    }
+
+    @Test
+    @DisplayName("GET /countries streams newline-delimited JSON")
+    void streamsNdjson() {
+        List<CountryDto> countries = webTestClient.get().uri("/countries").accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(CountryDto.class).getResponseBody()
+                .collectList().block();
+
+        assertEquals(11, countries.size());
+        assertTrue(countries.stream().anyMatch(c -> c.getName().equals("France")));
+    }
+
+    @Test
+    @DisplayName("GET /countries streams server-sent events")
+    void streamsServerSentEvents() {
+        List<ServerSentEvent<CountryDto>> events = webTestClient.get().uri("/countries").accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<CountryDto>>() { }).getResponseBody()
+                .collectList().block();
+
+        assertEquals(11, events.size());
+        assertNotNull(events.getFirst().data().getName());
+    }
+
+    @Test
+    @DisplayName("GET /countries/{name} returns details, or 404 for unknown names")
+    void getCountryByName() {
+        webTestClient.get().uri("/countries/France").accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists("ETag")
+                .expectBody().jsonPath("$.capital").isEqualTo("Paris");
+
+        webTestClient.get().uri("/countries/Atlantis").accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+}
@@ -0,0 +1,171 @@
+package com.flags.flagstore;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flags.catalog.CountryCatalog;
+import com.flags.mappers.CountryMapperImpl;
+import com.flags.models.Country;
+import com.flags.repositories.CountryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class FlagAtlasTest {
+
+    @TempDir
+    Path dir;
+
+    private final CountryRepository repository = mock(CountryRepository.class);
+    private final CountryCatalog catalog = new CountryCatalog(repository, new CountryMapperImpl(), new ObjectMapper(), List.of());
+    private final List<String> fetched = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch slowOrigin = new CountDownLatch(1);
+    private volatile boolean deadOrigin = true;
+    private FlagStore store;
+    private FlagAtlas atlas;
+
+    @BeforeEach
+    void setup() {
+        when(repository.findAll()).thenReturn(List.of(
+                new Country("France", "https://flagcdn.com/fr.svg", 67000000, "Paris"),
+                new Country("Japan", "https://flagcdn.com/jp.svg", 125000000, "Tokyo"),
+                new Country("Côte d'Ivoire", "https://flagcdn.com/ci.svg", 26000000, "Yamoussoukro")));
+        FlagOrigin origin = url -> {
+            fetched.add(url);
+            if (url.endsWith("/dead.svg") && deadOrigin) {
+                throw new IOException("GET " + url + " returned 404");
+            }
+            if (url.endsWith("/slow.svg")) {
+                try {
+                    slowOrigin.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+            String color = url.substring(url.lastIndexOf('/') + 1, url.lastIndexOf('.'));
+            return ("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"30\" height=\"20\">"
+                    + "<rect width=\"30\" height=\"20\" fill=\"#" + color + "\"/></svg>").getBytes(StandardCharsets.UTF_8);
+        };
+        store = new FlagStore(catalog, origin,
+                new FlagStoreProperties(dir.toString(), DataSize.ofMegabytes(1), DataSize.ofKilobytes(64), "",
+                        List.of(), DataSize.ofMegabytes(1)));
+        atlas = new FlagAtlas(catalog, store);
+    }
+
+    @Test
+    void escapesSymbolIds() {
+        assertEquals("f-France", FlagAtlas.symbolId("France"));
+        assertEquals("f-C_00f4te_0020d_0027Ivoire", FlagAtlas.symbolId("Côte d'Ivoire"));
+        assertEquals("f-a_005fb", FlagAtlas.symbolId("a_b"));
+    }
+
+    @Test
+    void convertsFlagToSymbol() {
+        String svg = "<svg xmlns=\"http://www.w3.org/2000/svg\" xmlns:xlink=\"http://www.w3.org/1999/xlink\" "
+                + "width=\"900\" height=\"600\" fill=\"none\"><defs><clipPath id=\"a\"><path d=\"M0 0h9v6H0z\"/></clipPath>"
+                + "</defs><g clip-path=\"url(#a)\"><use xlink:href=\"#a\"/></g></svg>";
+
+        assertEquals("<symbol id=\"f-X\" viewBox=\"0 0 900 600\"><g fill=\"none\"><defs><clipPath id=\"f-X-a\">"
+                        + "<path d=\"M0 0h9v6H0z\"/></clipPath></defs><g clip-path=\"url(#f-X-a)\"><use xlink:href=\"#f-X-a\"/>"
+                        + "</g></g></symbol>",
+                new String(FlagAtlas.toSymbol("f-X", svg), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void holdsOneSymbolPerCountry() {
+        String svg = new String(atlas.document().svg(), StandardCharsets.UTF_8);
+
+        assertTrue(svg.startsWith("<svg xmlns=\"http://www.w3.org/2000/svg\""));
+        assertTrue(svg.contains("<symbol id=\"f-France\" viewBox=\"0 0 30 20\">"));
+        assertTrue(svg.contains("<symbol id=\"f-Japan\""));
+        assertTrue(svg.contains("<symbol id=\"f-C_00f4te_0020d_0027Ivoire\""));
+        assertEquals(3, fetched.size());
+        assertSame(atlas.document(), atlas.document());
+    }
+
+    @Test
+    void updateReconvertsOnlyTheChangedFlag() {
+        FlagAtlas.Document before = atlas.document();
+        fetched.clear();
+
+        catalog.put(() -> new Country("Japan", "https://flagcdn.com/jp.svg", 124000000, "Tokyo"));
+        FlagAtlas.Document sameFlag = atlas.awaitLatest();
+        catalog.put(() -> new Country("France", "https://flagcdn.com/f00.svg", 67000000, "Paris"));
+        FlagAtlas.Document after = atlas.awaitLatest();
+
+        assertEquals(List.of("https://flagcdn.com/f00.svg"), fetched);
+        assertArrayEquals(before.svg(), sameFlag.svg());
+        assertEquals(before.etag(), sameFlag.etag());
+        assertNotEquals(before.etag(), after.etag());
+        String svg = new String(after.svg(), StandardCharsets.UTF_8);
+        assertTrue(svg.contains("fill=\"#f00\""));
+        assertFalse(svg.contains("fill=\"#fr\""));
+        assertTrue(svg.contains("fill=\"#jp\""));
+    }
+
+    @Test
+    void removalDropsSymbol() {
+        atlas.document();
+
+        catalog.remove("Japan", () -> { });
+
+        assertFalse(new String(atlas.awaitLatest().svg(), StandardCharsets.UTF_8).contains("f-Japan"));
+    }
+
+    @Test
+    void failedFlagIsNotRefetchedOnEveryVersion() {
+        atlas.document();
+        fetched.clear();
+
+        catalog.put(() -> new Country("Japan", "https://flagcdn.com/dead.svg", 125000000, "Tokyo"));
+        FlagAtlas.Document failed = atlas.awaitLatest();
+        catalog.put(() -> new Country("France", "https://flagcdn.com/fr.svg", 66000000, "Paris"));
+        catalog.put(() -> new Country("Japan", "https://flagcdn.com/dead.svg", 124000000, "Tokyo"));
+        FlagAtlas.Document later = atlas.awaitLatest();
+        catalog.put(() -> new Country("Japan", "https://flagcdn.com/0f0.svg", 124000000, "Tokyo"));
+        FlagAtlas.Document fixed = atlas.awaitLatest();
+
+        assertEquals(List.of("https://flagcdn.com/dead.svg", "https://flagcdn.com/0f0.svg"), fetched);
+        assertFalse(new String(failed.svg(), StandardCharsets.UTF_8).contains("f-Japan"));
+        assertEquals(failed.etag(), later.etag());
+        assertTrue(new String(fixed.svg(), StandardCharsets.UTF_8).contains("f-Japan"));
+    }
+
+    @Test
+    void retriesFailedFlagWithoutACatalogWrite() throws InterruptedException {
+        atlas = new FlagAtlas(catalog, store, Duration.ofMillis(50));
+        atlas.document();
+        catalog.put(() -> new Country("Japan", "https://flagcdn.com/dead.svg", 125000000, "Tokyo"));
+        assertFalse(new String(atlas.awaitLatest().svg(), StandardCharsets.UTF_8).contains("f-Japan"));
+
+        deadOrigin = false;
+        Thread.sleep(100);
+
+        assertTrue(new String(atlas.awaitLatest().svg(), StandardCharsets.UTF_8).contains("f-Japan"));
+    }
+
+    @Test
+    void servesThePreviousAtlasWhileFlagsAreFetched() {
+        FlagAtlas.Document before = atlas.document();
+
+        catalog.put(() -> new Country("Japan", "https://flagcdn.com/slow.svg", 125000000, "Tokyo"));
+        // The fetch is stuck on slowOrigin, so anything but the previous document would hang here
+        FlagAtlas.Document during = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> atlas.document());
+        slowOrigin.countDown();
+        FlagAtlas.Document after = atlas.awaitLatest();
+
+        assertSame(before, during);
+        assertTrue(new String(after.svg(), StandardCharsets.UTF_8).contains("fill=\"#slow\""));
+    }
+}
@@ -0,0 +1,134 @@
+package com.flags.flagstore;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flags.catalog.CountryCatalog;
+import com.flags.exceptions.CountryNotFoundException;
+import com.flags.exceptions.FlagUnavailableException;
+import com.flags.mappers.CountryMapperImpl;
+import com.flags.models.Country;
+import com.flags.repositories.CountryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class FlagStoreTest {
+
+    private static final String SVG = """
+            <?xml version="1.0"?>
+            <!-- comment -->
+            <svg xmlns="http://www.w3.org/2000/svg"
+                 viewBox="0 0 3 2">
+                <rect width="3"   height="2" fill="#fff" />
+            </svg>
+            """;
+
+    @TempDir
+    Path dir;
+
+    private final CountryRepository repository = mock(CountryRepository.class);
+    private final CountryCatalog catalog = new CountryCatalog(repository, new CountryMapperImpl(), new ObjectMapper(), List.of());
+    private final AtomicInteger fetches = new AtomicInteger();
+    private final FlagOrigin origin = url -> {
+        fetches.incrementAndGet();
+        if (url.contains("missing")) {
+            throw new IOException("404");
+        }
+        return SVG.replace("#fff", "#" + url.hashCode()).getBytes(StandardCharsets.UTF_8);
+    };
+
+    @BeforeEach
+    void setup() {
+        List<Country> countries = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            countries.add(new Country("Country " + i, "https://flagcdn.com/c" + i + ".svg", i, null));
+        }
+        countries.add(new Country("Nowhere", "https://flagcdn.com/missing.svg", 0, null));
+        when(repository.findAll()).thenReturn(countries);
+    }
+
+    @Test
+    void minifies() {
+        assertEquals("<svg xmlns=\"http://www.w3.org/2000/svg\" viewBox=\"0 0 3 2\"><rect width=\"3\" height=\"2\" fill=\"#fff\"/></svg>",
+                new String(SvgMinifier.minify(SVG.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void fetchesEachFlagOnce() {
+        FlagStore store = store(DataSize.ofMegabytes(1), DataSize.ofKilobytes(64));
+
+        FlagImage first = store.get("Country 1");
+        FlagImage second = store.get("Country 1");
+
+        assertEquals(1, fetches.get());
+        assertEquals(first.etag(), second.etag());
+        assertArrayEquals(first.bytes(), second.bytes());
+        assertTrue(new String(first.bytes(), StandardCharsets.UTF_8).startsWith("<svg"));
+    }
+
+    @Test
+    void diskTierSurvivesRestart() {
+        FlagImage before = store(DataSize.ofMegabytes(1), DataSize.ofKilobytes(64)).get("Country 2");
+
+        FlagImage after = store(DataSize.ofMegabytes(1), DataSize.ofKilobytes(64)).get("Country 2");
+
+        assertEquals(1, fetches.get());
+        assertEquals(before.etag(), after.etag());
+    }
+
+    @Test
+    void largeFlagsAreOnlyOnDisk() throws IOException {
+        FlagImage flag = store(DataSize.ofMegabytes(1), DataSize.ofBytes(16)).get("Country 3");
+
+        assertNull(flag.bytes());
+        assertEquals(flag.length(), Files.size(flag.file()));
+    }
+
+    @Test
+    void countsEachRequestOnce() {
+        store(DataSize.ofMegabytes(1), DataSize.ofBytes(16)).get("Country 4");
+        FlagStore restarted = store(DataSize.ofMegabytes(1), DataSize.ofBytes(16));
+
+        restarted.get("Country 4");
+        restarted.get("Country 4");
+
+        assertEquals(new FlagStoreStats(0, 2, 0, 0), restarted.stats());
+    }
+
+    @Test
+    void memoryTierIsBounded() {
+        FlagStore store = store(DataSize.ofBytes(500), DataSize.ofBytes(200));
+
+        for (int i = 0; i < 20; i++) {
+            assertNotNull(store.get("Country " + i).bytes());
+        }
+
+        assertTrue(store.memorySize() <= 500);
+    }
+
+    @Test
+    void failedFetchIsRetried() {
+        FlagStore store = store(DataSize.ofMegabytes(1), DataSize.ofKilobytes(64));
+
+        assertThrows(FlagUnavailableException.class, () -> store.get("Nowhere"));
+        assertThrows(FlagUnavailableException.class, () -> store.get("Nowhere"));
+        assertThrows(CountryNotFoundException.class, () -> store.get("Atlantis"));
+
+        assertEquals(2, fetches.get());
+    }
+
+    private FlagStore store(DataSize memorySize, DataSize maxMemoryEntry) {
+        return new FlagStore(catalog, origin, new FlagStoreProperties(dir.toString(), memorySize, maxMemoryEntry, "", List.of(), DataSize.ofMegabytes(1)));
+    }
+}
@@ -0,0 +1,53 @@
+package com.flags.flagstore;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpFlagOriginTest {
+
+    private final HttpFlagOrigin origin = new HttpFlagOrigin(List.of("flagcdn.com", "localhost"), 16);
+
+    @Test
+    void refusesUrlsOutsideTheAllowlist() {
+        assertThrows(IOException.class, () -> origin.fetch("http://flagcdn.com/fr.svg"));
+        assertThrows(IOException.class, () -> origin.fetch("https://evil.example/fr.svg"));
+        assertThrows(IOException.class, () -> origin.fetch("file:///etc/passwd"));
+        assertThrows(IOException.class, () -> origin.fetch("🇫🇷"));
+    }
+
+    @Test
+    void refusesAllowedHostsThatResolveToInternalAddresses() {
+        IOException refused = assertThrows(IOException.class, () -> origin.fetch("https://localhost/fr.svg"));
+
+        assertTrue(refused.getMessage().contains("non-public address"), refused.getMessage());
+    }
+
+    @Test
+    void classifiesInternalAddresses() throws IOException {
+        for (String internal : List.of("127.0.0.1", "10.1.2.3", "172.16.0.1", "192.168.1.1", "169.254.169.254",
+                "100.64.0.1", "0.0.0.0", "::1", "fd00::1", "fe80::1")) {
+            assertTrue(HttpFlagOrigin.isInternal(InetAddress.getByName(internal)), internal);
+        }
+        for (String external : List.of("151.101.1.1", "100.128.0.1", "2a04:4e42::1")) {
+            assertFalse(HttpFlagOrigin.isInternal(InetAddress.getByName(external)), external);
+        }
+    }
+
+    @Test
+    void acceptsOnlySmallSvgBodies() throws IOException {
+        byte[] svg = "<svg/>".getBytes();
+
+        assertArrayEquals(svg, HttpFlagOrigin.read(new ByteArrayInputStream(svg), -1, "image/svg+xml; charset=utf-8", 16));
+        assertThrows(IOException.class, () -> HttpFlagOrigin.read(new ByteArrayInputStream(svg), -1, "text/html", 16));
+        assertThrows(IOException.class, () -> HttpFlagOrigin.read(new ByteArrayInputStream(svg), -1, "", 16));
+        assertThrows(IOException.class, () -> HttpFlagOrigin.read(new ByteArrayInputStream(svg), 17, "image/svg+xml", 16));
+        // A missing or understated Content-Length does not get past the cap
+        assertThrows(IOException.class, () -> HttpFlagOrigin.read(new ByteArrayInputStream(new byte[17]), -1, "image/svg+xml", 16));
+    }
+}
@@ -0,0 +1,123 @@
+package com.flags.loader;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flags.catalog.CountryCatalog;
+import com.flags.models.Country;
+import com.flags.repositories.CountryRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class CatalogLoaderStartupTest {
+
+    private static final String FIXTURE = "classpath:fixtures/restcountries.json";
+    private static final String MISSING = "classpath:fixtures/missing.json";
+
+    @TempDir
+    Path dir;
+
+    private final CountryRepository repository = mock(CountryRepository.class);
+    private final CountryBatchWriter batchWriter = mock(CountryBatchWriter.class);
+    private final CountryCatalog catalog = mock(CountryCatalog.class);
+    private final List<Country> inserted = new ArrayList<>();
+
+    @Test
+    void writesSnapshotAfterLoadingSource() throws IOException {
+        loader(FIXTURE, Duration.ofDays(7)).run();
+
+        CatalogSnapshotFile.Reader snapshot = CatalogSnapshotFile.open(snapshotPath());
+        assertEquals(11, snapshot.header().rows());
+        assertEquals(FIXTURE, snapshot.header().source());
+        assertEquals(11, inserted.size());
+    }
+
+    @Test
+    void prefersFreshSnapshotOverSource() throws IOException {
+        writeSnapshot(MISSING);
+
+        loader(MISSING, Duration.ofDays(7)).run();
+
+        assertEquals(List.of("France", "Japan"), inserted.stream().map(Country::getName).toList());
+        verify(catalog).invalidate();
+    }
+
+    @Test
+    void refreshesStaleSnapshotFromSource() throws IOException {
+        writeSnapshot(FIXTURE);
+
+        loader(FIXTURE, Duration.ZERO).run();
+
+        assertEquals(11, inserted.size());
+        assertEquals(11, CatalogSnapshotFile.open(snapshotPath()).header().rows());
+    }
+
+    @Test
+    void fallsBackToStaleSnapshotWhenSourceFails() throws IOException {
+        writeSnapshot(MISSING);
+
+        loader(MISSING, Duration.ZERO).run();
+
+        verify(repository).deleteAllInBatch();
+        assertEquals(2, inserted.size());
+        assertEquals(2, CatalogSnapshotFile.open(snapshotPath()).header().rows());
+    }
+
+    @Test
+    void failsWithoutSnapshotWhenSourceFails() {
+        assertThrows(IOException.class, () -> loader(MISSING, Duration.ofDays(7)).run());
+        assertFalse(Files.exists(snapshotPath()));
+    }
+
+    @Test
+    void loadsInBackground() throws Exception {
+        CatalogLoader loader = loader(FIXTURE, Duration.ofDays(7), true);
+        loader.run();
+        loader.startupLoad().get(10, TimeUnit.SECONDS);
+        assertEquals(11, inserted.size());
+    }
+
+    @Test
+    void reportsBackgroundLoadFailureWithoutFailingStartup() throws Exception {
+        CatalogLoader failing = loader(MISSING, Duration.ofDays(7), true);
+        failing.run();
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> failing.startupLoad().get(10, TimeUnit.SECONDS));
+        assertInstanceOf(IOException.class, failure.getCause());
+    }
+
+    private CatalogLoader loader(String source, Duration maxAge) {
+        return loader(source, maxAge, false);
+    }
+
+    private CatalogLoader loader(String source, Duration maxAge, boolean inBackground) {
+        doAnswer(invocation -> inserted.addAll(invocation.getArgument(0))).when(batchWriter).insert(anyList());
+        CatalogProperties properties = new CatalogProperties(source, true, inBackground, 4, 2, snapshotPath().toString(), maxAge);
+        return new CatalogLoader(properties, repository, batchWriter, catalog, new ObjectMapper(), new DefaultResourceLoader(),
+                new StandardEnvironment());
+    }
+
+    private void writeSnapshot(String source) throws IOException {
+        try (CatalogSnapshotFile.Writer writer = CatalogSnapshotFile.create(snapshotPath(), source)) {
+            writer.append(new Country("France", "https://flagcdn.com/fr.svg", 67391582, "Paris"));
+            writer.append(new Country("Japan", "https://flagcdn.com/jp.svg", 125836021, "Tokyo"));
+            writer.commit();
+        }
+    }
+
+    private Path snapshotPath() {
+        return dir.resolve("catalog.snapshot");
+    }
+}
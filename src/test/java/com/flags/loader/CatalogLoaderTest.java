@@ -0,0 +1,69 @@
+package com.flags.loader;
+
+import com.flags.catalog.CountryCatalog;
+import com.flags.repositories.CountryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Small batches and workers so the fixture spreads over several in-flight batches
+@SpringBootTest(properties = {"flags.catalog.batch-size=3", "flags.catalog.workers=2"})
+@ActiveProfiles("test")
+class CatalogLoaderTest {
+
+    private static final String FIXTURE = "classpath:fixtures/restcountries.json";
+
+    @Autowired
+    private CatalogLoader catalogLoader;
+
+    @Autowired
+    private CountryRepository countryRepository;
+
+    @Autowired
+    private CountryCatalog countryCatalog;
+
+    @BeforeEach
+    void setup() {
+        countryRepository.deleteAll();
+        countryCatalog.invalidate();
+    }
+
+    @Test
+    void loadsValidRowsAndSkipsInvalidOnes() throws IOException {
+        LoadReport report = catalogLoader.load(FIXTURE);
+
+        assertEquals(14, report.read());
+        assertEquals(11, report.loaded());
+        assertEquals(3, report.skipped());
+        assertEquals(11, countryRepository.count());
+        assertFalse(countryRepository.existsById("Atlantis"));
+    }
+
+    @Test
+    void keepsFirstOccurrenceOfDuplicateName() throws IOException {
+        catalogLoader.load(FIXTURE);
+
+        assertEquals("Paris", countryRepository.findById("France").orElseThrow().getCapital());
+    }
+
+    @Test
+    void publishesLoadedRowsToCatalog() throws IOException {
+        countryCatalog.snapshot();
+
+        catalogLoader.load(FIXTURE);
+
+        assertEquals(11, countryCatalog.snapshot().size());
+        assertEquals("Tokyo", countryCatalog.snapshot().find("Japan").detail().getCapital());
+    }
+
+    @Test
+    void rejectsSourceThatIsNotAnArray() {
+        assertThrows(IOException.class, () -> catalogLoader.load("classpath:application-test.yaml"));
+    }
+}
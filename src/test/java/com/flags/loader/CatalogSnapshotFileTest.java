@@ -0,0 +1,83 @@
+package com.flags.loader;
+
+import com.flags.models.Country;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogSnapshotFileTest {
+
+    @TempDir
+    Path dir;
+
+    private final List<Country> countries = List.of(
+            new Country("Côte d'Ivoire", "https://flagcdn.com/ci.svg", 26378275, "Yamoussoukro"),
+            new Country("Antarctica", "https://flagcdn.com/aq.svg", 1000, null),
+            new Country("Nowhere", "https://flagcdn.com/xx.svg", null, "Somewhere"));
+
+    @Test
+    void roundTripsRowsInBatches() throws IOException {
+        Path path = write(countries);
+
+        CatalogSnapshotFile.Reader reader = CatalogSnapshotFile.open(path);
+        List<List<Country>> batches = new ArrayList<>();
+        reader.read(2, batches::add);
+
+        assertEquals(3, reader.header().rows());
+        assertEquals("classpath:fixtures/restcountries.json", reader.header().source());
+        assertEquals(List.of(countries.subList(0, 2), countries.subList(2, 3)), batches);
+    }
+
+    @Test
+    void rejectsFlippedByte() throws IOException {
+        Path path = write(countries);
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(path, bytes);
+
+        IOException e = assertThrows(IOException.class, () -> CatalogSnapshotFile.open(path));
+        assertTrue(e.getMessage().contains("checksum"));
+    }
+
+    @Test
+    void rejectsTruncatedFile() throws IOException {
+        Path path = write(countries);
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 5));
+
+        assertThrows(IOException.class, () -> CatalogSnapshotFile.open(path));
+    }
+
+    @Test
+    void abandonedWriteKeepsPreviousSnapshot() throws IOException {
+        Path path = write(countries);
+
+        try (CatalogSnapshotFile.Writer writer = CatalogSnapshotFile.create(path, "elsewhere")) {
+            writer.append(countries.get(0));
+        }
+
+        assertEquals(3, CatalogSnapshotFile.open(path).header().rows());
+        try (var files = Files.list(dir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    private Path write(List<Country> rows) throws IOException {
+        Path path = dir.resolve("catalog.snapshot");
+        try (CatalogSnapshotFile.Writer writer = CatalogSnapshotFile.create(path, "classpath:fixtures/restcountries.json")) {
+            for (Country country : rows) {
+                writer.append(country);
+            }
+            writer.commit();
+        }
+        return path;
+    }
+}
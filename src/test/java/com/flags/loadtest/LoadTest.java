@@ -0,0 +1,210 @@
+package com.flags.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-loop HTTP load generator for a running instance. Each simulated connection is a virtual
+ * thread issuing requests back to back over a keep-alive connection, so the number of
+ * connections the server sees matches {@code --connections}. Prints throughput and latency
+ * percentiles per endpoint and appends them to {@code target/loadtest-results.csv}.
+ * <p>
+ * Driven by {@code scripts/loadtest.sh}, or directly:
+ * {@code ./mvnw -Ploadtest verify "-Dloadtest=--url http://localhost:8080 --mode platform --connections 100,1000"}
+ */
+public final class LoadTest {
+
+    private static final Path RESULTS = Path.of("target", "loadtest-results.csv");
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        URI base = URI.create(options.getOrDefault("url", "http://localhost:8080"));
+        String mode = options.getOrDefault("mode", "unknown");
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "5")));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "20")));
+        List<Integer> levels = new ArrayList<>();
+        for (String level : options.getOrDefault("connections", "100,1000,10000").split(",")) {
+            levels.add(Integer.parseInt(level.trim()));
+        }
+
+        List<String> names = countryNames(base);
+        Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+        endpoints.put("GET /countries", () -> base.resolve("/countries"));
+        endpoints.put("GET /countries/{name}", () -> base.resolve("/countries/"
+                + URLEncoder.encode(names.get(ThreadLocalRandom.current().nextInt(names.size())), StandardCharsets.UTF_8)
+                .replace("+", "%20")));
+
+        System.out.printf("%-8s %-22s %7s %10s %9s %9s %9s %8s%n",
+                "mode", "endpoint", "conns", "req/s", "p50 ms", "p99 ms", "max ms", "errors");
+        for (int connections : levels) {
+            for (Map.Entry<String, Endpoint> endpoint : endpoints.entrySet()) {
+                run(endpoint.getValue(), connections, warmup);
+                Result result = run(endpoint.getValue(), connections, duration);
+                System.out.printf("%-8s %-22s %7d %10.0f %9.2f %9.2f %9.2f %8d%n",
+                        mode, endpoint.getKey(), connections, result.throughput(),
+                        result.percentile(0.50), result.percentile(0.99), result.max(), result.errors());
+                record(mode, endpoint.getKey(), connections, result);
+            }
+        }
+    }
+
+    private static Result run(Endpoint endpoint, int connections, Duration duration) {
+        Histogram latencies = new Histogram();
+        LongAdder errors = new LongAdder();
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        // The JDK client opens a new HTTP/1.1 connection whenever none is idle, so N looping threads
+        // hold N keep-alive connections. One client for all of them: each client owns a selector thread.
+        try (HttpClient client = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .connectTimeout(Duration.ofSeconds(10))
+                     .build();
+             ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < connections; i++) {
+                threads.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        HttpRequest request = HttpRequest.newBuilder(endpoint.next())
+                                .header("Accept", "application/json")
+                                .timeout(Duration.ofSeconds(30))
+                                .build();
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() == 200) {
+                                latencies.record(System.nanoTime() - sent);
+                            } else {
+                                errors.increment();
+                            }
+                        } catch (IOException e) {
+                            errors.increment();
+                        }
+                    }
+                    return null;
+                });
+            }
+        }
+        return new Result(latencies, errors.sum(), System.nanoTime() - start);
+    }
+
+    private static List<String> countryNames(URI base) throws IOException, InterruptedException {
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder(base.resolve("/countries"))
+                            .header("Accept", "application/json").build(),
+                    HttpResponse.BodyHandlers.ofByteArray());
+            List<String> names = new ArrayList<>();
+            for (JsonNode country : new ObjectMapper().readTree(response.body())) {
+                names.add(country.get("name").asText());
+            }
+            if (names.isEmpty()) {
+                throw new IllegalStateException("No countries loaded at " + base);
+            }
+            return names;
+        }
+    }
+
+    private static void record(String mode, String endpoint, int connections, Result result) throws IOException {
+        Files.createDirectories(RESULTS.getParent());
+        if (Files.notExists(RESULTS)) {
+            Files.writeString(RESULTS, "mode,endpoint,connections,throughput,p50_ms,p99_ms,max_ms,errors\n");
+        }
+        Files.writeString(RESULTS, String.format("%s,%s,%d,%.0f,%.3f,%.3f,%.3f,%d%n",
+                mode, endpoint, connections, result.throughput(),
+                result.percentile(0.50), result.percentile(0.99), result.max(), result.errors()),
+                StandardOpenOption.APPEND);
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected --option value, got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+
+    @FunctionalInterface
+    private interface Endpoint {
+        URI next();
+    }
+
+    private record Result(Histogram latencies, long errors, long elapsedNanos) {
+
+        double throughput() {
+            return latencies.count() * 1e9 / elapsedNanos;
+        }
+
+        double percentile(double p) {
+            return latencies.percentile(p) / 1e6;
+        }
+
+        double max() {
+            return latencies.percentile(1.0) / 1e6;
+        }
+    }
+
+    /**
+     * Lock-free latency histogram with logarithmic buckets 1% wide, from 1µs to well past a minute.
+     */
+    static final class Histogram {
+
+        private static final double GROWTH = Math.log(1.01);
+        private static final long MIN_NANOS = 1_000;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(2_000);
+
+        void record(long nanos) {
+            int bucket = (int) (Math.log(Math.max(nanos, MIN_NANOS) / (double) MIN_NANOS) / GROWTH);
+            buckets.incrementAndGet(Math.min(bucket, buckets.length() - 1));
+        }
+
+        long count() {
+            long count = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                count += buckets.get(i);
+            }
+            return count;
+        }
+
+        /**
+         * Upper bound of the bucket holding the {@code p} quantile, in nanoseconds.
+         */
+        double percentile(double p) {
+            long count = count();
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(p * count));
+            long seen = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) {
+                    return MIN_NANOS * Math.exp((i + 1) * GROWTH);
+                }
+            }
+            return MIN_NANOS * Math.exp(buckets.length() * GROWTH);
+        }
+    }
+}
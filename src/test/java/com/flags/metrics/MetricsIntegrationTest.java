@@ -0,0 +1,110 @@
+package com.flags.metrics;
+
+import com.flags.services.CountriesService;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class MetricsIntegrationTest {
+
+    @Nested
+    @SpringBootTest
+    @AutoConfigureMockMvc
+    @AutoConfigureObservability
+    @ActiveProfiles("test")
+    class Enabled {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private CountriesService service;
+
+        @Test
+        void exposesHotPathMetricsForPrometheus() throws Exception {
+            mockMvc.perform(get("/countries/France").accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk());
+            mockMvc.perform(get("/countries").param("search", "fra").accept(MediaType.TEXT_HTML)).andExpect(status().isOk());
+
+            // Method timers are opt-in
+            assertFalse(AopUtils.isAopProxy(service));
+            mockMvc.perform(get("/actuator/prometheus"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().string(not(containsString("flags_service_seconds"))))
+                    .andExpect(content().string(not(containsString("flags_mapper_seconds"))))
+                    .andExpect(content().string(containsString("flags_view_render_seconds_bucket{")))
+                    .andExpect(content().string(containsString("flags_view_render_seconds_count{exception=\"none\",view=\"countries\"}")))
+                    .andExpect(content().string(containsString("http_server_requests_seconds_count{")))
+                    .andExpect(content().string(containsString("spring_data_repository_invocations_seconds_count{")))
+                    .andExpect(content().string(containsString("flags_catalog_requests_total{result=\"hit\"}")))
+                    .andExpect(content().string(containsString("flags_search_requests_total{index=\"substring\",result=\"hit\"}")))
+                    .andExpect(content().string(containsString("flags_loader_rows_total{outcome=\"loaded\"} 11.0")))
+                    .andExpect(content().string(containsString("flags_loader_rate_rows_per_second")));
+        }
+    }
+
+    @Nested
+    @SpringBootTest(properties = "flags.metrics.method-timers=true")
+    @AutoConfigureMockMvc
+    @AutoConfigureObservability
+    @ActiveProfiles("test")
+    class MethodTimers {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private CountriesService service;
+
+        @Test
+        void timesServiceAndMapperMethods() throws Exception {
+            mockMvc.perform(get("/countries/France").accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk());
+
+            assertTrue(AopUtils.isAopProxy(service));
+            mockMvc.perform(get("/actuator/prometheus"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().string(containsString("flags_service_seconds_count{class=\"CountriesService\",exception=\"none\",method=\"getCountryBody\"}")))
+                    .andExpect(content().string(containsString("flags_mapper_seconds_count{class=\"CountryMapperImpl\"")));
+        }
+    }
+
+    @Nested
+    @SpringBootTest(properties = "flags.metrics.enabled=false")
+    @AutoConfigureMockMvc
+    @AutoConfigureObservability
+    @ActiveProfiles("test")
+    class Disabled {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private CountriesService service;
+
+        @Test
+        void leavesBeansUnproxied() throws Exception {
+            mockMvc.perform(get("/countries/France").accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk());
+
+            assertFalse(AopUtils.isAopProxy(service));
+            mockMvc.perform(get("/actuator/prometheus"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().string(not(containsString("flags_service_seconds"))))
+                    .andExpect(content().string(not(containsString("spring_data_repository_invocations"))))
+                    .andExpect(content().string(not(containsString("http_server_requests"))));
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.flags.pages;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flags.catalog.CountryCatalog;
+import com.flags.dto.CountryDetailDto;
+import com.flags.flagstore.FlagAtlas;
+import com.flags.models.Country;
+import com.flags.repositories.CountryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.View;
+import org.thymeleaf.spring6.view.ThymeleafViewResolver;
+
+import java.io.ByteArrayInputStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PageCacheIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CountryRepository countryRepository;
+
+    @Autowired
+    private CountryCatalog countryCatalog;
+
+    @Autowired
+    private PageCache pageCache;
+
+    @Autowired
+    private FlagAtlas flagAtlas;
+
+    @Autowired
+    private ThymeleafViewResolver thymeleafViewResolver;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setup() {
+        countryRepository.deleteAll();
+        countryRepository.save(new Country("France", "https://flagcdn.com/fr.svg", 67000000, "Paris"));
+        countryRepository.save(new Country("Iceland", "https://flagcdn.com/is.svg", 370000, "Reykjavík"));
+        countryRepository.save(new Country("Curaçao", "https://flagcdn.com/cw.svg", 150000, "Willemstad"));
+        countryCatalog.invalidate();
+        // Otherwise a page could be rendered against the atlas of the previous catalog
+        flagAtlas.awaitLatest();
+    }
+
+    @Test
+    @DisplayName("Cached list, search and detail pages are byte-identical to an uncached render")
+    void cachedPagesMatchTemplateOutput() throws Exception {
+        for (String path : new String[]{"/countries", "/countries?search=a", "/countries/Iceland", "/countries/Curaçao"}) {
+            MvcResult miss = mockMvc.perform(get(path).accept(MediaType.TEXT_HTML)).andExpect(status().isOk()).andReturn();
+            long hits = pageCache.stats().hits();
+            MvcResult hit = mockMvc.perform(get(path).accept(MediaType.TEXT_HTML)).andExpect(status().isOk()).andReturn();
+
+            assertEquals(hits + 1, pageCache.stats().hits(), path);
+            byte[] uncached = render(miss);
+            assertArrayEquals(uncached, miss.getResponse().getContentAsByteArray(), path);
+            assertArrayEquals(uncached, hit.getResponse().getContentAsByteArray(), path);
+        }
+    }
+
+    @Test
+    @DisplayName("Pages are sent gzipped from the precompressed copy when the client accepts it")
+    void servesPrecompressedGzip() throws Exception {
+        byte[] html = mockMvc.perform(get("/countries/Iceland").accept(MediaType.TEXT_HTML))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        byte[] gzip = mockMvc.perform(get("/countries/Iceland").accept(MediaType.TEXT_HTML).header("Accept-Encoding", "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("Vary", containsString("Accept-Encoding")))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            assertArrayEquals(html, in.readAllBytes());
+        }
+    }
+
+    @Test
+    @DisplayName("Search terms share a page regardless of surrounding whitespace")
+    void normalizesSearchTerm() throws Exception {
+        mockMvc.perform(get("/countries").param("search", "ice").accept(MediaType.TEXT_HTML)).andExpect(status().isOk());
+        long hits = pageCache.stats().hits();
+
+        mockMvc.perform(get("/countries").param("search", "  ice ").accept(MediaType.TEXT_HTML))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("value=\"ice\"")));
+        assertEquals(hits + 1, pageCache.stats().hits());
+    }
+
+    @Test
+    @DisplayName("An update re-renders that country's page and the lists, not other countries")
+    void updateInvalidatesPrecisely() throws Exception {
+        mockMvc.perform(get("/countries").accept(MediaType.TEXT_HTML));
+        mockMvc.perform(get("/countries/France").accept(MediaType.TEXT_HTML));
+        mockMvc.perform(get("/countries/Iceland").accept(MediaType.TEXT_HTML));
+
+        CountryDetailDto dto = new CountryDetailDto();
+        dto.setName("France");
+        dto.setFlag("https://flagcdn.com/fr.svg");
+        dto.setPopulation(68000000);
+        dto.setCapital("Lyon");
+        mockMvc.perform(put("/countries/France").contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isOk());
+        assertEquals(1, pageCache.stats().entries());
+
+        long hits = pageCache.stats().hits();
+        mockMvc.perform(get("/countries/France").accept(MediaType.TEXT_HTML))
+                .andExpect(content().string(containsString("Lyon")))
+                .andExpect(content().string(not(containsString("Paris"))));
+        mockMvc.perform(get("/countries/Iceland").accept(MediaType.TEXT_HTML)).andExpect(status().isOk());
+        mockMvc.perform(get("/countries").accept(MediaType.TEXT_HTML)).andExpect(status().isOk());
+        assertEquals(hits + 1, pageCache.stats().hits());
+    }
+
+    // What the Thymeleaf view writes for the same request and model, without the cache
+    private byte[] render(MvcResult result) throws Exception {
+        ModelAndView mav = result.getModelAndView();
+        View view = thymeleafViewResolver.resolveViewName(mav.getViewName(), result.getRequest().getLocale());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        view.render(mav.getModel(), result.getRequest(), response);
+        return response.getContentAsByteArray();
+    }
+}
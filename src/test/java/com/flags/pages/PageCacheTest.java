@@ -0,0 +1,86 @@
+package com.flags.pages;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flags.catalog.CountryCatalog;
+import com.flags.mappers.CountryMapperImpl;
+import com.flags.models.Country;
+import com.flags.repositories.CountryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PageCacheTest {
+
+    @Test
+    void evictsLeastRecentlyUsedBeyondMaxEntries() {
+        PageCache cache = new PageCache(new PageCacheProperties(true, DataSize.ofMegabytes(1), 2));
+        cache.put(list("a", 1), page(100));
+        cache.put(list("b", 1), page(100));
+        cache.get(list("a", 1));
+        cache.put(list("c", 1), page(100));
+
+        assertNotNull(cache.get(list("a", 1)));
+        assertNull(cache.get(list("b", 1)));
+        assertNotNull(cache.get(list("c", 1)));
+        assertEquals(2, cache.stats().entries());
+    }
+
+    @Test
+    void evictsBeyondMaxSizeAndSkipsOversizedPages() {
+        RenderedPage page = page(4000);
+        PageCache cache = new PageCache(new PageCacheProperties(true, DataSize.ofBytes(page.size() * 2), 100));
+        cache.put(list("a", 1), page);
+        cache.put(list("b", 1), page(4000));
+        cache.put(list("c", 1), page(4000));
+        cache.put(list("huge", 1), page(40000));
+
+        assertNull(cache.get(list("a", 1)));
+        assertNull(cache.get(list("huge", 1)));
+        assertEquals(page.size() * 2, cache.stats().bytes());
+    }
+
+    @Test
+    void writesDropListPagesAndTheWrittenCountryOnly() {
+        PageCache cache = new PageCache(new PageCacheProperties(true, DataSize.ofMegabytes(1), 100));
+        CountryRepository repository = mock(CountryRepository.class);
+        when(repository.findAll()).thenReturn(List.of(
+                new Country("France", "fr.svg", 67000000, "Paris"), new Country("Japan", "jp.svg", 125000000, "Tokyo")));
+        CountryCatalog catalog = new CountryCatalog(repository, new CountryMapperImpl(), new ObjectMapper(), List.of(cache));
+        catalog.snapshot();
+        cache.put(list("search:fra", 1), page(100));
+        cache.put(detail("France", 1), page(100));
+        cache.put(detail("Japan", 1), page(100));
+
+        catalog.put(() -> new Country("France", "fr.svg", 68000000, "Paris"));
+
+        assertNull(cache.get(list("search:fra", 1)));
+        assertNull(cache.get(detail("France", 1)));
+        assertNotNull(cache.get(detail("Japan", 1)));
+
+        catalog.remove("Japan", () -> { });
+        assertNull(cache.get(detail("Japan", 1)));
+    }
+
+    private static PageKey list(String variant, long version) {
+        return new PageKey(PageCache.LIST_VIEW, variant, version);
+    }
+
+    private static PageKey detail(String name, long version) {
+        return new PageKey(PageCache.DETAIL_VIEW, name, version);
+    }
+
+    private static RenderedPage page(int length) {
+        byte[] html = new byte[length];
+        for (int i = 0; i < length; i++) {
+            html[i] = (byte) ('a' + i * 7919 % 26);
+        }
+        return RenderedPage.of("text/html;charset=UTF-8", html);
+    }
+}
@@ -0,0 +1,91 @@
+package com.flags.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CountrySearchIndexTest {
+
+    private final CountrySearchIndex index = new CountrySearchIndex(100);
+
+    @BeforeEach
+    void setup() {
+        index.index("Germany", "Berlin");
+        index.index("Bermuda", "Hamilton");
+        index.index("Guinea-Bissau", "Bissau");
+        index.index("Côte d'Ivoire", "Yamoussoukro");
+        index.index("Eritrea", "Asmara");
+    }
+
+    @Test
+    void ranksNamePrefixBeforeInfixBeforeCapital() {
+        assertEquals(List.of("Bermuda", "Germany"), index.search("ber"));
+        assertEquals(List.of("Bermuda", "Germany"), index.search("erm"));
+        assertEquals(List.of("Guinea-Bissau"), index.search("bissau"));
+    }
+
+    @Test
+    void ignoresCaseAndAccents() {
+        assertEquals(List.of("Côte d'Ivoire"), index.search("COTE D"));
+        assertEquals(List.of("Côte d'Ivoire"), index.search("côte"));
+    }
+
+    @Test
+    void shortQueriesScan() {
+        assertEquals(List.of("Eritrea", "Bermuda", "Germany"), index.search("er"));
+    }
+
+    @Test
+    void appliesLimit() {
+        assertEquals(List.of("Eritrea"), index.search("er", 1));
+    }
+
+    @Test
+    void followsUpdatesAndRemovals() {
+        index.index("Germany", "Bonn");
+        index.remove("Bermuda");
+
+        assertEquals(List.of("Germany"), index.search("bonn"));
+        assertEquals(List.of(), index.search("berlin"));
+        assertEquals(List.of("Germany"), index.search("erm"));
+    }
+
+    @Test
+    void compactsAfterManyUpdates() {
+        for (int i = 0; i < 5000; i++) {
+            index.index("Germany", "Capital " + i);
+        }
+
+        assertEquals(List.of("Germany"), index.search("capital 4999"));
+        assertEquals(List.of(), index.search("capital 4998"));
+        assertEquals(List.of("Bermuda", "Germany"), index.search("erm"));
+    }
+
+    @Test
+    void compactsAfterManyRemovals() {
+        for (int i = 0; i < 5000; i++) {
+            index.index("Country " + i, "Capital " + i);
+        }
+        for (int i = 0; i < 5000; i++) {
+            index.remove("Country " + i);
+        }
+        index.index("Country 1", "Capital 1");
+
+        assertEquals(List.of("Country 1"), index.search("country"));
+        assertEquals(List.of("Country 1"), index.search("capital 1"));
+        assertEquals(List.of("Bermuda", "Germany"), index.search("erm"));
+    }
+
+    @Test
+    void startsOverAfterClear() {
+        index.clear();
+        assertEquals(List.of(), index.search("er"));
+
+        index.index("Peru", "Lima");
+        assertEquals(List.of("Peru"), index.search("er"));
+        assertEquals(List.of("Peru"), index.search("lima"));
+    }
+}
@@ -0,0 +1,192 @@
+package com.flags.search;
+
+import com.flags.dto.CountrySuggestionDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CountrySuggesterTest {
+
+    private final CountrySuggester suggester = new CountrySuggester(3);
+
+    @BeforeEach
+    void setup() {
+        suggester.index("France", "Paris", 67391582, "/flags/France.svg");
+        suggester.index("Finland", "Helsinki", 5530719, "/flags/Finland.svg");
+        suggester.index("Fiji", "Suva", 896444, "/flags/Fiji.svg");
+        suggester.index("Paraguay", "Asunción", 7132530, "/flags/Paraguay.svg");
+        suggester.index("Panama", "Panama City", 4314768, "/flags/Panama.svg");
+        suggester.index("Côte d'Ivoire", "Yamoussoukro", 26378275, "/flags/C%C3%B4te%20d'Ivoire.svg");
+        suggester.index("Antarctica", null, null, null);
+    }
+
+    @Test
+    void matchesNamesAndCapitalsMostPopulousFirst() {
+        assertEquals(List.of(
+                new CountrySuggestionDto("France", "/flags/France.svg", "Paris"),
+                new CountrySuggestionDto("Paraguay", "/flags/Paraguay.svg", "Paraguay")), suggester.suggest("par"));
+        assertEquals(List.of("France", "Finland", "Fiji"), names(suggester.suggest("F")));
+        assertEquals(List.of("Finland", "Fiji"), names(suggester.suggest("fi")));
+    }
+
+    @Test
+    void ignoresCaseAccentsAndSurroundingSpace() {
+        assertEquals(List.of("Côte d'Ivoire"), names(suggester.suggest(" COTE d")));
+        assertEquals(List.of("Côte d'Ivoire"), names(suggester.suggest("côte")));
+        assertEquals(List.of("Paraguay"), names(suggester.suggest("asuncio")));
+        assertEquals(List.of(), suggester.suggest("   "));
+        assertEquals(List.of(), suggester.suggest("xyz"));
+    }
+
+    @Test
+    void suggestsACountryOnce() {
+        // Panama matches on its name and its capital
+        List<CountrySuggestionDto> suggestions = suggester.suggest("pana");
+
+        assertEquals(1, suggestions.size());
+        assertEquals("Panama", suggestions.get(0).getMatch());
+    }
+
+    @Test
+    void followsUpdatesAndRemovals() {
+        suggester.index("Fiji", "Suva", 90000000, "/flags/Fiji.svg");
+        assertEquals(List.of("Fiji", "France", "Finland"), names(suggester.suggest("f")));
+
+        suggester.remove("France");
+        assertEquals(List.of("Fiji", "Finland"), names(suggester.suggest("f")));
+        assertEquals(List.of("Paraguay"), names(suggester.suggest("par")));
+
+        suggester.index("Fiji", "Nadi", 90000000, "/flags/Fiji.svg");
+        assertEquals(List.of(), suggester.suggest("suva"));
+        assertEquals(List.of("Fiji"), names(suggester.suggest("nad")));
+    }
+
+    @Test
+    void appliesLimit() {
+        assertEquals(List.of("France", "Finland"), names(suggester.suggest("f", 2)));
+        assertEquals(List.of(), suggester.suggest("f", 0));
+    }
+
+    @Test
+    void agreesWithAFullScanThroughRandomWrites() {
+        suggester.clear();
+        Random random = new Random(7);
+        Map<String, Object[]> countries = new HashMap<>();
+        String[] names = new String[400];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = word(random) + (i % 3 == 0 ? " " + word(random) : "");
+        }
+        for (int write = 0; write < 5000; write++) {
+            String name = names[random.nextInt(names.length)];
+            if (random.nextInt(4) == 0) {
+                suggester.remove(name);
+                countries.remove(name);
+            } else {
+                String capital = random.nextInt(5) == 0 ? null : word(random);
+                int population = random.nextInt(50);
+                suggester.index(name, capital, population, null);
+                countries.put(name, new Object[]{capital, population});
+            }
+            if (write % 25 == 0) {
+                for (String prefix : List.of("a", "b", "ab", "ba", "aab", word(random).substring(0, 2))) {
+                    assertEquals(expected(countries, prefix), names(suggester.suggest(prefix)), "prefix " + prefix);
+                }
+            }
+        }
+    }
+
+    @Test
+    void concurrentSuggestionsOnVirtualThreadsDoNotShareBuffers() throws Exception {
+        // Small subtrees are ranked in a pooled buffer rather than read from a node's list
+        List<String> prefixes = List.of("f", "fi", "par", "pana", "cote", "asun");
+        List<List<CountrySuggestionDto>> expected = prefixes.stream().map(suggester::suggest).toList();
+
+        List<Future<List<CountrySuggestionDto>>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 2000; i++) {
+                String prefix = prefixes.get(i % prefixes.size());
+                results.add(executor.submit(() -> suggester.suggest(prefix)));
+            }
+        }
+
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(expected.get(i % prefixes.size()), results.get(i).get());
+        }
+    }
+
+    @Test
+    void suggestAllocatesOnlyTheResponse() {
+        CountrySuggester large = new CountrySuggester(10);
+        Random random = new Random(3);
+        for (int i = 0; i < 20_000; i++) {
+            large.index(word(random) + i, word(random), random.nextInt(1_000_000), null);
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < 20_000; i++) {
+            large.suggest("zz");
+        }
+
+        long before = threads.getThreadAllocatedBytes(Thread.currentThread().threadId());
+        for (int i = 0; i < 20_000; i++) {
+            large.suggest("zz");
+        }
+        long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().threadId()) - before;
+
+        // No country starts with "zz", so the answer is the shared empty list
+        assertTrue(allocated < 20_000, "suggest allocated " + allocated + " bytes");
+        assertEquals(10, large.suggest("a").size());
+    }
+
+    private static List<String> expected(Map<String, Object[]> countries, String prefix) {
+        record Match(String name, boolean capital, int population) {
+        }
+        List<Match> matches = new ArrayList<>();
+        countries.forEach((name, fields) -> {
+            if (name.startsWith(prefix)) {
+                matches.add(new Match(name, false, (int) fields[1]));
+            }
+            if (fields[0] != null && ((String) fields[0]).startsWith(prefix)) {
+                matches.add(new Match(name, true, (int) fields[1]));
+            }
+        });
+        matches.sort(Comparator.comparingInt(Match::population).reversed()
+                .thenComparing(Match::capital)
+                .thenComparing(Match::name));
+        Set<String> seen = new HashSet<>();
+        List<String> expected = new ArrayList<>();
+        for (Match match : matches) {
+            if (expected.size() < 3 && seen.add(match.name())) {
+                expected.add(match.name());
+            }
+        }
+        return expected;
+    }
+
+    // Lower case words over a small alphabet, so keys share long prefixes and edges split often
+    private static String word(Random random) {
+        StringBuilder word = new StringBuilder();
+        for (int i = 2 + random.nextInt(5); i > 0; i--) {
+            word.append((char) ('a' + random.nextInt(3)));
+        }
+        return word.toString();
+    }
+
+    private static List<String> names(List<CountrySuggestionDto> suggestions) {
+        return suggestions.stream().map(CountrySuggestionDto::getName).toList();
+    }
+}
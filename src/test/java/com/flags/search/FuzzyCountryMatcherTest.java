@@ -0,0 +1,93 @@
+package com.flags.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FuzzyCountryMatcherTest {
+
+    private final FuzzyCountryMatcher matcher = new FuzzyCountryMatcher(3, 10);
+
+    @BeforeEach
+    void setup() {
+        for (String name : List.of("Philippines", "Kazakhstan", "Pakistan", "Uzbekistan", "Tajikistan",
+                "Finland", "Fiji", "Côte d'Ivoire", "Iceland", "Ireland")) {
+            matcher.add(name);
+        }
+    }
+
+    @Test
+    void findsMisspelledNames() {
+        assertEquals(new FuzzyMatch("Philippines", 3), matcher.search("Filipines").get(0));
+        assertEquals(new FuzzyMatch("Kazakhstan", 1), matcher.search("Kazakstan").get(0));
+        assertEquals(new FuzzyMatch("Côte d'Ivoire", 1), matcher.search("cote divoire").get(0));
+    }
+
+    @Test
+    void ordersByDistanceThenName() {
+        assertEquals(List.of(new FuzzyMatch("Iceland", 1), new FuzzyMatch("Ireland", 1), new FuzzyMatch("Finland", 2)),
+                matcher.search("Ieland"));
+    }
+
+    @Test
+    void boundsDistanceByQueryLength() {
+        assertEquals(List.of(), matcher.search("Fxx"));
+        assertEquals(List.of(new FuzzyMatch("Fiji", 1)), matcher.search("Fuji"));
+    }
+
+    @Test
+    void appliesLimitAndRemovals() {
+        matcher.remove("Kazakhstan");
+
+        assertEquals(List.of(new FuzzyMatch("Iceland", 1)), matcher.search("Ieland", 1));
+        assertEquals(List.of(), matcher.search("Kazakstan"));
+    }
+
+    @Test
+    void concurrentSearchesOnVirtualThreadsDoNotShareBuffers() throws Exception {
+        List<String> queries = List.of("Filipines", "Kazakstan", "Ieland", "Fuji", "cote divoire", "Tadjikistan");
+        List<List<FuzzyMatch>> expected = queries.stream().map(matcher::search).toList();
+
+        List<Future<List<FuzzyMatch>>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 2000; i++) {
+                String query = queries.get(i % queries.size());
+                results.add(executor.submit(() -> matcher.search(query)));
+            }
+        }
+
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(expected.get(i % queries.size()), results.get(i).get());
+        }
+    }
+
+    @Test
+    void scoringDoesNotAllocate() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        char[] query = "kazakstan".toCharArray();
+        FuzzyTopK topK = new FuzzyTopK(10);
+        int[][] rows = new int[matcher.depth() + 1][query.length + 1];
+        for (int i = 0; i < 20_000; i++) {
+            matcher.walk(query, query.length, 3, topK, rows);
+        }
+
+        long before = threads.getThreadAllocatedBytes(Thread.currentThread().threadId());
+        for (int i = 0; i < 20_000; i++) {
+            matcher.walk(query, query.length, 3, topK, rows);
+        }
+        long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().threadId()) - before;
+
+        assertTrue(topK.size() > 0);
+        // Leaves room for the measurement call itself, but not for even one byte per walk
+        assertTrue(allocated < 20_000, "walk allocated " + allocated + " bytes");
+    }
+}
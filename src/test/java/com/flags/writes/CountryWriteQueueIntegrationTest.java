@@ -0,0 +1,238 @@
+package com.flags.writes;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flags.catalog.CountryCatalog;
+import com.flags.dto.CountryDetailDto;
+import com.flags.models.Country;
+import com.flags.repositories.CountryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// A flush interval longer than any test, so only the tests decide when batches are written
+@SpringBootTest(properties = {"flags.writes.write-behind=true", "flags.writes.queue-capacity=2", "flags.writes.flush-interval=1h"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CountryWriteQueueIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CountryRepository countryRepository;
+
+    @Autowired
+    private CountryCatalog countryCatalog;
+
+    @Autowired
+    private CountryWriteQueue writeQueue;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setup() {
+        writeQueue.flush();
+        countryRepository.deleteAll();
+        countryRepository.save(new Country("France", "https://flagcdn.com/fr.svg", 67000000, "Paris"));
+        countryCatalog.invalidate();
+    }
+
+    @Test
+    @DisplayName("Writes are visible right away and reach the database on flush")
+    void readYourWrites() throws Exception {
+        update("France", 68000000).andExpect(status().isOk());
+        create("Japan", 125000000).andExpect(status().isCreated());
+
+        mockMvc.perform(get("/countries/France")).andExpect(jsonPath("$.population", is(68000000)));
+        mockMvc.perform(get("/countries/Japan")).andExpect(status().isOk());
+        assertEquals(67000000, countryRepository.findById("France").orElseThrow().getPopulation());
+        assertFalse(countryRepository.existsById("Japan"));
+
+        writeQueue.flush();
+        assertEquals(68000000, countryRepository.findById("France").orElseThrow().getPopulation());
+        assertTrue(countryRepository.existsById("Japan"));
+    }
+
+    @Test
+    @DisplayName("Repeated updates to one country are written once, in their final state")
+    void coalescesUpdates() throws Exception {
+        WriteQueueStats before = writeQueue.stats();
+        for (int population = 1; population <= 5; population++) {
+            update("France", population).andExpect(status().isOk());
+        }
+
+        WriteQueueStats queued = writeQueue.stats();
+        assertEquals(1, queued.pending());
+        assertEquals(4, queued.coalesced() - before.coalesced());
+        writeQueue.flush();
+        assertEquals(5, countryRepository.findById("France").orElseThrow().getPopulation());
+        assertEquals(1, writeQueue.stats().written() - before.written());
+    }
+
+    @Test
+    @DisplayName("A full queue answers 429 for new countries but still takes updates to pending ones")
+    void backpressure() throws Exception {
+        create("Japan", 1).andExpect(status().isCreated());
+        create("Chile", 2).andExpect(status().isCreated());
+
+        create("Peru", 3)
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "1"));
+        mockMvc.perform(get("/countries/Peru")).andExpect(status().isNotFound());
+        update("Japan", 4).andExpect(status().isOk());
+
+        writeQueue.flush();
+        create("Peru", 3).andExpect(status().isCreated());
+    }
+
+    @Test
+    @DisplayName("Deletes are queued too, and a catalog reload writes pending changes first")
+    void deleteAndReload() throws Exception {
+        create("Japan", 1).andExpect(status().isCreated());
+        mockMvc.perform(delete("/countries/France")).andExpect(status().isNoContent());
+        mockMvc.perform(delete("/countries/France")).andExpect(status().isNotFound());
+        create("France", 2).andExpect(status().isCreated());
+
+        countryCatalog.invalidate();
+        mockMvc.perform(get("/countries/Japan")).andExpect(status().isOk());
+        mockMvc.perform(get("/countries/France")).andExpect(jsonPath("$.population", is(2)));
+        assertEquals(0, writeQueue.stats().pending());
+    }
+
+    @Test
+    @DisplayName("An If-Match write is applied at once, and fails if another node wrote the row first")
+    void conditionalWriteConflicts() throws Exception {
+        long conflicts = writeQueue.stats().conflicts();
+        mockMvc.perform(get("/countries/France")).andExpect(header().string("ETag", "\"0\""));
+        // Another node commits first
+        jdbc.update("update country set population = ?, version = version + 1 where name = ?", 69000000, "France");
+
+        update("France", 68000000, "\"0\"").andExpect(status().isPreconditionFailed());
+
+        Country stored = countryRepository.findById("France").orElseThrow();
+        assertEquals(69000000, stored.getPopulation());
+        assertEquals(1L, stored.getVersion());
+        assertEquals(conflicts + 1, writeQueue.stats().conflicts());
+        assertEquals(0, writeQueue.stats().pending());
+    }
+
+    @Test
+    @DisplayName("An If-Match write goes to the database without a flush, after the country's queued write")
+    void conditionalWriteIsSynchronous() throws Exception {
+        update("France", 68000000).andExpect(status().isOk()).andExpect(header().string("ETag", "\"1\""));
+        assertEquals(1, writeQueue.stats().pending());
+
+        update("France", 69000000, "\"1\"").andExpect(status().isOk()).andExpect(header().string("ETag", "\"2\""));
+
+        Country stored = countryRepository.findById("France").orElseThrow();
+        assertEquals(69000000, stored.getPopulation());
+        assertEquals(2L, stored.getVersion());
+        assertEquals(0, writeQueue.stats().pending());
+
+        mockMvc.perform(delete("/countries/France").header("If-Match", "\"2\"")).andExpect(status().isNoContent());
+        assertFalse(countryRepository.existsById("France"));
+    }
+
+    @Test
+    @DisplayName("A queued write without If-Match is applied over a newer row, with the next version")
+    void unconditionalWriteWins() throws Exception {
+        update("France", 68000000, null).andExpect(status().isOk());
+        jdbc.update("update country set population = ?, version = version + 1 where name = ?", 69000000, "France");
+        jdbc.update("insert into country (name, flag, population, capital, version) values (?, ?, ?, ?, ?)",
+                "Japan", "https://flagcdn.com/jp.svg", 1, "Tokyo", 0);
+        create("Japan", 125000000).andExpect(status().isCreated());
+
+        writeQueue.flush();
+
+        Country france = countryRepository.findById("France").orElseThrow();
+        assertEquals(68000000, france.getPopulation());
+        assertEquals(2L, france.getVersion());
+        mockMvc.perform(get("/countries/France")).andExpect(header().string("ETag", "\"2\""));
+        // A create is conditional on the country not existing
+        assertEquals(1, countryRepository.findById("Japan").orElseThrow().getPopulation());
+        mockMvc.perform(get("/countries/Japan")).andExpect(jsonPath("$.population", is(1)));
+    }
+
+    @Test
+    @DisplayName("A bulk import writes queued changes first and skips countries they created")
+    void bulkImportFlushesFirst() throws Exception {
+        create("Japan", 125000000).andExpect(status().isCreated());
+        mockMvc.perform(delete("/countries/France")).andExpect(status().isNoContent());
+        String ndjson = """
+                {"name":"Japan","flag":"https://flagcdn.com/jp.svg","population":1,"capital":"Tokyo"}
+                {"name":"France","flag":"https://flagcdn.com/fr.svg","population":2,"capital":"Paris"}
+                """;
+
+        mockMvc.perform(post("/countries/bulk").contentType(MediaType.APPLICATION_NDJSON).content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created", is(1)))
+                .andExpect(jsonPath("$.errors[0].name", is("Japan")))
+                .andExpect(jsonPath("$.errors[0].message", is("Country already exists")));
+
+        assertEquals(0, writeQueue.stats().pending());
+        assertEquals(125000000, countryRepository.findById("Japan").orElseThrow().getPopulation());
+        assertEquals(2, countryRepository.findById("France").orElseThrow().getPopulation());
+        mockMvc.perform(get("/countries/France")).andExpect(jsonPath("$.population", is(2)));
+    }
+
+    @Test
+    @DirtiesContext
+    @DisplayName("Stopping the application writes everything still queued")
+    void flushesOnShutdown() throws Exception {
+        update("France", 70000000).andExpect(status().isOk());
+        create("Japan", 125000000).andExpect(status().isCreated());
+
+        writeQueue.stop();
+
+        assertEquals(70000000, countryRepository.findById("France").orElseThrow().getPopulation());
+        assertTrue(countryRepository.existsById("Japan"));
+    }
+
+    private ResultActions create(String name, int population) throws Exception {
+        return mockMvc.perform(post("/countries").contentType(MediaType.APPLICATION_JSON).content(body(name, population)));
+    }
+
+    private ResultActions update(String name, int population) throws Exception {
+        return update(name, population, null);
+    }
+
+    private ResultActions update(String name, int population, String ifMatch) throws Exception {
+        MockHttpServletRequestBuilder request = put("/countries/" + name).contentType(MediaType.APPLICATION_JSON).content(body(name, population));
+        return mockMvc.perform(ifMatch != null ? request.header("If-Match", ifMatch) : request);
+    }
+
+    private String body(String name, int population) throws Exception {
+        CountryDetailDto dto = new CountryDetailDto();
+        dto.setName(name);
+        dto.setFlag("https://flagcdn.com/" + name.toLowerCase() + ".svg");
+        dto.setPopulation(population);
+        dto.setCapital(name + " City");
+        return objectMapper.writeValueAsString(dto);
+    }
+}